@@ -0,0 +1,258 @@
+package extensive_form_game;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Versioned binary format for game trees, and a converter from the two text formats read by Game.
+ * The file is a fixed-size little-endian header followed by one section per node or edge column, each aligned to 8 bytes:
+ * <pre>
+ * int    magic ('EFGB'), version, numNodes, numEdges, root, maxDepth, numInformationSets P1, numInformationSets P2
+ * double smallestPayoff, biggestPayoff
+ * long   offset of each of the NUM_SECTIONS sections, in the order of the SECTION_ constants
+ * </pre>
+ * Each section is mapped separately, so the 2GB limit of FileChannel.map applies per section rather than to the whole file.
+ * Only the tree, the information set structure and node names are stored. Action names, signals and abstractions are not;
+ * an abstraction can be applied to the loaded game through addInformationSetAbstraction as usual.
+ */
+public class BinaryGameFormat {
+	public static final int MAGIC = ('E' << 24) | ('F' << 16) | ('G' << 8) | 'B';
+	public static final int VERSION = 1;
+
+	private static final int SECTION_PLAYER = 0;
+	private static final int SECTION_INFORMATION_SET = 1;
+	private static final int SECTION_FIRST_CHILD = 2;
+	private static final int SECTION_PAYOFF = 3;
+	private static final int SECTION_CHILD_NODE_ID = 4;
+	private static final int SECTION_CHANCE_PROBABILITY = 5;
+	private static final int SECTION_ACTIONS_PLAYER1 = 6;
+	private static final int SECTION_ACTIONS_PLAYER2 = 7;
+	private static final int SECTION_NAME_OFFSET = 8;
+	private static final int SECTION_NAME_BYTES = 9;
+	private static final int NUM_SECTIONS = 10;
+
+	private static final int HEADER_BYTES = 8 * 4 + 2 * 8 + NUM_SECTIONS * 8;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Writes the game to filename in the binary format.
+	 * @param game
+	 * @param filename
+	 * @throws IOException
+	 */
+	public static void write(Game game, String filename) throws IOException {
+		CompactGame compactGame = new CompactGame(game);
+		int numNodes = compactGame.getNumNodes();
+		int numEdges = compactGame.getNumEdges();
+
+		byte[][] names = new byte[numNodes][];
+		long numNameBytes = 0;
+		for (int nodeId = 0; nodeId < numNodes; nodeId++) {
+			Game.Node node = game.getNodeById(nodeId);
+			names[nodeId] = node == null || node.getName() == null ? new byte[0] : node.getName().getBytes(UTF8);
+			numNameBytes += names[nodeId].length;
+		}
+		if (numNameBytes > Integer.MAX_VALUE) {
+			throw new IOException("Node names take up more than 2GB");
+		}
+
+		long[] sectionBytes = new long[NUM_SECTIONS];
+		sectionBytes[SECTION_PLAYER] = numNodes;
+		sectionBytes[SECTION_INFORMATION_SET] = 4L * numNodes;
+		sectionBytes[SECTION_FIRST_CHILD] = 4L * (numNodes + 1);
+		sectionBytes[SECTION_PAYOFF] = 8L * numNodes;
+		sectionBytes[SECTION_CHILD_NODE_ID] = 4L * numEdges;
+		sectionBytes[SECTION_CHANCE_PROBABILITY] = 8L * numEdges;
+		sectionBytes[SECTION_ACTIONS_PLAYER1] = 4L * compactGame.getNumInformationSets(1);
+		sectionBytes[SECTION_ACTIONS_PLAYER2] = 4L * compactGame.getNumInformationSets(2);
+		sectionBytes[SECTION_NAME_OFFSET] = 4L * (numNodes + 1);
+		sectionBytes[SECTION_NAME_BYTES] = numNameBytes;
+		long[] sectionOffsets = new long[NUM_SECTIONS];
+		long fileBytes = HEADER_BYTES;
+		for (int section = 0; section < NUM_SECTIONS; section++) {
+			sectionOffsets[section] = fileBytes;
+			fileBytes = align(fileBytes + sectionBytes[section]);
+		}
+
+		RandomAccessFile file = new RandomAccessFile(filename, "rw");
+		try {
+			file.setLength(fileBytes);
+			FileChannel channel = file.getChannel();
+
+			ByteBuffer header = map(channel, FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+			header.putInt(MAGIC).putInt(VERSION).putInt(numNodes).putInt(numEdges).putInt(compactGame.getRoot()).putInt(compactGame.getMaxDepth());
+			header.putInt(compactGame.getNumInformationSets(1)).putInt(compactGame.getNumInformationSets(2));
+			header.putDouble(compactGame.getSmallestPayoff()).putDouble(compactGame.getLargestPayoff());
+			for (int section = 0; section < NUM_SECTIONS; section++) {
+				header.putLong(sectionOffsets[section]);
+			}
+
+			ByteBuffer player = mapSection(channel, FileChannel.MapMode.READ_WRITE, sectionOffsets, sectionBytes, SECTION_PLAYER);
+			IntBuffer informationSet = mapSection(channel, FileChannel.MapMode.READ_WRITE, sectionOffsets, sectionBytes, SECTION_INFORMATION_SET).asIntBuffer();
+			DoubleBuffer payoff = mapSection(channel, FileChannel.MapMode.READ_WRITE, sectionOffsets, sectionBytes, SECTION_PAYOFF).asDoubleBuffer();
+			IntBuffer firstChild = mapSection(channel, FileChannel.MapMode.READ_WRITE, sectionOffsets, sectionBytes, SECTION_FIRST_CHILD).asIntBuffer();
+			IntBuffer nameOffset = mapSection(channel, FileChannel.MapMode.READ_WRITE, sectionOffsets, sectionBytes, SECTION_NAME_OFFSET).asIntBuffer();
+			ByteBuffer nameBytes = mapSection(channel, FileChannel.MapMode.READ_WRITE, sectionOffsets, sectionBytes, SECTION_NAME_BYTES);
+			for (int nodeId = 0; nodeId < numNodes; nodeId++) {
+				player.put((byte) compactGame.getPlayer(nodeId));
+				informationSet.put(compactGame.getInformationSet(nodeId));
+				payoff.put(compactGame.getPayoff(nodeId));
+				firstChild.put(compactGame.getFirstEdge(nodeId));
+				nameOffset.put(nameBytes.position());
+				nameBytes.put(names[nodeId]);
+			}
+			firstChild.put(compactGame.getFirstEdge(numNodes));
+			nameOffset.put(nameBytes.position());
+
+			IntBuffer childNodeId = mapSection(channel, FileChannel.MapMode.READ_WRITE, sectionOffsets, sectionBytes, SECTION_CHILD_NODE_ID).asIntBuffer();
+			DoubleBuffer chanceProbability = mapSection(channel, FileChannel.MapMode.READ_WRITE, sectionOffsets, sectionBytes, SECTION_CHANCE_PROBABILITY).asDoubleBuffer();
+			for (int edge = 0; edge < numEdges; edge++) {
+				childNodeId.put(compactGame.getEdgeChildId(edge));
+				chanceProbability.put(compactGame.getEdgeProbability(edge));
+			}
+
+			for (int p = 1; p < 3; p++) {
+				IntBuffer numActions = mapSection(channel, FileChannel.MapMode.READ_WRITE, sectionOffsets, sectionBytes, p == 1 ? SECTION_ACTIONS_PLAYER1 : SECTION_ACTIONS_PLAYER2).asIntBuffer();
+				for (int informationSetId = 0; informationSetId < compactGame.getNumInformationSets(p); informationSetId++) {
+					numActions.put(compactGame.getNumActionsAtInformationSet(p, informationSetId));
+				}
+			}
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Memory-maps a file written by write. The returned game reads its columns directly from the mapping, which stays valid after this method returns.
+	 * @param filename
+	 * @return
+	 * @throws IOException if the file is not in the binary format, or was written by an unsupported version
+	 */
+	public static MappedGame read(String filename) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(filename, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			if (channel.size() < HEADER_BYTES) {
+				throw new IOException(filename + " is not a binary game file");
+			}
+			ByteBuffer header = map(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+			if (header.getInt() != MAGIC) {
+				throw new IOException(filename + " is not a binary game file");
+			}
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new IOException(filename + " has version " + version + ", only version " + VERSION + " is supported");
+			}
+			int numNodes = header.getInt();
+			int numEdges = header.getInt();
+			int root = header.getInt();
+			int maxDepth = header.getInt();
+			int[] numInformationSets = {0, header.getInt(), header.getInt()};
+			double smallestPayoff = header.getDouble();
+			double biggestPayoff = header.getDouble();
+			long[] sectionOffsets = new long[NUM_SECTIONS];
+			for (int section = 0; section < NUM_SECTIONS; section++) {
+				sectionOffsets[section] = header.getLong();
+			}
+
+			long[] sectionBytes = new long[NUM_SECTIONS];
+			for (int section = 0; section < NUM_SECTIONS; section++) {
+				long end = section + 1 < NUM_SECTIONS ? sectionOffsets[section+1] : channel.size();
+				sectionBytes[section] = end - sectionOffsets[section];
+			}
+
+			// The number of actions per information set is tiny compared to the tree, so it is copied to the heap
+			int[][] numActionsAtInformationSet = new int[3][];
+			for (int p = 1; p < 3; p++) {
+				numActionsAtInformationSet[p] = new int[numInformationSets[p]];
+				mapSection(channel, FileChannel.MapMode.READ_ONLY, sectionOffsets, sectionBytes, p == 1 ? SECTION_ACTIONS_PLAYER1 : SECTION_ACTIONS_PLAYER2).asIntBuffer().get(numActionsAtInformationSet[p]);
+			}
+
+			return new MappedGame(root, numNodes, numEdges, maxDepth, smallestPayoff, biggestPayoff, numActionsAtInformationSet,
+					mapSection(channel, FileChannel.MapMode.READ_ONLY, sectionOffsets, sectionBytes, SECTION_PLAYER),
+					mapSection(channel, FileChannel.MapMode.READ_ONLY, sectionOffsets, sectionBytes, SECTION_INFORMATION_SET).asIntBuffer(),
+					mapSection(channel, FileChannel.MapMode.READ_ONLY, sectionOffsets, sectionBytes, SECTION_FIRST_CHILD).asIntBuffer(),
+					mapSection(channel, FileChannel.MapMode.READ_ONLY, sectionOffsets, sectionBytes, SECTION_PAYOFF).asDoubleBuffer(),
+					mapSection(channel, FileChannel.MapMode.READ_ONLY, sectionOffsets, sectionBytes, SECTION_CHILD_NODE_ID).asIntBuffer(),
+					mapSection(channel, FileChannel.MapMode.READ_ONLY, sectionOffsets, sectionBytes, SECTION_CHANCE_PROBABILITY).asDoubleBuffer(),
+					mapSection(channel, FileChannel.MapMode.READ_ONLY, sectionOffsets, sectionBytes, SECTION_NAME_OFFSET).asIntBuffer(),
+					mapSection(channel, FileChannel.MapMode.READ_ONLY, sectionOffsets, sectionBytes, SECTION_NAME_BYTES));
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Converts a game file in either text format to the binary format. The extended format is recognized by its 'game info' line.
+	 * @param inputFilename
+	 * @param outputFilename
+	 * @throws IOException
+	 */
+	public static void convert(String inputFilename, String outputFilename) throws IOException {
+		Game game = new Game();
+		if (isExtendedTextFormat(inputFilename)) {
+			game.createGameFromFile(inputFilename);
+		} else {
+			game.createGameFromFileZerosumPackageFormat(inputFilename);
+		}
+		write(game, outputFilename);
+	}
+
+	private static boolean isExtendedTextFormat(String filename) throws IOException {
+		BufferedReader reader = new BufferedReader(new FileReader(filename));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith("#") || line.trim().isEmpty()) continue;
+				return line.startsWith("'game info'");
+			}
+			return false;
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static ByteBuffer mapSection(FileChannel channel, FileChannel.MapMode mode, long[] sectionOffsets, long[] sectionBytes, int section) throws IOException {
+		if (sectionBytes[section] > Integer.MAX_VALUE) {
+			throw new IOException("Section " + section + " is larger than the 2GB that can be mapped at once");
+		}
+		return map(channel, mode, sectionOffsets[section], sectionBytes[section]);
+	}
+
+	private static ByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long offset, long bytes) throws IOException {
+		MappedByteBuffer buffer = channel.map(mode, offset, bytes);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		return buffer;
+	}
+
+	private static long align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+
+	/**
+	 * Usage: BinaryGameFormat inputTextFile outputBinaryFile
+	 */
+	public static void main(String[] args) {
+		if (args.length != 2) {
+			System.out.println("Usage: BinaryGameFormat inputTextFile outputBinaryFile");
+			return;
+		}
+		try {
+			long start = System.currentTimeMillis();
+			convert(args[0], args[1]);
+			System.out.println("Converted " + args[0] + " to " + args[1] + " in " + (System.currentTimeMillis() - start) + "ms");
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
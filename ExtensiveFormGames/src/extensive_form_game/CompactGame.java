@@ -0,0 +1,170 @@
+package extensive_form_game;
+
+import extensive_form_game.Game.Action;
+import extensive_form_game.Game.Node;
+
+/**
+ * A compiled, read-only view of a Game. Instead of a Node object per node, with an Action object per edge, the tree is stored in flat primitive arrays.
+ * Node data is indexed by node id, and the edges leaving a node occupy the contiguous range [firstChild[nodeId], firstChild[nodeId+1]) of the edge arrays,
+ * so the number of actions at a node is the difference of two consecutive offsets.
+ * Node names are not kept; use the originating Game if they are needed.
+ */
+public class CompactGame extends FlatGame {
+	// Assumed JVM layout when estimating the size of the object graph in Game: 64-bit JVM with compressed references
+	private static final int OBJECT_HEADER_BYTES = 12;
+	private static final int ARRAY_HEADER_BYTES = 16;
+	private static final int REFERENCE_BYTES = 4;
+
+	private byte[] player; // indexed as [nodeId]. -2 is leaf, 0 is nature, 1 and 2 are the players
+	private int[] informationSet; // indexed as [nodeId]. Only meaningful at player nodes
+	private int[] firstChild; // indexed as [nodeId], with numNodes+1 entries. Offset of the first edge of the node into the edge arrays
+	private double[] payoff; // indexed as [nodeId]. Payoff for Player 1, only meaningful at leaf nodes
+	private int[] childNodeId; // indexed as [edge]. The node reached by taking the action
+	private double[] chanceProbability; // indexed as [edge]. Probability of the action, only meaningful for edges leaving nature nodes
+
+	/**
+	 * Compiles the given game into flat arrays. Any abstraction already applied to the game is carried over.
+	 * @param game
+	 */
+	public CompactGame(Game game) {
+		root = game.getRoot();
+		numNodes = game.getNumNodes();
+		Node[] nodes = game.getNodes();
+
+		for (int nodeId = 0; nodeId < numNodes; nodeId++) {
+			if (nodes[nodeId] != null && !nodes[nodeId].isLeaf()) {
+				numEdges += nodes[nodeId].getActions().length;
+			}
+		}
+
+		player = new byte[numNodes];
+		informationSet = new int[numNodes];
+		firstChild = new int[numNodes+1];
+		payoff = new double[numNodes];
+		childNodeId = new int[numEdges];
+		chanceProbability = new double[numEdges];
+		smallestPayoff = Double.MAX_VALUE;
+		biggestPayoff = -Double.MAX_VALUE;
+
+		int edge = 0;
+		for (int nodeId = 0; nodeId < numNodes; nodeId++) {
+			firstChild[nodeId] = edge;
+			Node node = nodes[nodeId];
+			// Node ids in the game files are not required to be consecutive. Missing ids are stored as leaves with zero payoff
+			if (node == null || node.isLeaf()) {
+				player[nodeId] = -2;
+				payoff[nodeId] = node == null ? 0 : node.getValue();
+				if (node != null) {
+					smallestPayoff = Math.min(smallestPayoff, node.getValue());
+					biggestPayoff = Math.max(biggestPayoff, node.getValue());
+				}
+				continue;
+			}
+			player[nodeId] = (byte) node.getPlayer();
+			informationSet[nodeId] = node.getInformationSet();
+			for (Action action : node.getActions()) {
+				childNodeId[edge] = action.getChildId();
+				chanceProbability[edge] = node.getPlayer() == 0 ? action.getProbability() : 0;
+				edge++;
+			}
+		}
+		firstChild[numNodes] = edge;
+
+		numInformationSets = new int[3];
+		numActionsAtInformationSet = new int[3][];
+		for (int p = 1; p < 3; p++) {
+			numInformationSets[p] = game.getNumInformationSets(p);
+			numActionsAtInformationSet[p] = new int[numInformationSets[p]];
+			for (int informationSetId = 0; informationSetId < numInformationSets[p]; informationSetId++) {
+				numActionsAtInformationSet[p][informationSetId] = game.getNumActionsAtInformationSet(p, informationSetId);
+			}
+		}
+
+		maxDepth = game.getMaxDepth();
+		copyAbstraction(game);
+	}
+
+	/**
+	 * Approximate number of bytes used per node by the flat arrays of this class.
+	 * @return
+	 */
+	public double getBytesPerNode() {
+		long bytes = (long) numNodes * (1 + 4 + 4 + 8) + 4; // player, informationSet, firstChild, payoff, plus the extra offset
+		bytes += (long) numEdges * (4 + 8); // childNodeId, chanceProbability
+		bytes += 6 * ARRAY_HEADER_BYTES;
+		return (double) bytes / numNodes;
+	}
+
+	/**
+	 * Approximate number of bytes used per node by the Node/Action object graph of the given game, including node and action name strings,
+	 * or the name suffix table if the names of the game have been compacted.
+	 * Assumes a 64-bit JVM with compressed references and compact (latin-1) strings, which is the default on current JVMs.
+	 * @param game
+	 * @return
+	 */
+	public static double estimateObjectGraphBytesPerNode(Game game) {
+		long bytes = ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * game.getNumNodes(); // the nodes array
+		if (game.hasCompactNodeNames()) {
+			// the suffix list, with a reference per suffix
+			bytes += align(OBJECT_HEADER_BYTES + 2 * 4 + REFERENCE_BYTES) + align(ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * game.getNameSuffixes().size());
+			for (String suffix : game.getNameSuffixes()) {
+				bytes += estimateStringBytes(suffix);
+			}
+		}
+		for (Node node : game.getNodes()) {
+			if (node == null) continue;
+			// header, outer instance reference, 10 int fields, a boolean, name and actions references and the double value
+			bytes += align(OBJECT_HEADER_BYTES + REFERENCE_BYTES + 10 * 4 + 1 + 2 * REFERENCE_BYTES + 8);
+			if (!game.hasCompactNodeNames()) {
+				bytes += estimateStringBytes(node.getName());
+			}
+			if (node.isLeaf() || node.getActions() == null) continue;
+			bytes += align(ARRAY_HEADER_BYTES + REFERENCE_BYTES * node.getActions().length);
+			for (Action action : node.getActions()) {
+				// header, outer instance reference, name reference, childId, probability and rem
+				bytes += align(OBJECT_HEADER_BYTES + REFERENCE_BYTES + REFERENCE_BYTES + 4 + 8 + 4);
+				bytes += estimateStringBytes(action.getName());
+			}
+		}
+		return (double) bytes / game.getNumNodes();
+	}
+
+	private static long estimateStringBytes(String s) {
+		if (s == null) return 0;
+		return align(OBJECT_HEADER_BYTES + REFERENCE_BYTES + 4 + 1 + 1) + align(ARRAY_HEADER_BYTES + s.length());
+	}
+
+	private static long align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+
+	@Override
+	public int getPlayer(int nodeId) {
+		return player[nodeId];
+	}
+
+	@Override
+	public int getInformationSet(int nodeId) {
+		return informationSet[nodeId];
+	}
+
+	@Override
+	public int getFirstEdge(int nodeId) {
+		return firstChild[nodeId];
+	}
+
+	@Override
+	public double getPayoff(int nodeId) {
+		return payoff[nodeId];
+	}
+
+	@Override
+	public int getEdgeChildId(int edge) {
+		return childNodeId[edge];
+	}
+
+	@Override
+	public double getEdgeProbability(int edge) {
+		return chanceProbability[edge];
+	}
+}
@@ -0,0 +1,273 @@
+package extensive_form_game;
+
+/**
+ * Base class for game representations that store the tree as flat, node-id-indexed columns instead of Node objects.
+ * The edges leaving a node occupy the contiguous range [getFirstEdge(nodeId), getFirstEdge(nodeId+1)) of the edge columns.
+ * Subclasses only decide where the columns live (heap arrays in CompactGame, a memory-mapped file in MappedGame); the
+ * GameGenerator implementation, including abstraction handling, is shared.
+ */
+public abstract class FlatGame implements GameGenerator {
+	protected int root;
+	protected int numNodes;
+	protected int numEdges;
+	protected int maxDepth;
+	private int maxNumActions = -1; // largest number of actions at any node, computed on first use
+
+	protected int[] numInformationSets; // indexed as [player]
+	protected int[][] numActionsAtInformationSet; // indexed as [player][informationSetId]
+
+	protected double smallestPayoff;
+	protected double biggestPayoff;
+
+	private boolean hasAbstraction;
+	private int[][] abstraction; // indexed as [player][informationSetId]
+	private int[][][] actionAbstractionMapping; // indexed as [player][informationSetId][actionId], null if actions are mapped by the identity
+
+	/**
+	 * @param nodeId
+	 * @return -2 for leaves, 0 for nature, 1 or 2 for the players
+	 */
+	public abstract int getPlayer(int nodeId);
+	public abstract int getInformationSet(int nodeId);
+	/**
+	 * @param nodeId a node id in [0, numNodes]. getFirstEdge(numNodes) is the total number of edges
+	 * @return offset of the first edge of the node into the edge columns
+	 */
+	public abstract int getFirstEdge(int nodeId);
+	public abstract double getPayoff(int nodeId);
+	public abstract int getEdgeChildId(int edge);
+	public abstract double getEdgeProbability(int edge);
+
+	/**
+	 * Reads the abstraction of the given game through the GameGenerator interface and stores it as plain arrays.
+	 * @param game
+	 */
+	protected void copyAbstraction(GameGenerator game) {
+		boolean anyAbstracted = false;
+		for (int p = 1; p < 3; p++) {
+			for (int informationSetId = 0; informationSetId < numInformationSets[p]; informationSetId++) {
+				anyAbstracted |= game.informationSetAbstracted(p, informationSetId);
+			}
+		}
+		if (!anyAbstracted) {
+			return;
+		}
+
+		int[][] informationSetMapping = new int[3][];
+		int[][][] actionMapping = new int[3][][];
+		for (int p = 1; p < 3; p++) {
+			informationSetMapping[p] = new int[numInformationSets[p]];
+			actionMapping[p] = new int[numInformationSets[p]][];
+			for (int informationSetId = 0; informationSetId < numInformationSets[p]; informationSetId++) {
+				informationSetMapping[p][informationSetId] = game.getAbstractInformationSetId(p, informationSetId);
+				actionMapping[p][informationSetId] = new int[numActionsAtInformationSet[p][informationSetId]];
+				for (int actionId = 0; actionId < numActionsAtInformationSet[p][informationSetId]; actionId++) {
+					actionMapping[p][informationSetId][actionId] = game.getAbstractActionMapping(p, informationSetId, actionId);
+				}
+			}
+		}
+		addInformationSetAbstraction(informationSetMapping, actionMapping);
+	}
+
+	public int getRoot() {
+		return root;
+	}
+
+	public int getNumNodes() {
+		return numNodes;
+	}
+
+	public int getNumEdges() {
+		return numEdges;
+	}
+
+	@Override
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	@Override
+	public int getMaxNumActions() {
+		if (maxNumActions < 0) {
+			maxNumActions = 0;
+			for (int nodeId = 0; nodeId < numNodes; nodeId++) {
+				maxNumActions = Math.max(maxNumActions, getNumActions(nodeId));
+			}
+		}
+		return maxNumActions;
+	}
+
+	public boolean isLeaf(int nodeId) {
+		return getPlayer(nodeId) == -2;
+	}
+
+	public int getNumActions(int nodeId) {
+		return getFirstEdge(nodeId+1) - getFirstEdge(nodeId);
+	}
+
+	public int getChildId(int nodeId, int actionId) {
+		return getEdgeChildId(getFirstEdge(nodeId) + actionId);
+	}
+
+	public double getChanceProbability(int nodeId, int actionId) {
+		return getEdgeProbability(getFirstEdge(nodeId) + actionId);
+	}
+
+	@Override
+	public double getSmallestPayoff() {
+		return smallestPayoff;
+	}
+
+	@Override
+	public double getLargestPayoff() {
+		return biggestPayoff;
+	}
+
+	@Override
+	public GameState getInitialGameState() {
+		GameState gs = new GameState(maxDepth);
+		gs.pushNodeId(root);
+		updateGameStateInfo(gs);
+		return gs;
+	}
+
+	@Override
+	public int getNumActionsAtInformationSet(GameState gs) {
+		return getNumActionsAtInformationSet(gs.getCurrentPlayer(), gs.getCurrentInformationSetId());
+	}
+
+	@Override
+	public void updateGameStateWithAction(GameState gs, int action, double probability) {
+		gs.addHistory(gs.getCurrentPlayer(), action);
+		gs.addProbability(gs.getCurrentPlayer(), probability);
+		gs.pushNodeId(getChildId(gs.getCurrentNodeId(), action));
+		updateGameStateInfo(gs);
+	}
+
+	@Override
+	public void removeActionFromGameState(GameState gs, int action, int player) {
+		gs.popAction(player);
+		gs.popProbability(player);
+		gs.popNodeId();
+		updateGameStateInfo(gs);
+	}
+
+	private void updateGameStateInfo(GameState gs) {
+		int nodeId = gs.getCurrentNodeId();
+		int nodePlayer = getPlayer(nodeId);
+		if (nodePlayer > 0) {
+			int informationSetId = getInformationSet(nodeId);
+			gs.setCurrentInformationSetId(getAbstractInformationSetId(nodePlayer, informationSetId));
+			gs.setOriginalInformationSetId(informationSetId);
+		}
+		gs.setCurrentPlayer(nodePlayer);
+
+		if (nodePlayer == -2) {
+			gs.setIsLeaf(true);
+			gs.setValue(getPayoff(nodeId));
+		} else {
+			gs.setIsLeaf(false);
+		}
+	}
+
+	@Override
+	public double getProbabilityOfNatureAction(GameState gs, int actionIndex) {
+		if (gs.getCurrentPlayer() != 0) {
+			throw new IllegalArgumentException("Not a nature state");
+		}
+		return getChanceProbability(gs.getCurrentNodeId(), actionIndex);
+	}
+
+	@Override
+	public int getNumInformationSets(int player) {
+		if (player == 1 || player == 2) {
+			return numInformationSets[player];
+		}
+		return 0;
+	}
+
+	@Override
+	public int getNumActionsAtInformationSet(int player, int informationSetId) {
+		return numActionsAtInformationSet[player][informationSetId];
+	}
+
+	@Override
+	public int getNumActionsForNature(GameState gs) {
+		return getNumActions(gs.getCurrentNodeId());
+	}
+
+	@Override
+	public int getNumActions(GameState gs) {
+		return getNumActions(gs.getCurrentNodeId());
+	}
+
+	@Override
+	public void addInformationSetAbstraction(int[][] informationSetAbstraction, int[][][] actionMapping) {
+		this.hasAbstraction = true;
+		this.abstraction = informationSetAbstraction;
+		this.actionAbstractionMapping = actionMapping;
+	}
+
+	@Override
+	public boolean informationSetAbstracted(int player, int informationSetId) {
+		return hasAbstraction && informationSetId != abstraction[player][informationSetId];
+	}
+
+	@Override
+	public int getAbstractInformationSetId(int player, int informationSetId) {
+		return hasAbstraction ? abstraction[player][informationSetId] : informationSetId;
+	}
+
+	@Override
+	public int getAbstractActionMapping(int player, int originalInformationSetId, int originalActionId) {
+		if (actionAbstractionMapping != null && informationSetAbstracted(player, originalInformationSetId)) {
+			return actionAbstractionMapping[player][originalInformationSetId][originalActionId];
+		}
+		return originalActionId;
+	}
+
+	@Override
+	public int getAbstractActionMapping(GameState gs, int action) {
+		return getAbstractActionMapping(gs.getCurrentPlayer(), gs.getOriginalInformationSetId(), action);
+	}
+
+	@Override
+	public double computeGameValueForStrategies(final double[][][] strategyProfile) {
+		final double[] value = new double[maxDepth+1]; // indexed as [depth]. Value of the subtree of the node at depth traversed so far
+		new GameTreeTraversal(this).traverse(root, new GameTreeTraversal.Visitor() {
+			@Override
+			public boolean enterNode(int nodeId, int depth) {
+				value[depth] = isLeaf(nodeId) ? getPayoff(nodeId) : 0;
+				return true;
+			}
+
+			@Override
+			public void afterChild(int nodeId, int actionId, int childId, int depth) {
+				int nodePlayer = getPlayer(nodeId);
+				double probability = nodePlayer == 0 ? getChanceProbability(nodeId, actionId) : strategyProfile[nodePlayer][getInformationSet(nodeId)][actionId];
+				value[depth] += probability * value[depth+1];
+			}
+		});
+		return value[0];
+	}
+
+	@Override
+	public double computeGameValueForStrategies(final StrategyProfile strategyProfile) {
+		final double[] value = new double[maxDepth+1]; // indexed as [depth]. Value of the subtree of the node at depth traversed so far
+		new GameTreeTraversal(this).traverse(root, new GameTreeTraversal.Visitor() {
+			@Override
+			public boolean enterNode(int nodeId, int depth) {
+				value[depth] = isLeaf(nodeId) ? getPayoff(nodeId) : 0;
+				return true;
+			}
+
+			@Override
+			public void afterChild(int nodeId, int actionId, int childId, int depth) {
+				int nodePlayer = getPlayer(nodeId);
+				double probability = nodePlayer == 0 ? getChanceProbability(nodeId, actionId) : strategyProfile.getProbability(nodePlayer, getInformationSet(nodeId), actionId);
+				value[depth] += probability * value[depth+1];
+			}
+		});
+		return value[0];
+	}
+}
@@ -1,21 +1,20 @@
 package extensive_form_game;
 
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
-import au.com.bytecode.opencsv.CSVReader;
 import extensive_form_game_abstraction.SignalAbstraction;
 import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.*;
 import gnu.trove.map.hash.TIntIntHashMap;
 import gnu.trove.map.hash.TObjectIntHashMap;
 
-import org.apache.commons.lang3.*;
 import org.apache.commons.math3.distribution.NormalDistribution;
+import org.apache.commons.math3.random.MersenneTwister;
 
 public class Game implements GameGenerator {
 	public class Action {
@@ -49,7 +48,9 @@ public class Game implements GameGenerator {
 	}
 	public class Node {
 		private int nodeId;
-		private String name;
+		private String name; // null once the names of the game have been compacted, in which case the name is rebuilt from parentId and nameSuffixId
+		private int parentId = -1;
+		private int nameSuffixId; // index into nameSuffixes. The name of the node is the name of the parent followed by this suffix
 		private int player; // -2 is leaf, 0 is nature, positive integers are actual players
 		private boolean publicSignal; // TODO, useful for abstraction algorithms
 		private int playerReceivingSignal; // TODO, useful for abstraction algorithms
@@ -63,7 +64,7 @@ public class Game implements GameGenerator {
 			return nodeId;
 		}
 		public String getName() {
-			return name;
+			return name != null ? name : buildCompactedName(this);
 		}
 		public int getPlayer() {
 			return player;
@@ -103,7 +104,7 @@ public class Game implements GameGenerator {
 		}
 		@Override
 		public String toString() {
-			return name;
+			return getName();
 		}
 	}
 	
@@ -115,8 +116,14 @@ public class Game implements GameGenerator {
 	private Node [] nodes;
 	private TIntIntMap [] childNodeIdBySignalId; // indexed as [nodeId][signalId], returns the child node reached when nature selects the signal
 	private TIntIntMap [] actionIdBySignalId;// indexed as [nodeId][signalId], returns the index of the signal in the action vector at the node
-	@SuppressWarnings("unchecked")
-	private HashMap<List<String>, Integer>[] observedActionsToInformationSetId = new HashMap[3];
+	// Observation sequences of the player nodes, parsed from the node names by the first call to applySignalAbstraction
+	private List<String> observationLabels; // the distinct labels of observed actions, indexed by label id
+	private TObjectIntMap<String> observationLabelIds;
+	private int[] observationLabelsByNode; // label ids of the observed nature actions followed by the observed player actions of each node
+	private int[] observationStart; // indexed as [nodeId], with numNodes+1 entries. Offset of the observations of the node into observationLabelsByNode
+	private int[] observationPlayerStart; // indexed as [nodeId]. Offset of the first observed player action of the node
+	private int maxObservations;
+	private ObservationKeyIndex[] observationKeyIndex; // indexed as [player]. Maps an observation sequence to the information set
 	
 	private int root;
 	private int numChanceHistories;
@@ -132,11 +139,15 @@ public class Game implements GameGenerator {
 	private TObjectIntMap<String> signalNameToId; // TODO signalName refers to a unique name for each signal in the set S of all signals dealt by nature. 
 	private int numRounds;
 	private int depth;
+	private int maxDepth = -1; // length of the longest path from the root to a leaf, computed on first use
+	private int maxNumActions = -1; // largest number of actions at any node, computed on first use
 	private int numPrivateSignals;
 	
 	private double smallestPayoff;
 	private double biggestPayoff;
 	
+	private List<String> nameSuffixes; // null unless compactNodeNames has been called. Each distinct suffix is stored once
+	
 	private boolean hasAbstraction;
 	private int[][] abstraction; 
 	private int[][][] actionAbstractionMapping;
@@ -156,8 +167,6 @@ public class Game implements GameGenerator {
 		smallestInformationSetId[1] = Integer.MAX_VALUE;
 		smallestPayoff = Double.MAX_VALUE;
 		biggestPayoff = -Double.MAX_VALUE;
-		observedActionsToInformationSetId[1] = new HashMap<List<String>, Integer>();
-		observedActionsToInformationSetId[2] = new HashMap<List<String>, Integer>();
 	}
 	
 	public Game(String filename) {
@@ -165,97 +174,183 @@ public class Game implements GameGenerator {
 		createGameFromFile(filename);
 	}
 	
+	/**
+	 * Maps each information set to the information set that is observed when the nature signals observed by the acting player are replaced
+	 * according to signalAbstraction. Information sets are identified by the (out of order) list of observed actions, which works for
+	 * signal-decomposable games. The observation sequences are parsed from the node names once, on the first call, so applying further
+	 * abstractions is linear in the size of the game and does no string work.
+	 * @param signalAbstraction
+	 */
 	public void applySignalAbstraction(SignalAbstraction signalAbstraction) {
-		for (int nodeId = 0; nodeId < getNumNodes(); nodeId++) {
-			Node node = getNodeById(nodeId);
-			if (node.getPlayer() == 1 || node.getPlayer() == 2) {
-				// Get observed nature actions, then concatenate observed player actions
-				List<String> observedActions = extractObservedNatureActionsFromNodeName(node.getName(), node.getPlayer());
-				observedActions.addAll(extractObservedPlayerActionsFromNodeName(node.getName(), node.getPlayer()));
-				// Uniquely identify each information set by the (out of order) list of observed actions. This works for signal-decomposable games.
-				observedActionsToInformationSetId[node.getPlayer()].put(observedActions, node.getInformationSet());
-			}
+		if (observationStart == null) {
+			computeObservations();
 		}
 		this.signalAbstraction = signalAbstraction;
+
+		// Translate between observation labels and the signal ids of the abstraction. This is linear in the number of distinct labels
+		int[] labelToSignalId = new int[observationLabels.size()];
+		for (int label = 0; label < labelToSignalId.length; label++) {
+			labelToSignalId[label] = signalAbstraction.getSignalId(observationLabels.get(label));
+		}
+		String[] signalNames = signalAbstraction.getSignalNames();
+		int[] signalIdToLabel = new int[signalNames.length];
+		for (int signalId = 0; signalId < signalNames.length; signalId++) {
+			signalIdToLabel[signalId] = observationLabelIds.containsKey(signalNames[signalId]) ? observationLabelIds.get(signalNames[signalId]) : -1;
+		}
+
 		abstraction = new int[3][];
 		abstraction[1] = new int[getNumInformationSetsPlayer1()];
 		abstraction[2]= new int[getNumInformationSetsPlayer2()];
-		applySignalAbstractionRecursive(getRoot(), new ArrayList<Integer>());
+		final int[] signalIds = new int[maxObservations];
+		final int[] abstractLabels = new int[maxObservations];
+		final int[] finalLabelToSignalId = labelToSignalId;
+		final int[] finalSignalIdToLabel = signalIdToLabel;
+		new GameTreeTraversal(this).traverse(getRoot(), new GameTreeTraversal.Visitor() {
+			@Override
+			public boolean enterNode(int nodeId, int depth) {
+				applySignalAbstractionToNode(nodeId, finalLabelToSignalId, finalSignalIdToLabel, signalIds, abstractLabels);
+				return true;
+			}
+		});
 		hasAbstraction = true;
 		useIdentityActionMap = true;
 	}
 	
-	private void applySignalAbstractionRecursive(int currentNodeId, List<Integer> natureIndices) {
+	private void applySignalAbstractionToNode(int currentNodeId, int[] labelToSignalId, int[] signalIdToLabel, int[] signalIds, int[] abstractLabels) {
 		Node node = getNodeById(currentNodeId);
-		if (node.isLeaf()) {
-			return;
-		}
-		
 		if (node.getPlayer() == 1 || node.getPlayer() ==2) {
-			List<String> natureSignals = extractObservedNatureActionsFromNodeName(node.getName(), node.getPlayer());
-			List<String> abstractNatureSignals = signalAbstraction.getAbstractSignalsByName(natureSignals);
-			List<String> observedPlayerActions = extractObservedPlayerActionsFromNodeName(node.getName(), node.getPlayer());
-			// Make abstract observed list
-			List<String> abstractActions = new ArrayList<String>(abstractNatureSignals);
-			abstractActions.addAll(observedPlayerActions);
-			int abstractInformationSetId = observedActionsToInformationSetId[node.getPlayer()].get(abstractActions);
-			node.setAbstractInformationSet(abstractInformationSetId);
-			if (node.getInformationSet() != abstractInformationSetId) {
-				int t = 1;
+			int start = observationStart[currentNodeId];
+			int playerStart = observationPlayerStart[currentNodeId];
+			int end = observationStart[currentNodeId+1];
+			boolean knownSignals = true;
+			for (int i = start; i < playerStart; i++) {
+				signalIds[i-start] = labelToSignalId[observationLabelsByNode[i]];
+				knownSignals &= signalIds[i-start] >= 0;
+			}
+			int[] abstractSignals = knownSignals ? signalAbstraction.getAbstractSignalIds(signalIds, 0, playerStart - start) : null;
+			int abstractInformationSetId;
+			if (abstractSignals == null) {
+				abstractInformationSetId = observationKeyIndex[node.getPlayer()].get(observationLabelsByNode, start, end - start);
+			} else {
+				for (int i = 0; i < abstractSignals.length; i++) {
+					abstractLabels[i] = signalIdToLabel[abstractSignals[i]];
+				}
+				abstractInformationSetId = observationKeyIndex[node.getPlayer()].get(abstractLabels, 0, abstractSignals.length, observationLabelsByNode, playerStart, end - playerStart);
 			}
+			if (abstractInformationSetId < 0) {
+				throw new IllegalArgumentException("Game::applySignalAbstraction: no information set is observed as the abstraction of node " + node.getName());
+			}
+			node.setAbstractInformationSet(abstractInformationSetId);
 			abstraction[node.getPlayer()][node.getInformationSet()] = abstractInformationSetId;
 		}
-		for (Action action : node.getActions()) {
-			if (node.getPlayer() == 0) {
-				natureIndices.add(depth);
-				applySignalAbstractionRecursive(action.getChildId(), natureIndices);
-				natureIndices.remove(natureIndices.size()-1);
+	}
+
+	/**
+	 * Parses the observed nature and player actions out of the name of every player node, as in extractObservedNatureActionsFromNodeName
+	 * followed by extractObservedPlayerActionsFromNodeName, and stores them as label ids. Also indexes the information set of each player by
+	 * its observation sequence.
+	 */
+	private void computeObservations() {
+		observationLabels = new ArrayList<String>();
+		observationLabelIds = new TObjectIntHashMap<String>();
+		observationStart = new int[numNodes+1];
+		observationPlayerStart = new int[numNodes];
+		TIntArrayList labels = new TIntArrayList();
+		maxObservations = 0;
+		for (int nodeId = 0; nodeId < numNodes; nodeId++) {
+			observationStart[nodeId] = labels.size();
+			Node node = nodes[nodeId];
+			if (node != null && (node.getPlayer() == 1 || node.getPlayer() == 2)) {
+				String name = node.getName();
+				addObservedLabels(name, node.getPlayer(), true, labels);
+				observationPlayerStart[nodeId] = labels.size();
+				addObservedLabels(name, node.getPlayer(), false, labels);
 			} else {
-				applySignalAbstractionRecursive(action.getChildId(), natureIndices);
-			}			
+				observationPlayerStart[nodeId] = labels.size();
+			}
+			maxObservations = Math.max(maxObservations, labels.size() - observationStart[nodeId]);
+		}
+		observationStart[numNodes] = labels.size();
+		observationLabelsByNode = labels.toArray();
+
+		observationKeyIndex = new ObservationKeyIndex[3];
+		for (int player = 1; player < 3; player++) {
+			observationKeyIndex[player] = new ObservationKeyIndex(getNumInformationSets(player));
+		}
+		for (int nodeId = 0; nodeId < numNodes; nodeId++) {
+			Node node = nodes[nodeId];
+			if (node != null && (node.getPlayer() == 1 || node.getPlayer() == 2)) {
+				int start = observationStart[nodeId];
+				observationKeyIndex[node.getPlayer()].put(observationLabelsByNode, start, observationStart[nodeId+1] - start, node.getInformationSet());
+			}
 		}
 	}
+
+	/**
+	 * Adds the label ids of the nature actions, or of the player actions, observed by player in the node name. Actions are split by '/' and
+	 * written as type;observer;label where type is n for nature, and observer is a for public actions or the 0-indexed observing player.
+	 */
+	private void addObservedLabels(String name, int player, boolean natureActions, TIntArrayList labels) {
+		// skip the empty action at the root
+		int actionStart = name.indexOf('/') + 1;
+		while (actionStart > 0 && actionStart < name.length()) {
+			int actionEnd = name.indexOf('/', actionStart);
+			if (actionEnd < 0) {
+				actionEnd = name.length();
+			}
+			if (actionEnd > actionStart) {
+				int observerStart = name.indexOf(';', actionStart) + 1;
+				int labelStart = observerStart > 0 && observerStart < actionEnd ? name.indexOf(';', observerStart) + 1 : 0;
+				if (labelStart <= 0 || labelStart > actionEnd) {
+					throw new IllegalArgumentException("Game::applySignalAbstraction: action names must be of the form type;observer;label, found " + name.substring(actionStart, actionEnd) + " in node " + name);
+				}
+				boolean isNature = observerStart - 1 - actionStart == 1 && name.charAt(actionStart) == 'n';
+				boolean observed = (labelStart - 1 - observerStart == 1 && name.charAt(observerStart) == 'a') || parseObserver(name, observerStart, labelStart - 1) == player-1;
+				if (isNature == natureActions && observed) {
+					int labelEnd = name.indexOf(';', labelStart);
+					String label = name.substring(labelStart, labelEnd < 0 || labelEnd > actionEnd ? actionEnd : labelEnd);
+					if (!observationLabelIds.containsKey(label)) {
+						observationLabelIds.put(label, observationLabels.size());
+						observationLabels.add(label);
+					}
+					labels.add(observationLabelIds.get(label));
+				}
+			}
+			actionStart = actionEnd + 1;
+		}
+	}
+
+	private static int parseObserver(String name, int start, int end) {
+		int observer = 0;
+		for (int i = start; i < end; i++) {
+			char c = name.charAt(i);
+			if (c < '0' || c > '9') {
+				throw new IllegalArgumentException("Game::applySignalAbstraction: observer must be a or a player index, found " + name.substring(start, end) + " in node " + name);
+			}
+			observer = 10 * observer + (c - '0');
+		}
+		return observer;
+	}
 	
 	public void createGameFromFileZerosumPackageFormat(String filename) {
-		//BufferedReader in = null;
-		CSVReader in = null;
+		GameFileTokenizer in = openGameFile(filename);
 		try {
-			in= new CSVReader(new FileReader(filename), ' ', '\'');
-			//in = new BufferedReader(new FileReader(filename));
-		} catch (FileNotFoundException e) {
-			System.out.println("Game::CreateGameFromFile: File not found");
-			System.out.println("filename: " + filename);
-			System.exit(0);
-		}
-		
-		String[] splitLine;
-		try {
-			while ((splitLine = in.readNext()) != null) {
-				// splitLine may contain empty strings. We filter these out here. This should preferably be handled by a library function. 
-				List<String> filtered = new ArrayList<String>();
-				for(String s : splitLine) {
-					if(!s.equals("")) {
-						filtered.add(s);
-					}
-				}
-				splitLine = filtered.toArray(new String[0]);
-				
-				if (splitLine.length == 0) {
+			while (in.nextLine()) {
+				if (in.tokenEquals(0, "#")) {
 					continue;
-				} else if (splitLine[0].equals("#")) {
-					continue;
-				} else if (!StringUtils.isNumeric(splitLine[0])) {
-					readGameInfoLine(splitLine);
+				} else if (!in.isNumeric(0)) {
+					readGameInfoLine(in);
 				} else {
-					if (splitLine.length == 3) {
-						CreateLeafNode(splitLine);
-					} else if (Integer.parseInt(splitLine[0]) < numChanceHistories) {
-						CreateZeroSumPackageStyleNatureNode(splitLine);
+					if (in.getNumTokens() == 3) {
+						CreateLeafNode(in);
+					} else if (in.parseInt(0) < numChanceHistories) {
+						CreateZeroSumPackageStyleNatureNode(in);
 					} else {
-						CreatePlayerNode(splitLine);
+						CreatePlayerNode(in);
 					}
 				}
 			}
+			in.close();
 		} catch (IOException e) {
 			System.out.println("Game::CreateGameFromFile: Read exception");
 		}
@@ -264,51 +359,53 @@ public class Game implements GameGenerator {
 	
 	
 	public void createGameFromFile(String filename) {
-		//BufferedReader in = null;
-		CSVReader in = null;
+		GameFileTokenizer in = openGameFile(filename);
 		try {
-			in= new CSVReader(new FileReader(filename), ' ', '\'');
-			//in = new BufferedReader(new FileReader(filename));
-		} catch (FileNotFoundException e) {
-			System.out.println("Game::CreateGameFromFile: File not found");
-			System.out.println("filename: " + filename);
-			System.exit(0);
-		}
-		
-		String[] splitLine;
-		try {
-			while ((splitLine = in.readNext()) != null) {
-				if (splitLine[0].equals("#")) {
+			while (in.nextLine()) {
+				if (in.tokenEquals(0, "#")) {
 					continue;
-				} else if (splitLine[0].equals("game info")) {
-					readGameInfoLine(splitLine);
-				} else if (splitLine[0].equals("signals")) {
-					readSignalsLine(splitLine);
-				} else if (splitLine[0].equals("signal data")) {
-					readSignalTreeLine(splitLine);
+				} else if (in.tokenEquals(0, "game info")) {
+					readGameInfoLine(in);
+				} else if (in.tokenEquals(0, "signals")) {
+					readSignalsLine(in);
+				} else if (in.tokenEquals(0, "signal data")) {
+					readSignalTreeLine(in);
 				} else {
-					if (splitLine.length == 3 || splitLine.length == 5) {
-						CreateLeafNode(splitLine);
-					} else if (splitLine[5].charAt(0) == 'n') {
-						CreateNatureNode(splitLine);
+					if (in.getNumTokens() == 3 || in.getNumTokens() == 5) {
+						CreateLeafNode(in);
+					} else if (in.charAt(5, 0) == 'n') {
+						CreateNatureNode(in);
 					} else {
-						CreatePlayerNode(splitLine);
+						CreatePlayerNode(in);
 					}
 				}
 			}
+			in.close();
 		} catch (IOException e) {
 			System.out.println("Game::CreateGameFromFile: Read exception");
 		}
 		
 	}
 	
-	private void readGameInfoLine(String [] split_line) {
-		numChanceHistories = Integer.parseInt(split_line[1]);
-		numCombinedPlayerHistories = Integer.parseInt(split_line[2]);
-		numTerminalHistories = Integer.parseInt(split_line[3]);
-		numNodes = Integer.parseInt(split_line[5])+1;
-		numInformationSetsPlayer1 = Integer.parseInt(split_line[7]);
-		numInformationSetsPlayer2 = Integer.parseInt(split_line[8]);
+	private GameFileTokenizer openGameFile(String filename) {
+		GameFileTokenizer in = null;
+		try {
+			in = new GameFileTokenizer(filename);
+		} catch (IOException e) {
+			System.out.println("Game::CreateGameFromFile: File not found");
+			System.out.println("filename: " + filename);
+			System.exit(0);
+		}
+		return in;
+	}
+	
+	private void readGameInfoLine(GameFileTokenizer line) {
+		numChanceHistories = line.parseInt(1);
+		numCombinedPlayerHistories = line.parseInt(2);
+		numTerminalHistories = line.parseInt(3);
+		numNodes = line.parseInt(5)+1;
+		numInformationSetsPlayer1 = line.parseInt(7);
+		numInformationSetsPlayer2 = line.parseInt(8);
 		
 		informationSets[0] = new TIntArrayList [numInformationSetsPlayer1];
 		informationSets[1] = new TIntArrayList [numInformationSetsPlayer2];
@@ -332,64 +429,64 @@ public class Game implements GameGenerator {
 		}
 	}
 	
-	private void readSignalTreeLine(String[] split_line) {
-		numRounds = Integer.parseInt(split_line[1]);
-		depth = 2 * Integer.parseInt(split_line[2]) + Integer.parseInt(split_line[3]);
-		numPrivateSignals = Integer.parseInt(split_line[2]);
+	private void readSignalTreeLine(GameFileTokenizer line) {
+		numRounds = line.parseInt(1);
+		depth = 2 * line.parseInt(2) + line.parseInt(3);
+		numPrivateSignals = line.parseInt(2);
 	}
 	
-	private void readSignalsLine(String[] split_line) {
-		signals = new String[split_line.length-1];
-		for (int i = 1; i < split_line.length; i++) {
-			signals[i-1] = split_line[i];
-			signalNameToId.put(split_line[i], i-1);
+	private void readSignalsLine(GameFileTokenizer line) {
+		signals = new String[line.getNumTokens()-1];
+		for (int i = 1; i < line.getNumTokens(); i++) {
+			signals[i-1] = line.getString(i);
+			signalNameToId.put(signals[i-1], i-1);
 		}
 	}
 	
 	// CreateLeafNode handles both Zerosum format files, and the more heavily annotated files of this package
-	private void CreateLeafNode(String[] line) {
+	private void CreateLeafNode(GameFileTokenizer line) {
 		Node node = new Node();
-		node.nodeId= Integer.parseInt(line[0]);
-		node.name = line[1];
+		node.nodeId= line.parseInt(0);
+		node.name = line.getString(1);
 		node.player = -2;
-		node.value = Double.parseDouble(line[2]);
+		node.value = line.parseDouble(2);
 		if (node.value < smallestPayoff) {
 			smallestPayoff = node.value;
 		}
 		if (node.value > biggestPayoff) {
 			biggestPayoff = node.value;
 		}
-		if (line.length == 5) {
-			node.signalGroupPlayer1 = Integer.parseInt(line[3]);
-			node.signalGroupPlayer2 = Integer.parseInt(line[4]);
+		if (line.getNumTokens() == 5) {
+			node.signalGroupPlayer1 = line.parseInt(3);
+			node.signalGroupPlayer2 = line.parseInt(4);
 		}
 		nodes[node.nodeId] = node;
 	}
 
 	// The format is the same for player nodes in the Zerosum package and our format 
-	private void CreatePlayerNode(String[] line) {
+	private void CreatePlayerNode(GameFileTokenizer line) {
 		Node node = new Node();
-		node.nodeId = Integer.parseInt(line[0]);
-		node.player = Integer.parseInt(line[2]) + 1;
-		node.informationSet = Integer.parseInt(line[3]);
-		node.setAbstractInformationSet(Integer.parseInt(line[3]));
+		node.nodeId = line.parseInt(0);
+		node.player = line.parseInt(2) + 1;
+		node.informationSet = line.parseInt(3);
+		node.setAbstractInformationSet(node.informationSet);
 		if (node.informationSet < smallestInformationSetId[node.player-1]) {
 			smallestInformationSetId[node.player-1] = node.informationSet;
 		}
 		
-		node.name = line[1];
+		node.name = line.getString(1);
 		//System.out.println("Player: " + (node.player-1) + ", info set: " + node.informationSet);
 		informationSets[node.player-1][node.informationSet].add(node.nodeId);
 		
-		int numActions = Integer.parseInt(line[4]);
+		int numActions = line.parseInt(4);
 		node.actions = new Action[numActions];
 		for (int i = 0; i < numActions; i++) {
 			if (!informationSetsSeen[node.player-1][node.informationSet]) {
 				numSequences[node.player-1]++;
 			}
 			Action action = new Action();
-			action.name = line[5+2*i];
-			action.childId = Integer.parseInt(line[6+2*i]);
+			action.name = line.getString(5+2*i);
+			action.childId = line.parseInt(6+2*i);
 			node.actions[i] = action;
 		}
 		
@@ -465,19 +562,19 @@ public class Game implements GameGenerator {
 	}
 
 	
-	private void CreateZeroSumPackageStyleNatureNode(String[] line) {
+	private void CreateZeroSumPackageStyleNatureNode(GameFileTokenizer line) {
 		Node node = new Node();
-		node.nodeId = Integer.parseInt(line[0]);
-		node.name = line[1];
+		node.nodeId = line.parseInt(0);
+		node.name = line.getString(1);
 		node.player = 0;
-		int numActions = Integer.parseInt(line[2]);
+		int numActions = line.parseInt(2);
 		node.actions = new Action[numActions];
 		double sum = 0;
 		for (int i = 0; i < numActions; i++) {
 			Action action = new Action();
-			action.name = line[3+3*i];
-			action.childId = Integer.parseInt(line[4+3*i]);
-			action.probability = Double.parseDouble(line[5+3*i]);
+			action.name = line.getString(3+3*i);
+			action.childId = line.parseInt(4+3*i);
+			action.probability = line.parseDouble(5+3*i);
 			sum += action.probability;
 			node.actions[i] = action;			
 		}
@@ -492,31 +589,31 @@ public class Game implements GameGenerator {
 	}
 
 	// There is some code duplication between this and the method above for handling the Zerosum package format
-	private void CreateNatureNode(String[] line) {
+	private void CreateNatureNode(GameFileTokenizer line) {
 		Node node = new Node();
-		node.nodeId = Integer.parseInt(line[0]);
-		node.name = line[1];
+		node.nodeId = line.parseInt(0);
+		node.name = line.getString(1);
 		node.player = 0;
-		String[] splitName = line[5].split(":");
-		if (splitName[1].equals("a")) {
+		// The first action name is of the form n:observer:signal, where observer is a for public signals and the 0-indexed player otherwise
+		if (line.charAt(5, 2) == 'a') {
 			node.publicSignal = true;
 		} else {
 			node.publicSignal = false;
-			node.playerReceivingSignal = Integer.parseInt(splitName[1])+1;
+			node.playerReceivingSignal = line.charAt(5, 2) - '0' + 1;
 		}
 		
-		node.signalGroupPlayer1 = Integer.parseInt(line[2]);
-		node.signalGroupPlayer2 = Integer.parseInt(line[3]);
+		node.signalGroupPlayer1 = line.parseInt(2);
+		node.signalGroupPlayer2 = line.parseInt(3);
 		
-		int numActions = Integer.parseInt(line[4]);
+		int numActions = line.parseInt(4);
 		node.actions = new Action[numActions];
 		double sum = 0;
 		for (int i = 0; i < numActions; i++) {
 			Action action = new Action();
-			action.name = line[5+3*i];
-			String signalName = action.name.split(":")[2];
-			action.childId = Integer.parseInt(line[6+3*i]);
-			action.rem = Integer.parseInt(line[7+3*i]);
+			action.name = line.getString(5+3*i);
+			String signalName = action.name.substring(action.name.indexOf(':', 2) + 1);
+			action.childId = line.parseInt(6+3*i);
+			action.rem = line.parseInt(7+3*i);
 			sum += action.rem;
 			childNodeIdBySignalId[node.nodeId].put(signalNameToId.get(signalName), action.childId);
 			actionIdBySignalId[node.nodeId].put(signalNameToId.get(signalName), i);
@@ -565,10 +662,103 @@ public class Game implements GameGenerator {
 	 */
 	public double[] getExpectedValuesForNodes(TObjectDoubleMap<String>[] strategyP1, TObjectDoubleMap<String>[] strategyP2, boolean negateValues, NormalDistribution distribution) {
 		double[] expectedValue = new double[numNodes];
-		fillExpectedValueArrayRecursive(expectedValue, root, strategyP1, strategyP2, negateValues, ZeroBranchOption.ZERO, false, distribution);
+		new GameTreeTraversal(this).traverse(root, new ActionProbabilitiesExpectedValueVisitor(expectedValue, strategyP1, strategyP2, negateValues, distribution, false));
+		return expectedValue;
+	}
+
+	/**
+	 * Computes an array that represents the expected value for each node, with the strategies given as action probabilities indexed by action id
+	 * @param strategyProfile indexed as [player][informationSetId][actionId], as returned by ZeroSumGameSolver.getStrategyProfile
+	 * @param negateValues if true, all values are negated, representing the utility for Player 2 when considered as a maximizing player
+	 * @return
+	 */
+	public double[] getExpectedValuesForNodes(double[][][] strategyProfile, boolean negateValues) {
+		double[] expectedValue = new double[numNodes];
+		new GameTreeTraversal(this).traverse(root, new StrategyProfileExpectedValueVisitor(expectedValue, strategyProfile, negateValues, false));
 		return expectedValue;
 	}
 
+	/**
+	 * Same as getExpectedValuesForNodes(strategyProfile, negateValues), but computed in parallel on the common fork-join pool
+	 * @param strategyProfile indexed as [player][informationSetId][actionId]
+	 * @param negateValues
+	 * @return
+	 */
+	public double[] getExpectedValuesForNodesParallel(double[][][] strategyProfile, boolean negateValues) {
+		return getExpectedValuesForNodesParallel(strategyProfile, negateValues, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Computes the same array as getExpectedValuesForNodes(strategyProfile, negateValues), splitting the tree into fork-join tasks at chance nodes
+	 * and at the first player nodes below them. Each node still sums the values of its children in action order, so the result is bit-for-bit identical
+	 * to the sequential computation.
+	 * @param strategyProfile indexed as [player][informationSetId][actionId]
+	 * @param negateValues
+	 * @param pool
+	 * @return
+	 */
+	public double[] getExpectedValuesForNodesParallel(double[][][] strategyProfile, boolean negateValues, ForkJoinPool pool) {
+		double[] expectedValue = new double[numNodes];
+		pool.invoke(new ExpectedValueTask(expectedValue, strategyProfile, negateValues, root, false, false));
+		return expectedValue;
+	}
+
+	/**
+	 * Computes one noisy expected value array per distribution in a single traversal of the tree. Sample k is computed exactly as
+	 * getExpectedValuesForNodes with distributions[k] as the distribution, so each sample draws from its own distribution in the same order
+	 * as a separate traversal would, and seeding the distributions makes the samples reproducible.
+	 * @param strategyProfile indexed as [player][informationSetId][actionId]
+	 * @param negateValues
+	 * @param distributions one per sample
+	 * @return expected values indexed as [sample][nodeId]
+	 */
+	public double[][] getNoisyExpectedValuesForNodes(double[][][] strategyProfile, boolean negateValues, NormalDistribution[] distributions) {
+		double[][] expectedValues = new double[distributions.length][numNodes];
+		new GameTreeTraversal(this).traverse(root, new NoisyExpectedValueVisitor(expectedValues, strategyProfile, negateValues, distributions));
+		return expectedValues;
+	}
+
+	/**
+	 * Computes numSamples noisy expected value arrays in a single traversal, where sample k draws its noise from a normal distribution
+	 * with mean 0 and the given standard deviation, using a MersenneTwister seeded by seed and k
+	 * @param strategyProfile indexed as [player][informationSetId][actionId]
+	 * @param negateValues
+	 * @param standardDeviation
+	 * @param seed
+	 * @param numSamples
+	 * @return expected values indexed as [sample][nodeId]
+	 */
+	public double[][] getNoisyExpectedValuesForNodes(double[][][] strategyProfile, boolean negateValues, double standardDeviation, long seed, int numSamples) {
+		NormalDistribution[] distributions = new NormalDistribution[numSamples];
+		for (int sample = 0; sample < numSamples; sample++) {
+			distributions[sample] = new NormalDistribution(new MersenneTwister(new int[] {(int) (seed >>> 32), (int) seed, sample}), 0, standardDeviation);
+		}
+		return getNoisyExpectedValuesForNodes(strategyProfile, negateValues, distributions);
+	}
+
+	/**
+	 * Converts strategies given as maps from action names to probabilities into a strategy profile indexed by action id.
+	 * Actions missing from a map get probability zero, as when looked up in the map.
+	 * @param strategyP1 indexed as [informationSetId]
+	 * @param strategyP2 indexed as [informationSetId]
+	 * @return strategy profile indexed as [player][informationSetId][actionId]
+	 */
+	public double[][][] getStrategyProfile(TObjectDoubleMap<String>[] strategyP1, TObjectDoubleMap<String>[] strategyP2) {
+		double[][][] strategyProfile = new double[3][][];
+		strategyProfile[1] = new double[strategyP1.length][];
+		strategyProfile[2] = new double[strategyP2.length][];
+		for (Node node : nodes) {
+			if (node == null || node.isLeaf() || node.getPlayer() == 0 || strategyProfile[node.getPlayer()][node.getInformationSet()] != null) continue;
+			TObjectDoubleMap<String> actionProbabilities = node.getPlayer() == 1 ? strategyP1[node.getInformationSet()] : strategyP2[node.getInformationSet()];
+			double[] probabilities = new double[node.actions.length];
+			for (int actionId = 0; actionId < node.actions.length; actionId++) {
+				probabilities[actionId] = actionProbabilities.get(node.actions[actionId].getName());
+			}
+			strategyProfile[node.getPlayer()][node.getInformationSet()] = probabilities;
+		}
+		return strategyProfile;
+	}
+
 	// Enum specifies how to handle the expected value of branches with probability zero of being reached.
 	// ZERO: This option places expected value of zero on all nodes in a probability 0 subtree
 	// UNIFORM: This option uses uniform probabilities
@@ -605,41 +795,183 @@ public class Game implements GameGenerator {
 		return array[currentNode];
 	}*/
 
-	private double fillExpectedValueArrayRecursive(double[] array, int currentNode, TObjectDoubleMap<String>[] strategyP1, TObjectDoubleMap<String>[] strategyP2, boolean negateValues, ZeroBranchOption zeroBranchOption, boolean inZeroBranch, NormalDistribution distribution) {
-		Node node = nodes[currentNode];
-		//biggestPayoff = 0;
-		//smallestPayoff = 0;
-		if (node.isLeaf()) {
-			if (inZeroBranch) {
-				//array[currentNode] = 0;
-				array[currentNode] = negateValues ? -node.getValue() + biggestPayoff: node.getValue() - smallestPayoff;
-			}
-			else {
-				array[currentNode] = negateValues ? -node.getValue() + biggestPayoff: node.getValue() - smallestPayoff;
-			}
-			return array[currentNode];
+	/**
+	 * Fills array with the expected value of each node. Actions in probability zero subtrees get probability zero, as in ZeroBranchOption.ZERO.
+	 * If distribution is not null, a sample from it is added to the value of a node after each of its children.
+	 */
+	private abstract class ExpectedValueVisitor extends GameTreeTraversal.Visitor {
+		private final double[] array;
+		private final boolean negateValues;
+		private final NormalDistribution distribution;
+		private final boolean[] inZeroBranch; // indexed as [depth]
+		private final double[] probability; // indexed as [depth]. Probability of the action currently being traversed at the node at depth
+
+		/**
+		 * @param startInZeroBranch whether the node the traversal starts at is in a probability zero subtree
+		 */
+		ExpectedValueVisitor(double[] array, boolean negateValues, NormalDistribution distribution, boolean startInZeroBranch) {
+			this.array = array;
+			this.negateValues = negateValues;
+			this.distribution = distribution;
+			this.inZeroBranch = new boolean[getMaxDepth()+1];
+			this.probability = new double[getMaxDepth()+1];
+			this.inZeroBranch[0] = startInZeroBranch;
 		}
 
-		
-		array[currentNode] = 0;
-		for(Action action : node.actions) {
-			double probability = 0;
-			if (node.getPlayer() == 0) {
-				probability = action.getProbability();
-			} else if (node.getPlayer() == 1){
-				probability = strategyP1[node.getInformationSet()].get(action.getName());
-			} else {
-				probability = strategyP2[node.getInformationSet()].get(action.getName());
+		/**
+		 * @return the probability of taking action actionId at the player node
+		 */
+		abstract double getPlayerActionProbability(Node node, int actionId);
+
+		@Override
+		public boolean enterNode(int nodeId, int depth) {
+			array[nodeId] = getLeafValue(nodes[nodeId], negateValues);
+			return true;
+		}
+
+		@Override
+		public void beforeChild(int nodeId, int actionId, int childId, int depth) {
+			Node node = nodes[nodeId];
+			double actionProbability = node.getPlayer() == 0 ? node.actions[actionId].getProbability() : getPlayerActionProbability(node, actionId);
+			if (null == distribution && inZeroBranch[depth]) {
+				actionProbability = 0;
 			}
-			
+			probability[depth] = actionProbability;
+			inZeroBranch[depth+1] = actionProbability == 0;
+		}
+
+		@Override
+		public void afterChild(int nodeId, int actionId, int childId, int depth) {
 			if (null == distribution) {
-				probability = inZeroBranch ? 0 : probability;
-				array[currentNode] += probability * (fillExpectedValueArrayRecursive(array, action.childId, strategyP1, strategyP2, negateValues, zeroBranchOption, probability == 0, distribution));
+				array[nodeId] += probability[depth] * array[childId];
 			} else {
-				array[currentNode] += probability * fillExpectedValueArrayRecursive(array, action.childId, strategyP1, strategyP2, negateValues, zeroBranchOption, probability == 0, distribution) + distribution.sample();
+				array[nodeId] += probability[depth] * array[childId] + distribution.sample();
+			}
+		}
+	}
+
+	private class ActionProbabilitiesExpectedValueVisitor extends ExpectedValueVisitor {
+		private final TObjectDoubleMap<String>[] strategyP1;
+		private final TObjectDoubleMap<String>[] strategyP2;
+
+		ActionProbabilitiesExpectedValueVisitor(double[] array, TObjectDoubleMap<String>[] strategyP1, TObjectDoubleMap<String>[] strategyP2, boolean negateValues, NormalDistribution distribution, boolean startInZeroBranch) {
+			super(array, negateValues, distribution, startInZeroBranch);
+			this.strategyP1 = strategyP1;
+			this.strategyP2 = strategyP2;
+		}
+
+		@Override
+		double getPlayerActionProbability(Node node, int actionId) {
+			TObjectDoubleMap<String> actionProbabilities = node.getPlayer() == 1 ? strategyP1[node.getInformationSet()] : strategyP2[node.getInformationSet()];
+			return actionProbabilities.get(node.actions[actionId].getName());
+		}
+	}
+
+	private class StrategyProfileExpectedValueVisitor extends ExpectedValueVisitor {
+		private final double[][][] strategyProfile;
+
+		StrategyProfileExpectedValueVisitor(double[] array, double[][][] strategyProfile, boolean negateValues, boolean startInZeroBranch) {
+			super(array, negateValues, null, startInZeroBranch);
+			this.strategyProfile = strategyProfile;
+		}
+
+		@Override
+		double getPlayerActionProbability(Node node, int actionId) {
+			return strategyProfile[node.getPlayer()][node.getInformationSet()][actionId];
+		}
+	}
+
+	/**
+	 * Fills one expected value array per distribution, adding a sample from the distribution of each array to the value of a node after each of its children
+	 */
+	private class NoisyExpectedValueVisitor extends GameTreeTraversal.Visitor {
+		private final double[][] arrays; // indexed as [sample][nodeId]
+		private final double[][][] strategyProfile;
+		private final boolean negateValues;
+		private final NormalDistribution[] distributions; // indexed as [sample]
+		private final double[] probability; // indexed as [depth]. Probability of the action currently being traversed at the node at depth
+
+		NoisyExpectedValueVisitor(double[][] arrays, double[][][] strategyProfile, boolean negateValues, NormalDistribution[] distributions) {
+			this.arrays = arrays;
+			this.strategyProfile = strategyProfile;
+			this.negateValues = negateValues;
+			this.distributions = distributions;
+			this.probability = new double[getMaxDepth()+1];
+		}
+
+		@Override
+		public boolean enterNode(int nodeId, int depth) {
+			double value = getLeafValue(nodes[nodeId], negateValues);
+			for (int sample = 0; sample < arrays.length; sample++) {
+				arrays[sample][nodeId] = value;
+			}
+			return true;
+		}
+
+		@Override
+		public void beforeChild(int nodeId, int actionId, int childId, int depth) {
+			Node node = nodes[nodeId];
+			probability[depth] = node.getPlayer() == 0 ? node.actions[actionId].getProbability() : strategyProfile[node.getPlayer()][node.getInformationSet()][actionId];
+		}
+
+		@Override
+		public void afterChild(int nodeId, int actionId, int childId, int depth) {
+			double actionProbability = probability[depth];
+			for (int sample = 0; sample < arrays.length; sample++) {
+				arrays[sample][nodeId] += actionProbability * arrays[sample][childId] + distributions[sample].sample();
+			}
+		}
+	}
+
+	private double getLeafValue(Node node, boolean negateValues) {
+		return node.isLeaf() ? (negateValues ? -node.getValue() + biggestPayoff: node.getValue() - smallestPayoff) : 0;
+	}
+
+	/**
+	 * Fork-join task computing the expected values of the subtree rooted at nodeId. Chance nodes, and player nodes that are only preceded by chance nodes,
+	 * fork a task per child and add up the child values in action order once all have completed. Any other subtree is traversed sequentially.
+	 */
+	private class ExpectedValueTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final double[] array;
+		private final double[][][] strategyProfile;
+		private final boolean negateValues;
+		private final int nodeId;
+		private final boolean inZeroBranch;
+		private final boolean belowPlayerNode;
+
+		ExpectedValueTask(double[] array, double[][][] strategyProfile, boolean negateValues, int nodeId, boolean inZeroBranch, boolean belowPlayerNode) {
+			this.array = array;
+			this.strategyProfile = strategyProfile;
+			this.negateValues = negateValues;
+			this.nodeId = nodeId;
+			this.inZeroBranch = inZeroBranch;
+			this.belowPlayerNode = belowPlayerNode;
+		}
+
+		@Override
+		protected void compute() {
+			Node node = nodes[nodeId];
+			if (node.isLeaf() || belowPlayerNode) {
+				new GameTreeTraversal(Game.this).traverse(nodeId, new StrategyProfileExpectedValueVisitor(array, strategyProfile, negateValues, inZeroBranch));
+				return;
+			}
+
+			double[] probability = new double[node.actions.length];
+			ExpectedValueTask[] tasks = new ExpectedValueTask[node.actions.length];
+			for (int actionId = 0; actionId < node.actions.length; actionId++) {
+				double actionProbability = node.getPlayer() == 0 ? node.actions[actionId].getProbability() : strategyProfile[node.getPlayer()][node.getInformationSet()][actionId];
+				probability[actionId] = inZeroBranch ? 0 : actionProbability;
+				tasks[actionId] = new ExpectedValueTask(array, strategyProfile, negateValues, node.actions[actionId].getChildId(), probability[actionId] == 0, node.getPlayer() != 0);
+			}
+			invokeAll(tasks);
+
+			array[nodeId] = 0;
+			for (int actionId = 0; actionId < node.actions.length; actionId++) {
+				array[nodeId] += probability[actionId] * array[node.actions[actionId].getChildId()];
 			}
 		}
-		return array[currentNode];
 	}
 	
 	
@@ -739,10 +1071,125 @@ public class Game implements GameGenerator {
 		return numPrivateSignals;
 	}
 
+	/**
+	 * Returns the number of actions on the longest path from the root to a leaf. This is the capacity needed by a GameState to never grow its stacks.
+	 * @return
+	 */
+	@Override
+	public int getMaxDepth() {
+		if (maxDepth < 0) {
+			// Breadth-first over the levels of the tree, so deep games do not need a deep call stack
+			TIntArrayList level = new TIntArrayList();
+			TIntArrayList nextLevel = new TIntArrayList();
+			level.add(root);
+			maxDepth = 0;
+			while (true) {
+				for (int i = 0; i < level.size(); i++) {
+					Node node = nodes[level.get(i)];
+					if (node.isLeaf()) continue;
+					for (Action action : node.actions) {
+						nextLevel.add(action.childId);
+					}
+				}
+				if (nextLevel.isEmpty()) break;
+				maxDepth++;
+				TIntArrayList tmp = level;
+				level = nextLevel;
+				nextLevel = tmp;
+				nextLevel.resetQuick();
+			}
+		}
+		return maxDepth;
+	}
+
+	@Override
+	public int getMaxNumActions() {
+		if (maxNumActions < 0) {
+			maxNumActions = 0;
+			for (int nodeId = 0; nodeId < numNodes; nodeId++) {
+				if (!nodes[nodeId].isLeaf()) {
+					maxNumActions = Math.max(maxNumActions, nodes[nodeId].actions.length);
+				}
+			}
+		}
+		return maxNumActions;
+	}
+
 	public Node getNodeById(int currentNodeId) {
 		return nodes[currentNodeId];
 	}
 
+	/**
+	 * Replaces the full history name stored at each node by a pointer to the parent and the id of an interned suffix, such that the name is
+	 * the name of the parent followed by the suffix. Names grow with depth, so this reduces name memory from roughly nodes times depth to a
+	 * constant per node. Node.getName and Node.toString still return the full name, but rebuild it on every call.
+	 * Nodes whose name does not extend the name of their parent keep their full name as the suffix and no parent.
+	 */
+	public void compactNodeNames() {
+		if (nameSuffixes != null) {
+			return;
+		}
+		nameSuffixes = new ArrayList<String>();
+		TObjectIntMap<String> suffixIds = new TObjectIntHashMap<String>();
+		int[] parentIds = new int[numNodes];
+		Arrays.fill(parentIds, -1);
+		for (Node node : nodes) {
+			if (node == null || node.isLeaf()) continue;
+			for (Action action : node.actions) {
+				parentIds[action.childId] = node.nodeId;
+			}
+		}
+
+		// Suffixes are computed from the original names of all nodes before any name is dropped
+		for (Node node : nodes) {
+			if (node == null) continue;
+			String suffix = node.name;
+			int parentId = parentIds[node.nodeId];
+			if (parentId >= 0 && node.name.startsWith(nodes[parentId].name)) {
+				suffix = node.name.substring(nodes[parentId].name.length());
+			} else {
+				parentId = -1;
+			}
+			if (!suffixIds.containsKey(suffix)) {
+				suffixIds.put(suffix, nameSuffixes.size());
+				nameSuffixes.add(suffix);
+			}
+			node.parentId = parentId;
+			node.nameSuffixId = suffixIds.get(suffix);
+		}
+		for (Node node : nodes) {
+			if (node != null) {
+				node.name = null;
+			}
+		}
+	}
+
+	public boolean hasCompactNodeNames() {
+		return nameSuffixes != null;
+	}
+
+	/**
+	 * @return the distinct name suffixes of a game whose names have been compacted, or null
+	 */
+	public List<String> getNameSuffixes() {
+		return nameSuffixes;
+	}
+
+	private String buildCompactedName(Node node) {
+		int length = 0;
+		for (Node current = node; current != null; current = current.parentId >= 0 ? nodes[current.parentId] : null) {
+			length += nameSuffixes.get(current.nameSuffixId).length();
+		}
+		// Fill the name from the end, since the suffixes are visited from the node towards the root
+		char[] name = new char[length];
+		for (Node current = node; current != null; current = current.parentId >= 0 ? nodes[current.parentId] : null) {
+			String suffix = nameSuffixes.get(current.nameSuffixId);
+			length -= suffix.length();
+			suffix.getChars(0, suffix.length(), name, length);
+		}
+		return new String(name);
+	}
+
 	public int getSmallestInformationSetIdPlayer1() {
 		return smallestInformationSetId[0];
 	}
@@ -758,15 +1205,8 @@ public class Game implements GameGenerator {
 
 	@Override
 	public GameState getInitialGameState() {
-		GameState gs = new GameState();
-//		gs.setCurrentNodeId(getRoot());
-//		gs.setCurrentPlayer(nodes[getRoot()].getPlayer());
-//		if (hasAbstraction) {
-//			gs.setCurrentInformationSetId(abstraction[nodes[getRoot()].getInformationSet()]);
-//		} else {
-//			gs.setCurrentInformationSetId(nodes[getRoot()].getInformationSet());
-//		}
-		gs.nodeIdHistory.add(getRoot());
+		GameState gs = new GameState(getMaxDepth());
+		gs.pushNodeId(getRoot());
 		updateGameStateInfo(gs);
 		return gs;
 	}
@@ -789,8 +1229,8 @@ public class Game implements GameGenerator {
 	public void updateGameStateWithAction(GameState gs, int actionId, double probability) {
 		gs.addHistory(gs.getCurrentPlayer(), actionId);
 		gs.addProbability(gs.getCurrentPlayer(), probability);
-		int childNodeId = nodes[gs.nodeIdHistory.get(gs.nodeIdHistory.size()-1)].actions[actionId].getChildId();
-		gs.nodeIdHistory.add(childNodeId);
+		int childNodeId = nodes[gs.getCurrentNodeId()].actions[actionId].getChildId();
+		gs.pushNodeId(childNodeId);
 		updateGameStateInfo(gs);
 	}
 
@@ -798,14 +1238,13 @@ public class Game implements GameGenerator {
 	public void removeActionFromGameState(GameState gs, int action, int player) {
 		gs.popAction(player);
 		gs.popProbability(player);
-		gs.nodeIdHistory.remove(gs.nodeIdHistory.size()-1, 1);
+		gs.popNodeId();
 		updateGameStateInfo(gs);
 	}
 
 	private void updateGameStateInfo(GameState gs) {
 		Node newNode = nodes[gs.getCurrentNodeId()];
 		
-		//gs.nodeIdHistory.add(newNode.getNodeId());
 		if (!newNode.isLeaf() && hasAbstraction && newNode.player != 0 && abstraction[newNode.getPlayer()][newNode.getInformationSet()] != newNode.getInformationSet()) {
 			gs.setCurrentInformationSetId(abstraction[newNode.getPlayer()][newNode.getInformationSet()]);
 			gs.setOriginalInformationSetId(newNode.getInformationSet());
@@ -826,9 +1265,9 @@ public class Game implements GameGenerator {
 	}
 	
 	@Override
-	public double getProbabilityOfNatureAction(GameState gs, int action) throws Exception {
+	public double getProbabilityOfNatureAction(GameState gs, int action) {
 		if (gs.getCurrentPlayer() != 0) {
-			throw new Exception("Not a nature state");
+			throw new IllegalArgumentException("Not a nature state");
 		}
 		return this.nodes[gs.getCurrentNodeId()].actions[action].getProbability();
 	}
@@ -889,47 +1328,74 @@ public class Game implements GameGenerator {
 	}
 
 	@Override
-	public double computeGameValueForStrategies(double[][][] strategyProfile) {
-		return computeGameValueRecursive(getRoot(), strategyProfile);
+	public double computeGameValueForStrategies(final double[][][] strategyProfile) {
+		final double[] value = new double[getMaxDepth()+1]; // indexed as [depth]. Value of the subtree of the node at depth traversed so far
+		new GameTreeTraversal(this).traverse(getRoot(), new GameTreeTraversal.Visitor() {
+			@Override
+			public boolean enterNode(int nodeId, int depth) {
+				value[depth] = nodes[nodeId].isLeaf() ? nodes[nodeId].getValue() : 0;
+				return true;
+			}
+
+			@Override
+			public void afterChild(int nodeId, int actionId, int childId, int depth) {
+				Node node = nodes[nodeId];
+				double probability = node.player == 0 ? node.actions[actionId].getProbability() : strategyProfile[node.getPlayer()][node.getInformationSet()][actionId];
+				value[depth] += probability * value[depth+1];
+			}
+		});
+		return value[0];
 	}
 
-	private double computeGameValueRecursive(int currentNodeId, double[][][] strategyProfile) {
-		Node currentNode = getNodeById(currentNodeId);
-		if (currentNode.isLeaf()) {
-			return currentNode.getValue();
-		}
-		
-		double value = 0;
-		for (int actionId = 0; actionId < currentNode.getActions().length; actionId++) {
-			Action action = currentNode.actions[actionId];
-			double probability = currentNode.player == 0 ? action.getProbability() : strategyProfile[currentNode.getPlayer()][currentNode.getInformationSet()][actionId];
-			value += probability * computeGameValueRecursive(action.getChildId(), strategyProfile);
-		}
-		
-		return value;
+	@Override
+	public double computeGameValueForStrategies(final StrategyProfile strategyProfile) {
+		final double[] value = new double[getMaxDepth()+1]; // indexed as [depth]. Value of the subtree of the node at depth traversed so far
+		new GameTreeTraversal(this).traverse(getRoot(), new GameTreeTraversal.Visitor() {
+			@Override
+			public boolean enterNode(int nodeId, int depth) {
+				value[depth] = nodes[nodeId].isLeaf() ? nodes[nodeId].getValue() : 0;
+				return true;
+			}
+
+			@Override
+			public void afterChild(int nodeId, int actionId, int childId, int depth) {
+				Node node = nodes[nodeId];
+				double probability = node.player == 0 ? node.actions[actionId].getProbability() : strategyProfile.getProbability(node.getPlayer(), node.getInformationSet(), actionId);
+				value[depth] += probability * value[depth+1];
+			}
+		});
+		return value[0];
 	}
 
 	@Override
 	public double getLargestPayoff() {
 		return biggestPayoff;
 	}
-	
+
 	@Override
-	public String toString(){
-		return recursiveToString(getRoot(), "");
+	public double getSmallestPayoff() {
+		return smallestPayoff;
 	}
 	
-	private String recursiveToString(int nodeId, String prefix) {
-		Node node = getNodeById(nodeId);
-		String stringRep = prefix + node.getName();
-		if (node.isLeaf()) return stringRep;
-		for (Action action : node.getActions()) {
-			stringRep += " " + action;
-		}
-		stringRep += "\n";
-		for (Action action : node.getActions()) {
-			stringRep += recursiveToString(action.getChildId(), prefix+" ");
-		}
-		return stringRep;
+	@Override
+	public String toString(){
+		final StringBuilder stringRep = new StringBuilder();
+		new GameTreeTraversal(this).traverse(getRoot(), new GameTreeTraversal.Visitor() {
+			@Override
+			public boolean enterNode(int nodeId, int depth) {
+				Node node = nodes[nodeId];
+				for (int i = 0; i < depth; i++) {
+					stringRep.append(' ');
+				}
+				stringRep.append(node.getName());
+				if (node.isLeaf()) return false;
+				for (Action action : node.getActions()) {
+					stringRep.append(' ').append(action);
+				}
+				stringRep.append('\n');
+				return true;
+			}
+		});
+		return stringRep.toString();
 	}
-}
\ No newline at end of file
+}
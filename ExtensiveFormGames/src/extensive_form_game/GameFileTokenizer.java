@@ -0,0 +1,253 @@
+package extensive_form_game;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Streaming tokenizer for the text game formats. Reads the file through a ByteBuffer one line at a time and splits each line on spaces,
+ * with single quotes grouping a token that contains spaces, as in the CSVReader(reader, ' ', '\'') setup previously used by Game.
+ * Empty unquoted tokens, as produced by runs of spaces, are dropped.
+ * The token boundaries of the current line are kept in reused offset arrays, and integers and doubles are parsed straight from the bytes,
+ * so only the tokens that are requested as Strings allocate.
+ */
+class GameFileTokenizer {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final int INITIAL_BUFFER_BYTES = 1 << 16;
+	private static final int INITIAL_TOKENS = 64;
+	private static final int MAX_FAST_PATH_DIGITS = 15;
+	private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private boolean endOfFile;
+
+	private int numTokens;
+	private int[] tokenStart; // indexed as [token]. Offset into the buffer array, excluding quotes
+	private int[] tokenEnd; // indexed as [token]. Exclusive
+
+	public GameFileTokenizer(String filename) throws IOException {
+		channel = new FileInputStream(filename).getChannel();
+		buffer = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+		buffer.flip();
+		tokenStart = new int[INITIAL_TOKENS];
+		tokenEnd = new int[INITIAL_TOKENS];
+	}
+
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Advances to the next line that contains at least one token.
+	 * @return false if the end of the file was reached
+	 * @throws IOException
+	 */
+	public boolean nextLine() throws IOException {
+		while (true) {
+			int lineEnd = findLineEnd();
+			if (lineEnd < 0) {
+				return false;
+			}
+			tokenizeLine(buffer.position(), lineEnd);
+			buffer.position(lineEnd < buffer.limit() ? lineEnd + 1 : lineEnd);
+			if (numTokens > 0) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Finds the end of the line starting at the buffer position, reading more of the file as needed.
+	 * @return offset of the terminating newline, or of the end of the data if the file does not end in a newline. -1 if no data is left
+	 */
+	private int findLineEnd() throws IOException {
+		int scanned = buffer.position();
+		while (true) {
+			byte[] bytes = buffer.array();
+			for (int i = scanned; i < buffer.limit(); i++) {
+				if (bytes[i] == '\n') {
+					return i;
+				}
+			}
+			if (endOfFile) {
+				return buffer.hasRemaining() ? buffer.limit() : -1;
+			}
+			int consumed = buffer.position();
+			scanned = buffer.limit() - consumed;
+			buffer.compact();
+			if (!buffer.hasRemaining()) {
+				ByteBuffer larger = ByteBuffer.allocate(2 * buffer.capacity());
+				buffer.flip();
+				larger.put(buffer);
+				buffer = larger;
+			}
+			if (channel.read(buffer) < 0) {
+				endOfFile = true;
+			}
+			buffer.flip();
+		}
+	}
+
+	private void tokenizeLine(int start, int end) {
+		byte[] bytes = buffer.array();
+		numTokens = 0;
+		int i = start;
+		while (i < end) {
+			byte b = bytes[i];
+			if (b == ' ' || b == '\r') {
+				i++;
+			} else if (b == '\'') {
+				int close = i + 1;
+				while (close < end && bytes[close] != '\'') {
+					close++;
+				}
+				addToken(i + 1, close);
+				i = close + 1;
+			} else {
+				int tokenEndOffset = i;
+				while (tokenEndOffset < end && bytes[tokenEndOffset] != ' ' && bytes[tokenEndOffset] != '\r') {
+					tokenEndOffset++;
+				}
+				addToken(i, tokenEndOffset);
+				i = tokenEndOffset;
+			}
+		}
+	}
+
+	private void addToken(int start, int end) {
+		if (numTokens == tokenStart.length) {
+			tokenStart = Arrays.copyOf(tokenStart, 2 * numTokens);
+			tokenEnd = Arrays.copyOf(tokenEnd, 2 * numTokens);
+		}
+		tokenStart[numTokens] = start;
+		tokenEnd[numTokens] = end;
+		numTokens++;
+	}
+
+	public int getNumTokens() {
+		return numTokens;
+	}
+
+	public int getTokenLength(int token) {
+		return tokenEnd[token] - tokenStart[token];
+	}
+
+	public char charAt(int token, int index) {
+		return (char) buffer.array()[tokenStart[token] + index];
+	}
+
+	public boolean tokenEquals(int token, String s) {
+		if (getTokenLength(token) != s.length()) {
+			return false;
+		}
+		byte[] bytes = buffer.array();
+		for (int i = 0; i < s.length(); i++) {
+			if (bytes[tokenStart[token] + i] != s.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Same semantics as StringUtils.isNumeric: true if the token is non-empty and consists of digits only
+	 * @param token
+	 * @return
+	 */
+	public boolean isNumeric(int token) {
+		if (getTokenLength(token) == 0) {
+			return false;
+		}
+		byte[] bytes = buffer.array();
+		for (int i = tokenStart[token]; i < tokenEnd[token]; i++) {
+			if (bytes[i] < '0' || bytes[i] > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public String getString(int token) {
+		return new String(buffer.array(), tokenStart[token], getTokenLength(token), UTF8);
+	}
+
+	public int parseInt(int token) {
+		byte[] bytes = buffer.array();
+		int i = tokenStart[token];
+		int end = tokenEnd[token];
+		boolean negative = false;
+		if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+			negative = bytes[i] == '-';
+			i++;
+		}
+		if (i == end) {
+			throw new NumberFormatException("For input string: \"" + getString(token) + "\"");
+		}
+		long value = 0;
+		for (; i < end; i++) {
+			int digit = bytes[i] - '0';
+			if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+				// Let Integer.parseInt produce the error message, or handle overflow to Integer.MIN_VALUE
+				return Integer.parseInt(getString(token));
+			}
+			value = 10 * value + digit;
+		}
+		value = negative ? -value : value;
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+			return Integer.parseInt(getString(token));
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Parses plain decimals with at most 15 significant digits directly. Since both the digits and the power of ten are exact doubles,
+	 * the single division is correctly rounded, and the result is identical to Double.parseDouble.
+	 * Anything else, such as exponents or longer mantissas, falls back to Double.parseDouble.
+	 * @param token
+	 * @return
+	 */
+	public double parseDouble(int token) {
+		byte[] bytes = buffer.array();
+		int i = tokenStart[token];
+		int end = tokenEnd[token];
+		boolean negative = false;
+		if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+			negative = bytes[i] == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int fractionDigits = 0;
+		boolean seenPoint = false;
+		boolean seenDigit = false;
+		for (; i < end; i++) {
+			byte b = bytes[i];
+			if (b == '.' && !seenPoint) {
+				seenPoint = true;
+			} else if (b >= '0' && b <= '9') {
+				seenDigit = true;
+				if (mantissa != 0 || b != '0') {
+					digits++;
+				}
+				if (digits > MAX_FAST_PATH_DIGITS) {
+					return Double.parseDouble(getString(token));
+				}
+				mantissa = 10 * mantissa + (b - '0');
+				if (seenPoint) {
+					fractionDigits++;
+				}
+			} else {
+				return Double.parseDouble(getString(token));
+			}
+		}
+		if (!seenDigit || fractionDigits >= POWERS_OF_TEN.length) {
+			return Double.parseDouble(getString(token));
+		}
+		double value = (double) mantissa / POWERS_OF_TEN[fractionDigits];
+		return negative ? -value : value;
+	}
+}
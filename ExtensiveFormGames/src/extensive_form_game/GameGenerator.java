@@ -22,17 +22,27 @@ public interface GameGenerator {
 	public void removeActionFromGameState(GameState gs, int action, int player);
 	
 	/**
-	 * Returns the probability of the action at actionIndex is taken. Should check that gs is currently at a nature node.
+	 * Returns the probability of the action at actionIndex is taken. Throws IllegalArgumentException if gs is not at a nature node, so callers
+	 * in traversal loops need no exception handling.
 	 * @param gs
 	 * @param actionIndex index into action list at the current node/nodes in information set
 	 * @return
 	 */
-	public double getProbabilityOfNatureAction(GameState gs, int actionIndex) throws Exception;
+	public double getProbabilityOfNatureAction(GameState gs, int actionIndex);
 	
 	public int getNumInformationSets(int player);
 	public int getNumActionsAtInformationSet(int player, int informationSetId);
 	public int getNumActionsForNature(GameState gs);
 	public int getNumActions(GameState gs);
+
+	/**
+	 * @return the number of actions on the longest path from the root to a leaf
+	 */
+	public int getMaxDepth();
+	/**
+	 * @return the largest number of actions at any node, including nature nodes. Traversals size their per-depth scratch buffers by this
+	 */
+	public int getMaxNumActions();
 	
 	// Abstraction methods
 	public void addInformationSetAbstraction(int[][] informationSetAbstraction, int[][][] actionMapping);
@@ -48,8 +58,17 @@ public interface GameGenerator {
 	 * @return
 	 */
 	public double computeGameValueForStrategies(double[][][] strategyProfile);
+
+	/**
+	 * Computes the expected value of the game under the given strategies. Computes value from the perspective of Player 1
+	 * @param strategyProfile
+	 * @return
+	 */
+	public double computeGameValueForStrategies(StrategyProfile strategyProfile);
 	
 	public double getLargestPayoff();
+
+	public double getSmallestPayoff();
 }
 
 
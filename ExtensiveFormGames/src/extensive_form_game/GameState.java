@@ -1,45 +1,59 @@
 package extensive_form_game;
 
-import gnu.trove.list.TDoubleList;
+import java.util.Arrays;
+
 import gnu.trove.list.TIntList;
-import gnu.trove.list.array.TDoubleArrayList;
 import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.TIntIntMap;
 import gnu.trove.map.hash.TIntIntHashMap;
 
+/**
+ * The state of a traversal of the game tree. All histories are kept on primitive stacks that are pushed and popped in O(1) as actions are added and removed.
+ * For each player, the stack of probabilities holds running products, so the reach probability of a player is read off the top of its stack
+ * instead of being recomputed. A GameState created with a capacity at least as large as the depth of the game never allocates after construction.
+ */
 public class GameState {
-	
-	TDoubleList[] playerProbabilities;
-	TIntList[] playerHistories;
-	// The sample histories are used to remember what was sampled at each information set across iterations for the players
-	TIntIntMap[] playerSampleHistories;
-
-	TIntArrayList nodeIdHistory;
-	
+	private static final int DEFAULT_CAPACITY = 16;
+
+	// reachProbabilities[player][k] is the product of the first k probabilities added for player, so reachProbabilities[player][0] is always 1
+	private double[][] reachProbabilities;
+	private int[] reachProbabilitySizes;
+	private int[][] playerHistories;
+	private int[] playerHistorySizes;
+	// The sample histories are used to remember what was sampled at each information set across iterations for the players. Only allocated if used
+	private TIntIntMap[] playerSampleHistories;
+
+	private int[] nodeIdHistory;
+	private int nodeIdHistorySize;
+
 	private boolean isLeaf;
 	private double value;
 	private int currentInformationSetId;
 	private int originalInformationSetId;
 	private int currentPlayer;
-	
+
 	public GameState() {
-		playerProbabilities = new TDoubleList[3];
-		playerHistories = new TIntList[3];
-		playerSampleHistories = new TIntIntMap[3];
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a GameState whose stacks can hold histories of length up to capacity without growing.
+	 * @param capacity the maximum number of actions on any path of the game tree
+	 */
+	public GameState(int capacity) {
+		capacity = Math.max(capacity, 1);
+		reachProbabilities = new double[3][capacity+1];
+		reachProbabilitySizes = new int[3];
+		playerHistories = new int[3][capacity];
+		playerHistorySizes = new int[3];
 		for (int player = 0; player < 3; player++) {
-			playerProbabilities[player] = new TDoubleArrayList();
-			playerHistories[player] = new TIntArrayList();
-			playerSampleHistories[player] = new TIntIntHashMap();
+			reachProbabilities[player][0] = 1;
 		}
-		nodeIdHistory = new TIntArrayList();
+		nodeIdHistory = new int[capacity+1];
 	}
 
 	public double getProbabilityWithPlayer(int player) {
-		double product = 1;
-		for (int i = 0; i < playerProbabilities[player].size(); i++) { 
-			product *= playerProbabilities[player].get(i); 
-		}
-		return product;
+		return reachProbabilities[player][reachProbabilitySizes[player]];
 	}
 
 	public double getProbabilityWithoutPlayer(int player) {
@@ -51,59 +65,76 @@ public class GameState {
 		}
 		return probability;
 	}
-	
-//	public double probabilityP1() {
-//		double product = 1;
-//		for (int i = 0; i < playerProbabilities[1].size(); i++) { 
-//			product = product * playerProbabilities[1].get(i); 
-//		}
-//		return product;
-//	}
-//
-//	public double probabilityP2() {
-//		double product = 1;
-//		for (int i = 0; i < playerProbabilities[2].size(); i++) { 
-//			product = product * playerProbabilities[2].get(i); 
-//		}
-//		return product;
-//	}
-//
-//	public double probabilityNature() {
-//		double product = 1;
-//		for (int i = 0; i < playerProbabilities[0].size(); i++) { 
-//			product = product * playerProbabilities[0].get(i); 
-//		}
-//		return product;
-//	}
-	
-
-	public void addProbability(int player, double val) { playerProbabilities[player].add(val);	}
-//	public void addProbabilityP1(double val) { playerProbabilities[1].add(val);	}
-//	public void addProbabilityP2(double val) { playerProbabilities[2].add(val);	}
-//	public void addProbabilityNature(double val) { playerProbabilities[0].add(val);	}
-
-	
-	public void addHistory(int player, int val) { playerHistories[player].add(val);	}
-//	public void addHistoryP1(int val) { playerHistories[1].add(val);	}
-//	public void addHistoryP2(int val) { playerHistories[2].add(val);	}
-//	public void addHistoryNature(int val) { playerHistories[0].add(val);	}
-	
-	
-	public TIntList history(int player) { return playerHistories[player]; }
-//	public TIntList p1History() { return playerHistories[1]; }
-//	public TIntList p2History() { return playerHistories[2]; }
-//	public TIntList natureHistory() { return playerHistories[0]; }
-	
-	
-	public void popProbability(int player) { playerProbabilities[player].remove(playerProbabilities[player].size()-1, 1); }
-	public void popAction(int player) { playerHistories[player].remove(playerHistories[player].size()-1, 1); }
-	
-	
-	public boolean priorSampleExists(int player, int informationSetId) { return playerSampleHistories[player].containsKey(informationSetId);	}
+
+
+	public void addProbability(int player, double val) {
+		int size = reachProbabilitySizes[player];
+		if (size + 1 >= reachProbabilities[player].length) {
+			reachProbabilities[player] = Arrays.copyOf(reachProbabilities[player], 2 * reachProbabilities[player].length);
+		}
+		reachProbabilities[player][size+1] = reachProbabilities[player][size] * val;
+		reachProbabilitySizes[player]++;
+	}
+
+	public void addHistory(int player, int val) {
+		int size = playerHistorySizes[player];
+		if (size >= playerHistories[player].length) {
+			playerHistories[player] = Arrays.copyOf(playerHistories[player], 2 * playerHistories[player].length);
+		}
+		playerHistories[player][size] = val;
+		playerHistorySizes[player]++;
+	}
+
+	/**
+	 * Returns a copy of the actions taken by player so far. Allocates, so it should not be used in inner loops.
+	 * @param player
+	 * @return
+	 */
+	public TIntList history(int player) { return TIntArrayList.wrap(Arrays.copyOf(playerHistories[player], playerHistorySizes[player])); }
+
+	public void popProbability(int player) { reachProbabilitySizes[player]--; }
+	public void popAction(int player) { playerHistorySizes[player]--; }
+
+
+	public boolean priorSampleExists(int player, int informationSetId) { return playerSampleHistories != null && playerSampleHistories[player].containsKey(informationSetId);	}
 	public int getPriorSample(int player, int informationSetId) { return playerSampleHistories[player].get(informationSetId); }
-	public void addSample(int player, int informationSetId, int action) { playerSampleHistories[player].put(informationSetId, action); }
-	
-	
+	public void addSample(int player, int informationSetId, int action) {
+		if (playerSampleHistories == null) {
+			playerSampleHistories = new TIntIntMap[3];
+			for (int p = 0; p < 3; p++) {
+				playerSampleHistories[p] = new TIntIntHashMap();
+			}
+		}
+		playerSampleHistories[player].put(informationSetId, action);
+	}
+
+	/**
+	 * Forgets all samples. The sample maps keep their capacity, so a GameState reused across iterations samples without allocating
+	 */
+	public void clearSamples() {
+		if (playerSampleHistories != null) {
+			for (int p = 0; p < 3; p++) {
+				playerSampleHistories[p].clear();
+			}
+		}
+	}
+
+
+	void pushNodeId(int nodeId) {
+		if (nodeIdHistorySize >= nodeIdHistory.length) {
+			nodeIdHistory = Arrays.copyOf(nodeIdHistory, 2 * nodeIdHistory.length);
+		}
+		nodeIdHistory[nodeIdHistorySize++] = nodeId;
+	}
+
+	void popNodeId() {
+		nodeIdHistorySize--;
+	}
+
+	public int getDepth() {
+		return nodeIdHistorySize - 1;
+	}
+
 	public boolean isLeaf() {
 		return isLeaf;
 	}
@@ -129,7 +160,7 @@ public class GameState {
 
 
 	public int getCurrentNodeId() {
-		return nodeIdHistory.get(nodeIdHistory.size()-1);
+		return nodeIdHistory[nodeIdHistorySize-1];
 	}
 
 
@@ -160,7 +191,7 @@ public class GameState {
 	public void setOriginalInformationSetId(int originalInformationSetId) {
 		this.originalInformationSetId = originalInformationSetId;
 	}
-	
-	
+
+
 
 }
@@ -0,0 +1,113 @@
+package extensive_form_game;
+
+import java.util.Arrays;
+
+/**
+ * Depth-first traversal of a game tree using an explicit primitive stack instead of the call stack, so trees of any depth can be traversed
+ * at the default thread stack size. Works on both Game and FlatGame.
+ * The Visitor receives the same sequence of callbacks that a recursive traversal visiting the actions of each node in order would produce,
+ * so computations ported onto it perform their floating point operations in the same order as the recursive code.
+ */
+public class GameTreeTraversal {
+	/**
+	 * Callbacks of a traversal. All methods do nothing by default. depth is the number of actions from the node the traversal started at.
+	 */
+	public static abstract class Visitor {
+		/**
+		 * Pre-order callback, called when the traversal reaches a node.
+		 * @return false to skip the children of the node. exitNode is still called
+		 */
+		public boolean enterNode(int nodeId, int depth) {
+			return true;
+		}
+
+		/**
+		 * Called before the traversal descends into the child reached by action actionId at nodeId.
+		 */
+		public void beforeChild(int nodeId, int actionId, int childId, int depth) {
+		}
+
+		/**
+		 * Called after the subtree of the child reached by action actionId at nodeId has been traversed.
+		 */
+		public void afterChild(int nodeId, int actionId, int childId, int depth) {
+		}
+
+		/**
+		 * Post-order callback, called after all children of the node have been traversed.
+		 */
+		public void exitNode(int nodeId, int depth) {
+		}
+	}
+
+	private final Game.Node[] nodes; // set when traversing a Game
+	private final FlatGame flatGame; // set when traversing a FlatGame
+
+	private int[] nodeStack; // indexed as [depth]
+	private int[] actionStack; // indexed as [depth]. The next action to descend into at the node on the stack
+
+	public GameTreeTraversal(Game game) {
+		this.nodes = game.getNodes();
+		this.flatGame = null;
+		allocateStacks(game.getMaxDepth() + 1);
+	}
+
+	public GameTreeTraversal(FlatGame game) {
+		this.nodes = null;
+		this.flatGame = game;
+		allocateStacks(game.getMaxDepth() + 1);
+	}
+
+	private void allocateStacks(int capacity) {
+		nodeStack = new int[Math.max(capacity, 1)];
+		actionStack = new int[Math.max(capacity, 1)];
+	}
+
+	private int getNumActions(int nodeId) {
+		if (nodes != null) {
+			Game.Node node = nodes[nodeId];
+			return node.isLeaf() ? 0 : node.getActions().length;
+		}
+		return flatGame.isLeaf(nodeId) ? 0 : flatGame.getNumActions(nodeId);
+	}
+
+	private int getChildId(int nodeId, int actionId) {
+		if (nodes != null) {
+			return nodes[nodeId].getActions()[actionId].getChildId();
+		}
+		return flatGame.getChildId(nodeId, actionId);
+	}
+
+	/**
+	 * Traverses the subtree rooted at startNodeId. A traversal object can be reused for any number of traversals, but not concurrently.
+	 * @param startNodeId
+	 * @param visitor
+	 */
+	public void traverse(int startNodeId, Visitor visitor) {
+		int depth = 0;
+		nodeStack[0] = startNodeId;
+		actionStack[0] = visitor.enterNode(startNodeId, 0) ? 0 : Integer.MAX_VALUE;
+		while (depth >= 0) {
+			int nodeId = nodeStack[depth];
+			int actionId = actionStack[depth];
+			if (actionId < getNumActions(nodeId)) {
+				actionStack[depth]++;
+				int childId = getChildId(nodeId, actionId);
+				visitor.beforeChild(nodeId, actionId, childId, depth);
+				depth++;
+				if (depth == nodeStack.length) {
+					nodeStack = Arrays.copyOf(nodeStack, 2 * depth);
+					actionStack = Arrays.copyOf(actionStack, 2 * depth);
+				}
+				nodeStack[depth] = childId;
+				actionStack[depth] = visitor.enterNode(childId, depth) ? 0 : Integer.MAX_VALUE;
+			} else {
+				visitor.exitNode(nodeId, depth);
+				depth--;
+				if (depth >= 0) {
+					visitor.afterChild(nodeStack[depth], actionStack[depth] - 1, nodeId, depth);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package extensive_form_game;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * A game whose node and edge columns are views directly into a memory-mapped file written by BinaryGameFormat.
+ * Nothing is parsed or copied when the game is opened; pages of the file are faulted in by the operating system as the tree is traversed.
+ * Node names are stored as UTF-8 bytes and only decoded when getNodeName is called.
+ */
+public class MappedGame extends FlatGame {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private ByteBuffer player; // indexed as [nodeId]. -2 is leaf, 0 is nature, 1 and 2 are the players
+	private IntBuffer informationSet; // indexed as [nodeId]
+	private IntBuffer firstChild; // indexed as [nodeId], with numNodes+1 entries
+	private DoubleBuffer payoff; // indexed as [nodeId]
+	private IntBuffer childNodeId; // indexed as [edge]
+	private DoubleBuffer chanceProbability; // indexed as [edge]
+	private IntBuffer nameOffset; // indexed as [nodeId], with numNodes+1 entries. Offset of the name of the node into nameBytes
+	private ByteBuffer nameBytes;
+
+	/**
+	 * Only called by BinaryGameFormat, which validates the header and maps the sections.
+	 */
+	MappedGame(int root, int numNodes, int numEdges, int maxDepth, double smallestPayoff, double biggestPayoff, int[][] numActionsAtInformationSet,
+			ByteBuffer player, IntBuffer informationSet, IntBuffer firstChild, DoubleBuffer payoff, IntBuffer childNodeId, DoubleBuffer chanceProbability,
+			IntBuffer nameOffset, ByteBuffer nameBytes) {
+		this.root = root;
+		this.numNodes = numNodes;
+		this.numEdges = numEdges;
+		this.maxDepth = maxDepth;
+		this.smallestPayoff = smallestPayoff;
+		this.biggestPayoff = biggestPayoff;
+		this.numActionsAtInformationSet = numActionsAtInformationSet;
+		this.numInformationSets = new int[3];
+		for (int p = 1; p < 3; p++) {
+			numInformationSets[p] = numActionsAtInformationSet[p].length;
+		}
+		this.player = player;
+		this.informationSet = informationSet;
+		this.firstChild = firstChild;
+		this.payoff = payoff;
+		this.childNodeId = childNodeId;
+		this.chanceProbability = chanceProbability;
+		this.nameOffset = nameOffset;
+		this.nameBytes = nameBytes;
+	}
+
+	/**
+	 * Decodes the name of the node from the file. Allocates, so it should not be used in inner loops.
+	 * @param nodeId
+	 * @return
+	 */
+	public String getNodeName(int nodeId) {
+		int start = nameOffset.get(nodeId);
+		int length = nameOffset.get(nodeId+1) - start;
+		ByteBuffer name = nameBytes.duplicate();
+		name.position(start);
+		name.limit(start + length);
+		return UTF8.decode(name).toString();
+	}
+
+	@Override
+	public int getPlayer(int nodeId) {
+		return player.get(nodeId);
+	}
+
+	@Override
+	public int getInformationSet(int nodeId) {
+		return informationSet.get(nodeId);
+	}
+
+	@Override
+	public int getFirstEdge(int nodeId) {
+		return firstChild.get(nodeId);
+	}
+
+	@Override
+	public double getPayoff(int nodeId) {
+		return payoff.get(nodeId);
+	}
+
+	@Override
+	public int getEdgeChildId(int edge) {
+		return childNodeId.get(edge);
+	}
+
+	@Override
+	public double getEdgeProbability(int edge) {
+		return chanceProbability.get(edge);
+	}
+}
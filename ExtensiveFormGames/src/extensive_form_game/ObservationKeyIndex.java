@@ -0,0 +1,160 @@
+package extensive_form_game;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from sequences of ints to non-negative int values. Keys are copied into a single pool when inserted,
+ * and lookups take the key as one or two array ranges, so looking up a concatenation of two sequences does not require building it.
+ * Used to identify information sets by their observation sequences without boxing or allocating per lookup.
+ */
+public class ObservationKeyIndex {
+	private static final int EMPTY = -1;
+
+	private int[] keyPool;
+	private int keyPoolSize;
+	private int[] slotKeyStart; // indexed as [slot]. EMPTY for unused slots
+	private int[] slotKeyLength; // indexed as [slot]
+	private int[] slotHash; // indexed as [slot]
+	private int[] slotValue; // indexed as [slot]
+	private int size;
+
+	public ObservationKeyIndex() {
+		this(16);
+	}
+
+	/**
+	 * @param expectedKeys number of keys that can be inserted without rehashing
+	 */
+	public ObservationKeyIndex(int expectedKeys) {
+		int capacity = 16;
+		while (capacity < 2 * expectedKeys) {
+			capacity *= 2;
+		}
+		allocateSlots(capacity);
+		keyPool = new int[Math.max(16, expectedKeys)];
+	}
+
+	private void allocateSlots(int capacity) {
+		slotKeyStart = new int[capacity];
+		Arrays.fill(slotKeyStart, EMPTY);
+		slotKeyLength = new int[capacity];
+		slotHash = new int[capacity];
+		slotValue = new int[capacity];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void put(int[] key, int offset, int length, int value) {
+		put(key, offset, length, key, 0, 0, value);
+	}
+
+	/**
+	 * Maps the concatenation of the two key ranges to value, replacing any previous value.
+	 */
+	public void put(int[] prefix, int prefixOffset, int prefixLength, int[] suffix, int suffixOffset, int suffixLength, int value) {
+		int hash = hash(prefix, prefixOffset, prefixLength, suffix, suffixOffset, suffixLength);
+		int slot = findSlot(hash, prefix, prefixOffset, prefixLength, suffix, suffixOffset, suffixLength);
+		if (slotKeyStart[slot] != EMPTY) {
+			slotValue[slot] = value;
+			return;
+		}
+
+		int length = prefixLength + suffixLength;
+		if (keyPoolSize + length > keyPool.length) {
+			keyPool = Arrays.copyOf(keyPool, Math.max(2 * keyPool.length, keyPoolSize + length));
+		}
+		System.arraycopy(prefix, prefixOffset, keyPool, keyPoolSize, prefixLength);
+		System.arraycopy(suffix, suffixOffset, keyPool, keyPoolSize + prefixLength, suffixLength);
+		slotKeyStart[slot] = keyPoolSize;
+		slotKeyLength[slot] = length;
+		slotHash[slot] = hash;
+		slotValue[slot] = value;
+		keyPoolSize += length;
+		size++;
+		if (2 * size > slotKeyStart.length) {
+			rehash();
+		}
+	}
+
+	/**
+	 * @return the value of the key, or -1 if it is not in the index
+	 */
+	public int get(int[] key, int offset, int length) {
+		return get(key, offset, length, key, 0, 0);
+	}
+
+	/**
+	 * @return the value of the concatenation of the two key ranges, or -1 if it is not in the index
+	 */
+	public int get(int[] prefix, int prefixOffset, int prefixLength, int[] suffix, int suffixOffset, int suffixLength) {
+		int hash = hash(prefix, prefixOffset, prefixLength, suffix, suffixOffset, suffixLength);
+		int slot = findSlot(hash, prefix, prefixOffset, prefixLength, suffix, suffixOffset, suffixLength);
+		return slotKeyStart[slot] == EMPTY ? -1 : slotValue[slot];
+	}
+
+	private int findSlot(int hash, int[] prefix, int prefixOffset, int prefixLength, int[] suffix, int suffixOffset, int suffixLength) {
+		int mask = slotKeyStart.length - 1;
+		int slot = hash & mask;
+		while (slotKeyStart[slot] != EMPTY) {
+			if (slotHash[slot] == hash && keyEquals(slot, prefix, prefixOffset, prefixLength, suffix, suffixOffset, suffixLength)) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private boolean keyEquals(int slot, int[] prefix, int prefixOffset, int prefixLength, int[] suffix, int suffixOffset, int suffixLength) {
+		if (slotKeyLength[slot] != prefixLength + suffixLength) {
+			return false;
+		}
+		int start = slotKeyStart[slot];
+		for (int i = 0; i < prefixLength; i++) {
+			if (keyPool[start + i] != prefix[prefixOffset + i]) {
+				return false;
+			}
+		}
+		start += prefixLength;
+		for (int i = 0; i < suffixLength; i++) {
+			if (keyPool[start + i] != suffix[suffixOffset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void rehash() {
+		int[] oldKeyStart = slotKeyStart;
+		int[] oldKeyLength = slotKeyLength;
+		int[] oldHash = slotHash;
+		int[] oldValue = slotValue;
+		allocateSlots(2 * oldKeyStart.length);
+		int mask = slotKeyStart.length - 1;
+		for (int oldSlot = 0; oldSlot < oldKeyStart.length; oldSlot++) {
+			if (oldKeyStart[oldSlot] == EMPTY) continue;
+			int slot = oldHash[oldSlot] & mask;
+			while (slotKeyStart[slot] != EMPTY) {
+				slot = (slot + 1) & mask;
+			}
+			slotKeyStart[slot] = oldKeyStart[oldSlot];
+			slotKeyLength[slot] = oldKeyLength[oldSlot];
+			slotHash[slot] = oldHash[oldSlot];
+			slotValue[slot] = oldValue[oldSlot];
+		}
+	}
+
+	private static int hash(int[] prefix, int prefixOffset, int prefixLength, int[] suffix, int suffixOffset, int suffixLength) {
+		int hash = 1;
+		for (int i = 0; i < prefixLength; i++) {
+			hash = 31 * hash + prefix[prefixOffset + i];
+		}
+		for (int i = 0; i < suffixLength; i++) {
+			hash = 31 * hash + suffix[suffixOffset + i];
+		}
+		// Spread the bits, since the slot is taken from the low bits only
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,243 @@
+package extensive_form_game;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+import gnu.trove.map.TIntDoubleMap;
+import gnu.trove.map.TObjectDoubleMap;
+
+/**
+ * Behavioral strategies for both players, stored as one contiguous array of action probabilities per player.
+ * The probabilities of the actions at an information set are stored consecutively, starting at the offset of the information set,
+ * and the offsets are derived from the number of actions at each information set of the game. Player 0 (nature) has no information sets.
+ * Profiles created for the same game share the same layout, so the bulk operations are single passes over the arrays.
+ */
+public class StrategyProfile {
+	private final int[][] informationSetOffset; // indexed as [player][informationSetId]. Has one extra entry holding the number of actions of the player over all information sets
+	private final double[][] probabilities; // indexed as [player][informationSetOffset[player][informationSetId] + actionId]
+
+	/**
+	 * Creates a profile where all action probabilities are zero
+	 * @param game
+	 */
+	public StrategyProfile(GameGenerator game) {
+		informationSetOffset = new int[3][];
+		probabilities = new double[3][];
+		informationSetOffset[0] = new int[1];
+		probabilities[0] = new double[0];
+		for (int player = 1; player < 3; player++) {
+			int numInformationSets = game.getNumInformationSets(player);
+			informationSetOffset[player] = new int[numInformationSets+1];
+			for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
+				informationSetOffset[player][informationSetId+1] = informationSetOffset[player][informationSetId] + game.getNumActionsAtInformationSet(player, informationSetId);
+			}
+			probabilities[player] = new double[informationSetOffset[player][numInformationSets]];
+		}
+	}
+
+	/**
+	 * Creates a copy of other. The copy shares the layout of other, but not the probabilities
+	 * @param other
+	 */
+	public StrategyProfile(StrategyProfile other) {
+		informationSetOffset = other.informationSetOffset;
+		probabilities = new double[3][];
+		for (int player = 0; player < 3; player++) {
+			probabilities[player] = other.probabilities[player].clone();
+		}
+	}
+
+	/**
+	 * Creates a profile from a strategy profile as returned by ZeroSumGameSolver.getStrategyProfile. Players or information sets that are null are left at zero
+	 * @param game
+	 * @param strategyProfile indexed as [player][informationSetId][actionId]
+	 */
+	public StrategyProfile(GameGenerator game, double[][][] strategyProfile) {
+		this(game);
+		for (int player = 1; player < 3 && player < strategyProfile.length; player++) {
+			if (strategyProfile[player] == null) continue;
+			for (int informationSetId = 0; informationSetId < getNumInformationSets(player) && informationSetId < strategyProfile[player].length; informationSetId++) {
+				if (strategyProfile[player][informationSetId] == null) continue;
+				System.arraycopy(strategyProfile[player][informationSetId], 0, probabilities[player], getOffset(player, informationSetId), getNumActions(player, informationSetId));
+			}
+		}
+	}
+
+	/**
+	 * Creates a profile from strategies keyed by action id, as returned by getInformationSetActionProbabilitiesByActionId of the solvers
+	 * @param game
+	 * @param strategyP1 indexed as [informationSetId]
+	 * @param strategyP2 indexed as [informationSetId]
+	 */
+	public StrategyProfile(GameGenerator game, TIntDoubleMap[] strategyP1, TIntDoubleMap[] strategyP2) {
+		this(game);
+		TIntDoubleMap[][] strategies = new TIntDoubleMap[][] {null, strategyP1, strategyP2};
+		for (int player = 1; player < 3; player++) {
+			for (int informationSetId = 0; informationSetId < getNumInformationSets(player) && informationSetId < strategies[player].length; informationSetId++) {
+				if (strategies[player][informationSetId] == null) continue;
+				for (int actionId = 0; actionId < getNumActions(player, informationSetId); actionId++) {
+					probabilities[player][getOffset(player, informationSetId) + actionId] = strategies[player][informationSetId].get(actionId);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates a profile from strategies keyed by action name, as returned by SequenceFormLPSolver.getInformationSetActionProbabilities.
+	 * Actions missing from a map get probability zero
+	 * @param game
+	 * @param strategyP1 indexed as [informationSetId]
+	 * @param strategyP2 indexed as [informationSetId]
+	 */
+	public StrategyProfile(Game game, TObjectDoubleMap<String>[] strategyP1, TObjectDoubleMap<String>[] strategyP2) {
+		this(game);
+		TObjectDoubleMap<?>[][] strategies = new TObjectDoubleMap<?>[][] {null, strategyP1, strategyP2};
+		for (int player = 1; player < 3; player++) {
+			for (int informationSetId = 0; informationSetId < getNumInformationSets(player) && informationSetId < strategies[player].length; informationSetId++) {
+				if (strategies[player][informationSetId] == null) continue;
+				Game.Action[] actions = game.getActionsAtInformationSet(player, informationSetId);
+				for (int actionId = 0; actionId < actions.length; actionId++) {
+					probabilities[player][getOffset(player, informationSetId) + actionId] = strategies[player][informationSetId].get(actions[actionId].getName());
+				}
+			}
+		}
+	}
+
+	public int getNumInformationSets(int player) {
+		return informationSetOffset[player].length - 1;
+	}
+
+	public int getNumActions(int player, int informationSetId) {
+		return informationSetOffset[player][informationSetId+1] - informationSetOffset[player][informationSetId];
+	}
+
+	/**
+	 * @return the index of the probability of the first action at the information set in getProbabilities(player)
+	 */
+	public int getOffset(int player, int informationSetId) {
+		return informationSetOffset[player][informationSetId];
+	}
+
+	public double getProbability(int player, int informationSetId, int actionId) {
+		return probabilities[player][informationSetOffset[player][informationSetId] + actionId];
+	}
+
+	public void setProbability(int player, int informationSetId, int actionId, double probability) {
+		probabilities[player][informationSetOffset[player][informationSetId] + actionId] = probability;
+	}
+
+	/**
+	 * Returns the backing array of the player, so changes to it are reflected in the profile
+	 * @param player
+	 * @return action probabilities indexed as [getOffset(player, informationSetId) + actionId]
+	 */
+	public double[] getProbabilities(int player) {
+		return probabilities[player];
+	}
+
+	/**
+	 * Returns a view of the action probabilities at an information set, indexed by action id, backed by the array of the player
+	 * @param player
+	 * @param informationSetId
+	 * @return
+	 */
+	public DoubleBuffer getInformationSetView(int player, int informationSetId) {
+		return DoubleBuffer.wrap(probabilities[player], getOffset(player, informationSetId), getNumActions(player, informationSetId)).slice();
+	}
+
+	/**
+	 * Rescales the probabilities at each information set to sum to one. Information sets where all probabilities are zero get the uniform distribution
+	 */
+	public void normalize() {
+		for (int player = 1; player < 3; player++) {
+			for (int informationSetId = 0; informationSetId < getNumInformationSets(player); informationSetId++) {
+				int start = informationSetOffset[player][informationSetId];
+				int end = informationSetOffset[player][informationSetId+1];
+				double sum = 0;
+				for (int i = start; i < end; i++) {
+					sum += probabilities[player][i];
+				}
+				for (int i = start; i < end; i++) {
+					probabilities[player][i] = sum > 0 ? probabilities[player][i] / sum : 1.0 / (end - start);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds weight times the probabilities of other to the probabilities of this profile
+	 * @param other a profile with the same layout
+	 * @param weight
+	 */
+	public void add(StrategyProfile other, double weight) {
+		checkSameLayout(other);
+		for (int player = 1; player < 3; player++) {
+			double[] otherProbabilities = other.probabilities[player];
+			for (int i = 0; i < probabilities[player].length; i++) {
+				probabilities[player][i] += weight * otherProbabilities[i];
+			}
+		}
+	}
+
+	public void scale(double factor) {
+		for (int player = 1; player < 3; player++) {
+			for (int i = 0; i < probabilities[player].length; i++) {
+				probabilities[player][i] *= factor;
+			}
+		}
+	}
+
+	/**
+	 * Replaces this profile by the mixture (1-weight) * this + weight * other, taken separately at each information set
+	 * @param other a profile with the same layout
+	 * @param weight
+	 */
+	public void mix(StrategyProfile other, double weight) {
+		checkSameLayout(other);
+		for (int player = 1; player < 3; player++) {
+			double[] otherProbabilities = other.probabilities[player];
+			for (int i = 0; i < probabilities[player].length; i++) {
+				probabilities[player][i] = (1 - weight) * probabilities[player][i] + weight * otherProbabilities[i];
+			}
+		}
+	}
+
+	/**
+	 * Computes the uniform average of the profiles, taken separately at each information set
+	 * @param profiles at least one profile, all with the same layout
+	 * @return
+	 */
+	public static StrategyProfile average(StrategyProfile... profiles) {
+		StrategyProfile average = new StrategyProfile(profiles[0]);
+		for (int i = 1; i < profiles.length; i++) {
+			average.add(profiles[i], 1);
+		}
+		average.scale(1.0 / profiles.length);
+		return average;
+	}
+
+	/**
+	 * @return a copy of the strategy of the player, indexed as [informationSetId][actionId]
+	 */
+	public double[][] getPlayerStrategy(int player) {
+		double[][] strategy = new double[getNumInformationSets(player)][];
+		for (int informationSetId = 0; informationSetId < strategy.length; informationSetId++) {
+			int start = informationSetOffset[player][informationSetId];
+			strategy[informationSetId] = Arrays.copyOfRange(probabilities[player], start, start + getNumActions(player, informationSetId));
+		}
+		return strategy;
+	}
+
+	/**
+	 * @return a copy of the profile in the format of ZeroSumGameSolver.getStrategyProfile, indexed as [player][informationSetId][actionId]
+	 */
+	public double[][][] toArray() {
+		return new double[][][] {new double[0][], getPlayerStrategy(1), getPlayerStrategy(2)};
+	}
+
+	private void checkSameLayout(StrategyProfile other) {
+		if (other.informationSetOffset != informationSetOffset && !Arrays.deepEquals(other.informationSetOffset, informationSetOffset)) {
+			throw new IllegalArgumentException("Strategy profiles have different information set layouts");
+		}
+	}
+}
@@ -5,10 +5,15 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import extensive_form_game.ObservationKeyIndex;
+
 public class SignalAbstraction {
 	String[] signalNames;
 	Map<String, Integer> namesToSignalId = new HashMap<String, Integer>();
 	Map<List<Integer>, List<Integer>> abstraction = new HashMap<List<Integer>, List<Integer>>();
+	// Primitive version of abstraction, built on the first call to getAbstractSignalIds. Maps a sequence of signal ids to an index into abstractSignalIds
+	ObservationKeyIndex abstractionIndex;
+	List<int[]> abstractSignalIds;
 	
 	public SignalAbstraction(String[] signalNames) {
 		this.signalNames = signalNames;
@@ -19,6 +24,7 @@ public class SignalAbstraction {
 	
 	public void addAbstraction(List<Integer> keep, List<Integer> abstracted) {
 		abstraction.put(abstracted, keep);
+		abstractionIndex = null;
 	}
 
 	public void addAbstractionByName(List<String> keep, List<String> abstracted) {
@@ -31,6 +37,7 @@ public class SignalAbstraction {
 			abstractList.add(namesToSignalId.get(name));
 		}
 		abstraction.put(abstractList, keepList);
+		abstractionIndex = null;
 	}
 	
 	/**
@@ -63,4 +70,51 @@ public class SignalAbstraction {
 		return abstraction.get(signals);
 	}
 	
+	/**
+	 * Primitive version of getAbstractSignalsById.
+	 * @param signalIds array holding the signal ids that one wishes to know the mapping of
+	 * @param offset
+	 * @param length
+	 * @return the ids of the abstract signals, or null if the sequence is not abstracted. The returned array must not be modified
+	 */
+	public int[] getAbstractSignalIds(int[] signalIds, int offset, int length) {
+		if (abstractionIndex == null) {
+			buildAbstractionIndex();
+		}
+		int index = abstractionIndex.get(signalIds, offset, length);
+		return index < 0 ? null : abstractSignalIds.get(index);
+	}
+
+	private void buildAbstractionIndex() {
+		abstractionIndex = new ObservationKeyIndex(abstraction.size());
+		abstractSignalIds = new ArrayList<int[]>();
+		for (Map.Entry<List<Integer>, List<Integer>> entry : abstraction.entrySet()) {
+			// Sequences containing unknown signal names can never be looked up by id
+			if (entry.getKey().contains(null) || entry.getValue().contains(null)) continue;
+			int[] abstracted = toIntArray(entry.getKey());
+			abstractionIndex.put(abstracted, 0, abstracted.length, abstractSignalIds.size());
+			abstractSignalIds.add(toIntArray(entry.getValue()));
+		}
+	}
+
+	private static int[] toIntArray(List<Integer> list) {
+		int[] array = new int[list.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = list.get(i);
+		}
+		return array;
+	}
+
+	/**
+	 * @param name
+	 * @return the id of the signal, or -1 if there is no signal with that name
+	 */
+	public int getSignalId(String name) {
+		Integer id = namesToSignalId.get(name);
+		return id == null ? -1 : id;
+	}
+
+	public String[] getSignalNames() {
+		return signalNames;
+	}
 }
@@ -24,6 +24,7 @@ import java.util.HashMap;
 import extensive_form_game.Game;
 import extensive_form_game.Game.Action;
 import extensive_form_game.Game.Node;
+import extensive_form_game.StrategyProfile;
 
 public class BestResponseLPSolver extends ZeroSumGameSolver {
 	
@@ -81,6 +82,13 @@ public class BestResponseLPSolver extends ZeroSumGameSolver {
 		}
 	}
 
+	/**
+	 * @param strategyProfile the strategy of the player not solved for is taken from this profile
+	 */
+	public BestResponseLPSolver(Game game, int playerToSolveFor, StrategyProfile strategyProfile) {
+		this(game, playerToSolveFor, strategyProfile.getPlayerStrategy((playerToSolveFor % 2) + 1));
+	}
+
 	/** 
 	 * Initializes the arrays and other data structure objects that we use.
 	 */
@@ -1,21 +1,38 @@
 package extensive_form_game_solver;
 
+import java.util.Arrays;
+
 import extensive_form_game.GameGenerator;
 import extensive_form_game.GameState;
+import extensive_form_game.StrategyProfile;
+import gnu.trove.list.array.TIntArrayList;
 
+/**
+ * Computes a best response to a fixed opponent strategy by traversing the game tree, without an LP.
+ * A single traversal accumulates the counterfactual value of each action of the best-responding player, that is, the leaf payoffs weighted by the opponent and chance probabilities
+ * of reaching them, up to the next information set of the best-responding player. The information sets are then resolved in the reverse of the order they were first reached,
+ * adding the value of the best action at each to the action leading to it, so the time taken is linear in the size of the tree.
+ * Requires perfect recall for the best-responding player. Information sets are the original ones of the game, regardless of abstraction.
+ */
 public class BestResponseTreeTraversalSolver extends ZeroSumGameSolver {
-	
+
 	private int nature = 0;
 	private int player1 = 1;
 	private int player2 = 2;
-	
+
 	private double[][] opponentStrategy;
 	private int[] bestResponseActionIndices;
-	
+
+	// counterfactual value of each action for playerToSolverFor, indexed as [informationSetId][actionId]
 	private double[][] actionExpectedValues;
-	
+	// the information set and action of playerToSolverFor leading to each of its information sets, -1 if none, indexed as [informationSetId]
+	private int[] parentInformationSetIds;
+	private int[] parentActionIds;
+	private boolean[] informationSetReached;
+	private TIntArrayList informationSetsInOrderReached;
+
 	private int playerToSolverFor;
-	
+
 	public BestResponseTreeTraversalSolver(GameGenerator game, int playerToSolveFor, double[][] opponentStrategy) {
 		super(game);
 		this.opponentStrategy = opponentStrategy;
@@ -23,107 +40,171 @@ public class BestResponseTreeTraversalSolver extends ZeroSumGameSolver {
 		initializeDataStructures();
 	}
 
+	/**
+	 * @param strategyProfile the strategy of the player not solved for is taken from this profile
+	 */
+	public BestResponseTreeTraversalSolver(GameGenerator game, int playerToSolveFor, StrategyProfile strategyProfile) {
+		this(game, playerToSolveFor, strategyProfile.getPlayerStrategy((playerToSolveFor % 2) + 1));
+	}
+
 	private void initializeDataStructures() {
-		bestResponseActionIndices = new int[game.getNumInformationSets(playerToSolverFor)];
-		actionExpectedValues = new double[game.getNumInformationSets(playerToSolverFor)][];
-		for (int informationSetId = 0; informationSetId < game.getNumInformationSets(playerToSolverFor); informationSetId++) {
+		int numInformationSets = game.getNumInformationSets(playerToSolverFor);
+		bestResponseActionIndices = new int[numInformationSets];
+		actionExpectedValues = new double[numInformationSets][];
+		for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
 			actionExpectedValues[informationSetId] = new double[game.getNumActionsAtInformationSet(playerToSolverFor, informationSetId)];
 		}
+		parentInformationSetIds = new int[numInformationSets];
+		parentActionIds = new int[numInformationSets];
+		informationSetReached = new boolean[numInformationSets];
+		informationSetsInOrderReached = new TIntArrayList(numInformationSets);
 	}
 
-
+	/**
+	 * Computes the best response and its value for playerToSolveFor, from the perspective of that player
+	 */
 	@Override
 	public void solveGame() {
-		// TODO Auto-generated method stub
+		for (int informationSetId = 0; informationSetId < actionExpectedValues.length; informationSetId++) {
+			Arrays.fill(actionExpectedValues[informationSetId], 0);
+		}
+		Arrays.fill(bestResponseActionIndices, 0);
+		Arrays.fill(informationSetReached, false);
+		informationSetsInOrderReached.resetQuick();
+		valueOfGame = 0;
 
-	}
+		computeActionValues(game.getInitialGameState(), 1, -1, -1);
 
-	private void computeNodeProbabilities(GameState gs, double probabilityOverOtherAgents) {
-//		
-//		int numActions =  game.getNumActions(gs);
-//		for (int actionId = 0; actionId < numActions; actionId++) {
-//			double probability = 1;
-//			if (gs.getCurrentPlayer() == nature) {
-//				probability = game.getProbabilityOfNatureAction(gs, actionId);
-//			} else if (playerToSolverFor != gs.getCurrentPlayer()){
-//				probability = opponentStrategy[gs.getCurrentInformationSetId()][actionId];
-//			}
-//			try {
-//				double 
-//				game.updateGameStateWithAction(gs, actionId, probability);
-//				nodeValue += probability * computeExpectedValueOfActions(gs);
-//				game.removeActionFromGameState(gs, actionId, nature);
-//			} catch (Exception e) {
-//				e.printStackTrace();
-//			}
-//		}			
-//
-//
-//		for (int actionId = 0; actionId < numActions; actionId++) {
-//			double probability = 0; 
-//			game.updateGameStateWithAction(gs, actionId, probability);
-//			nodeValue += probability * computeExpectedValueOfActions(gs);
-//			game.removeActionFromGameState(gs, actionId, nature);
-//		}
-//
-		
+		// An information set is first reached inside the subtree of the action leading to it, so its parent action is resolved after it
+		for (int index = informationSetsInOrderReached.size() - 1; index >= 0; index--) {
+			int informationSetId = informationSetsInOrderReached.get(index);
+			double[] values = actionExpectedValues[informationSetId];
+			int bestActionId = 0;
+			for (int actionId = 1; actionId < values.length; actionId++) {
+				if (values[actionId] > values[bestActionId]) {
+					bestActionId = actionId;
+				}
+			}
+			bestResponseActionIndices[informationSetId] = bestActionId;
+			addValue(parentInformationSetIds[informationSetId], parentActionIds[informationSetId], values[bestActionId]);
+		}
 	}
-	
-	private double computeExpectedValueOfActions(GameState gs) {
-		double nodeValue = 0;
-		if (gs.getCurrentPlayer() == nature) {
+
+	/**
+	 * Adds the value of each leaf, weighted by the probability of the opponent and nature reaching it, to the last action taken by playerToSolveFor. Subtrees reached with probability zero are skipped
+	 * @param gs
+	 * @param probabilityOverOtherAgents
+	 * @param parentInformationSetId last information set of playerToSolveFor on the path, -1 if none
+	 * @param parentActionId action taken at parentInformationSetId
+	 */
+	private void computeActionValues(GameState gs, double probabilityOverOtherAgents, int parentInformationSetId, int parentActionId) {
+		if (gs.isLeaf()) {
+			double value = playerToSolverFor == player1 ? gs.getValue() : -gs.getValue();
+			addValue(parentInformationSetId, parentActionId, probabilityOverOtherAgents * value);
+		} else if (gs.getCurrentPlayer() == nature) {
 			int numActions = game.getNumActionsForNature(gs);
 			for (int actionId = 0; actionId < numActions; actionId++) {
-				try {
-					double probability = game.getProbabilityOfNatureAction(gs, actionId);
-					game.updateGameStateWithAction(gs, actionId, probability);
-					nodeValue += probability * computeExpectedValueOfActions(gs);
-					game.removeActionFromGameState(gs, actionId, nature);
-				} catch (Exception e) {
-					e.printStackTrace();
+				double probability = game.getProbabilityOfNatureAction(gs, actionId);
+				if (probability == 0) {
+					continue;
 				}
-			}			
+				game.updateGameStateWithAction(gs, actionId, probability);
+				computeActionValues(gs, probabilityOverOtherAgents * probability, parentInformationSetId, parentActionId);
+				game.removeActionFromGameState(gs, actionId, nature);
+			}
+		} else if (gs.getCurrentPlayer() == playerToSolverFor) {
+			int informationSetId = gs.getOriginalInformationSetId();
+			if (!informationSetReached[informationSetId]) {
+				informationSetReached[informationSetId] = true;
+				parentInformationSetIds[informationSetId] = parentInformationSetId;
+				parentActionIds[informationSetId] = parentActionId;
+				informationSetsInOrderReached.add(informationSetId);
+			}
+			int numActions = actionExpectedValues[informationSetId].length;
+			for (int actionId = 0; actionId < numActions; actionId++) {
+				game.updateGameStateWithAction(gs, actionId, 1);
+				computeActionValues(gs, probabilityOverOtherAgents, informationSetId, actionId);
+				game.removeActionFromGameState(gs, actionId, playerToSolverFor);
+			}
 		} else {
-			int numActions = game.getNumActionsAtInformationSet(gs);
-//			for (int actionId = 0; actionId < numActions; actionId++) {
-//				double probability = 
-//				game.updateGameStateWithAction(gs, actionId, probability);
-//				nodeValue += probability * computeExpectedValueOfActions(gs);
-//				game.removeActionFromGameState(gs, actionId, nature);
-//			}
+			int player = gs.getCurrentPlayer();
+			double[] strategy = opponentStrategy[gs.getOriginalInformationSetId()];
+			double sum = 0;
+			for (int actionId = 0; actionId < strategy.length; actionId++) {
+				sum += strategy[actionId];
+			}
+			for (int actionId = 0; actionId < strategy.length; actionId++) {
+				// Information sets without probability mass, such as ones an averaged strategy never reached, are played uniformly
+				double probability = sum > 0 ? strategy[actionId] / sum : 1.0 / strategy.length;
+				if (probability == 0) {
+					continue;
+				}
+				game.updateGameStateWithAction(gs, actionId, probability);
+				computeActionValues(gs, probabilityOverOtherAgents * probability, parentInformationSetId, parentActionId);
+				game.removeActionFromGameState(gs, actionId, player);
+			}
 		}
-		
-		return nodeValue;
 	}
-	
+
+	private void addValue(int informationSetId, int actionId, double value) {
+		if (informationSetId == -1) {
+			valueOfGame += value;
+		} else {
+			actionExpectedValues[informationSetId][actionId] += value;
+		}
+	}
+
+	/**
+	 * @param game
+	 * @param strategyProfile a profile in the format of ZeroSumGameSolver.getStrategyProfile
+	 * @return the sum of the best response values of the two players against the profile, which is zero exactly when the profile is a Nash equilibrium
+	 */
+	public static double computeExploitability(GameGenerator game, double[][][] strategyProfile) {
+		BestResponseTreeTraversalSolver player1BestResponse = new BestResponseTreeTraversalSolver(game, 1, strategyProfile[2]);
+		player1BestResponse.solveGame();
+		BestResponseTreeTraversalSolver player2BestResponse = new BestResponseTreeTraversalSolver(game, 2, strategyProfile[1]);
+		player2BestResponse.solveGame();
+		return player1BestResponse.getValueOfGame() + player2BestResponse.getValueOfGame();
+	}
+
+	/**
+	 * @param informationSetId
+	 * @return the counterfactual value of each action at the information set, given best responses at later information sets
+	 */
+	public double[] getActionExpectedValues(int informationSetId) {
+		return actionExpectedValues[informationSetId];
+	}
+
+	public int getBestResponseAction(int informationSetId) {
+		return bestResponseActionIndices[informationSetId];
+	}
+
 	@Override
 	public void printStrategyVarsAndGameValue() {
-		// TODO Auto-generated method stub
-
+		printGameValue();
+		for (int informationSetId = 0; informationSetId < bestResponseActionIndices.length; informationSetId++) {
+			System.out.println(informationSetId + ": \t" + bestResponseActionIndices[informationSetId]);
+		}
 	}
 
 	@Override
 	public void printGameValue() {
-		// TODO Auto-generated method stub
-
+		System.out.println("Best response value: " + getValueOfGame());
 	}
 
 	@Override
 	public double[][][] getStrategyProfile() {
 		double[][] bestResponseStrategy = new double[game.getNumInformationSets(playerToSolverFor)][];
 		for (int informationSetId = 0; informationSetId < game.getNumInformationSets(playerToSolverFor); informationSetId++) {
-			for (int actionId = 0; actionId < game.getNumActionsAtInformationSet(playerToSolverFor, informationSetId); actionId++) {
-				bestResponseStrategy[informationSetId][actionId] = bestResponseActionIndices[informationSetId] == actionId ? 1 : 0;
-			}			
+			bestResponseStrategy[informationSetId] = new double[game.getNumActionsAtInformationSet(playerToSolverFor, informationSetId)];
+			bestResponseStrategy[informationSetId][bestResponseActionIndices[informationSetId]] = 1;
 		}
-		
+
 		if (playerToSolverFor == player1) {
-			return new double[][][] { new double[0][], bestResponseStrategy, opponentStrategy };  
+			return new double[][][] { new double[0][], bestResponseStrategy, opponentStrategy };
 		} else {
-			return new double[][][] { new double[0][], opponentStrategy, bestResponseStrategy };  
+			return new double[][][] { new double[0][], opponentStrategy, bestResponseStrategy };
 		}
-
-		
 	}
 
 }
@@ -0,0 +1,46 @@
+package extensive_form_game_solver;
+
+import extensive_form_game.GameGenerator;
+
+/**
+ * CFR+ (Tammelin 2014). Differs from CounterFactualRegretSolver in three ways:
+ * the players are updated in alternation, each traversal using the strategy the other player just computed,
+ * cumulative regrets are floored at zero after every update (regret matching+),
+ * and the contribution of iteration t to the averaged strategy is weighted by t.
+ * Uses the same tables and abstraction mapping as CounterFactualRegretSolver, so the strategy getters are inherited.
+ */
+public class CFRPlusSolver extends CounterFactualRegretSolver {
+
+	public CFRPlusSolver(GameGenerator game) {
+		super(game);
+		alternatingUpdates = true;
+	}
+
+	/**
+	 * Floors the regrets of the player at zero, then updates the averaged strategy with weight totalIterationsRun and the current strategy
+	 */
+	@Override
+	protected void regretMatch(int player) {
+		for (int informationSetId = 0; informationSetId < game.getNumInformationSets(player); informationSetId++) {
+			if (game.informationSetAbstracted(player, informationSetId)) {
+				continue;
+			}
+			double[] regrets = regretTable[player][informationSetId];
+			for (int action = 0; action < regrets.length; action++) {
+				if (regrets[action] < 0) {
+					regrets[action] = 0;
+				}
+			}
+			informationSetProbabilityForPlayer[player][informationSetId] *= totalIterationsRun;
+		}
+		super.regretMatch(player);
+	}
+
+	/**
+	 * Iteration t has weight t, so the first iterations have weight iterations * (iterations + 1) / 2
+	 */
+	@Override
+	protected double getAveragedStrategyWeight(int iterations) {
+		return iterations * (iterations + 1.0) / 2;
+	}
+}
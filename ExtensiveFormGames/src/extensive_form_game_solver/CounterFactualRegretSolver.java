@@ -1,11 +1,19 @@
 package extensive_form_game_solver;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.apache.commons.math3.distribution.UniformRealDistribution;
 
 import extensive_form_game.GameGenerator;
 import extensive_form_game.GameState;
+import extensive_form_game.StrategyProfile;
+import gnu.trove.list.TDoubleList;
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.TIntDoubleMap;
 import gnu.trove.map.hash.TIntDoubleHashMap;
 
@@ -21,12 +29,37 @@ public class CounterFactualRegretSolver extends ZeroSumGameSolver {
 	double[][][] currentStrategy;
 	double[][][] regretTable;
 	double[][] informationSetProbabilityForPlayer;
-	final UniformRealDistribution distribution = new UniformRealDistribution(0, 1);
+	UniformRealDistribution distribution = new UniformRealDistribution(0, 1);
+
+	List<ChanceSubtree> chanceSubtrees; // subtrees traversed as tasks by runCFRParallel, in the order of a sequential traversal
+	int numChancePrefixNodes; // number of nature nodes above the chance subtrees
+	int updatingPlayer = 0; // player whose regrets are updated by a traversal, 0 for simultaneous updates of both players
+	boolean alternatingUpdates = false; // if true, each iteration traverses once per player, and regret matches the player before the other player's traversal
+
+	private GameState initialGameState; // reused by every sequential traversal, which leaves it back at the root
+	private TraversalStack traversalStack; // stack of the sequential traversal
+
+	boolean regretBasedPruning = false;
+	int[][][] prunedUntilIteration; // indexed as [player][informationSetId][action]. The action is skipped by the traversals of iterations up to and including this one
+	double[][][] largestActionPayoff; // indexed as [player][informationSetId][action]. Largest payoff to the player at a leaf below the action at any node in the information set
+	double[][][] maxRegretIncrease; // indexed as [player][informationSetId][action]. Upper bound on the increase of the regret of the action in one iteration
+	int numActionsPruned;
+	int numActionsResumed;
 
 	public CounterFactualRegretSolver (GameGenerator game) {
+		this(game, true);
+	}
+
+	/**
+	 * @param game
+	 * @param initializeTables if false, the subclass allocates the tables with initializeDataStructures(allocatedInformationSets)
+	 */
+	protected CounterFactualRegretSolver(GameGenerator game, boolean initializeTables) {
 		super(game);
 		setNumNodesTouched(0); // this is set in the constructor to signify that it changes as we run more iterations
-		initializeDataStructures();
+		if (initializeTables) {
+			initializeDataStructures(null);
+		}
 	}
 
 	@Override
@@ -115,35 +148,40 @@ public class CounterFactualRegretSolver extends ZeroSumGameSolver {
 
 	@Override
 	public double[][][] getStrategyProfile() {
-		double[][][] map = new double[3][][];
-		for (int player =1; player < 3; player++) {
-			int numInformationSets = game.getNumInformationSets(player);
-			map[player] = new double[numInformationSets][];
-			for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
+		return getFlatStrategyProfile().toArray();
+	}
+	
+	
+	/**
+	 * Normalizes the averaged strategy, mapping information sets and actions through the abstraction of the game
+	 */
+	@Override
+	public StrategyProfile getFlatStrategyProfile() {
+		StrategyProfile profile = new StrategyProfile(game);
+		for (int player = 1; player < 3; player++) {
+			double[] probabilities = profile.getProbabilities(player);
+			for (int informationSetId = 0; informationSetId < game.getNumInformationSets(player); informationSetId++) {
 				int abstractInformationSetId = game.getAbstractInformationSetId(player, informationSetId);
-
-				map[player][informationSetId] = new double[game.getNumActionsAtInformationSet(player, informationSetId)];
+				int offset = profile.getOffset(player, informationSetId);
+				int numActions = game.getNumActionsAtInformationSet(player, informationSetId);
 				double sum = 0;
-				for (int actionId = 0; actionId < game.getNumActionsAtInformationSet(player, informationSetId); actionId++) {
-					int abstractActionId = game.getAbstractActionMapping(player, informationSetId, actionId);
-					sum += averagedStrategy[player][abstractInformationSetId][abstractActionId]; 
+				for (int actionId = 0; actionId < numActions; actionId++) {
+					sum += averagedStrategy[player][abstractInformationSetId][game.getAbstractActionMapping(player, informationSetId, actionId)];
 				}
-
-				for (int actionId = 0; actionId < game.getNumActionsAtInformationSet(player, informationSetId); actionId++) {
-					int abstractActionId = game.getAbstractActionMapping(player, informationSetId, actionId);
-					if (sum > 0) {
-						map[player][informationSetId][actionId] = averagedStrategy[player][game.getAbstractInformationSetId(player, informationSetId)][abstractActionId] / sum;
-					} else {
-						map[player][informationSetId][actionId] = 0;
+				if (sum > 0) {
+					for (int actionId = 0; actionId < numActions; actionId++) {
+						probabilities[offset + actionId] = averagedStrategy[player][abstractInformationSetId][game.getAbstractActionMapping(player, informationSetId, actionId)] / sum;
 					}
 				}
 			}
 		}
-		return map;
+		return profile;
 	}
 	
-	
-	private void initializeDataStructures() {
+	/**
+	 * @param allocatedInformationSets indexed as [player][informationSetId]. If not null, rows are only allocated for the information sets where it is true
+	 */
+	void initializeDataStructures(boolean[][] allocatedInformationSets) {
 		// Initialize the tables for each player
 		averagedStrategy = new double[3][][];
 		currentStrategy = new double[3][][];
@@ -162,11 +200,12 @@ public class CounterFactualRegretSolver extends ZeroSumGameSolver {
 		regretTable[player2] = new double[numInfoSetsP2][];
 		informationSetProbabilityForPlayer[player1] = new double[numInfoSetsP1];
 		informationSetProbabilityForPlayer[player2] = new double[numInfoSetsP2];
+		traversalStack = new TraversalStack();
 		
 		// This currently assumes that information set IDs are consecutively numbered starting from 0
 		// Initialize each information set for Player 1
 		for (int informationSetId = 0; informationSetId < numInfoSetsP1; informationSetId++) {
-			if (game.informationSetAbstracted(player1, informationSetId)) {
+			if (game.informationSetAbstracted(player1, informationSetId) || (allocatedInformationSets != null && !allocatedInformationSets[player1][informationSetId])) {
 				continue;
 			}
 			int numActions = game.getNumActionsAtInformationSet(1, informationSetId);
@@ -178,7 +217,7 @@ public class CounterFactualRegretSolver extends ZeroSumGameSolver {
 		}
 		// Initialize each information set for Player 2
 		for (int informationSetId = 0; informationSetId < numInfoSetsP2; informationSetId++) {
-			if (game.informationSetAbstracted(player2, informationSetId)) {
+			if (game.informationSetAbstracted(player2, informationSetId) || (allocatedInformationSets != null && !allocatedInformationSets[player2][informationSetId])) {
 				continue;
 			}
 			int numActions = game.getNumActionsAtInformationSet(2, informationSetId);
@@ -192,120 +231,603 @@ public class CounterFactualRegretSolver extends ZeroSumGameSolver {
 	
 	
 	public void runCFR(int iterations) {
-		totalIterationsRun += iterations;
 		// TODO update existing averagedStrategy
 		for (int iteration = 0; iteration < iterations; iteration++) {
+			totalIterationsRun++;
+			if (telemetry != null) {
+				telemetry.startIteration(numNodesTouched);
+			}
+			runIteration(null);
+			if (telemetry != null) {
+				telemetry.endIteration(this, totalIterationsRun, numNodesTouched);
+			}
+		}
+	}
+
+	/**
+	 * Runs iterations of CFR, saving a checkpoint every checkpointInterval iterations and after the last one
+	 * @param iterations
+	 * @param checkpoint
+	 * @param checkpointInterval
+	 */
+	public void runCFR(int iterations, SolverCheckpoint checkpoint, int checkpointInterval) {
+		if (checkpointInterval < 1) {
+			throw new IllegalArgumentException("Checkpoint interval must be positive");
+		}
+		for (int iteration = 0; iteration < iterations; iteration += checkpointInterval) {
+			runCFR(Math.min(checkpointInterval, iterations - iteration));
+			checkpoint.save(this);
+		}
+	}
+
+	/**
+	 * Runs iterations of CFR, computing the exploitability of the averaged strategy every exploitabilityInterval iterations and after the last one.
+	 * Each computation costs about two traversals of the game, so an interval of 10 or more keeps it a small fraction of the running time
+	 * @param iterations
+	 * @param exploitabilityInterval
+	 * @param exploitability the exploitability after each interval is appended to this list
+	 */
+	public void runCFR(int iterations, int exploitabilityInterval, TDoubleList exploitability) {
+		if (exploitabilityInterval < 1) {
+			throw new IllegalArgumentException("Exploitability interval must be positive");
+		}
+		for (int iteration = 0; iteration < iterations; iteration += exploitabilityInterval) {
+			runCFR(Math.min(exploitabilityInterval, iterations - iteration));
+			exploitability.add(computeExploitability());
+		}
+	}
+
+	public void runCFRParallel(int iterations) {
+		runCFRParallel(iterations, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Runs iterations of CFR where the subtrees below the chance nodes at the top of the game, before any player acts, are traversed in parallel as fork-join tasks.
+	 * Each task records its regret and reach probability updates in a log, and the logs are applied in the order of a sequential traversal before regret matching.
+	 * Since the tables are not read during a traversal, the strategies computed are identical to those of runCFR.
+	 * @param iterations
+	 * @param pool
+	 */
+	public void runCFRParallel(int iterations, ForkJoinPool pool) {
+		if (chanceSubtrees == null) {
+			chanceSubtrees = new ArrayList<ChanceSubtree>();
+			collectChanceSubtrees(game.getInitialGameState(), new TIntArrayList(), new TDoubleArrayList());
+		}
+		for (int iteration = 0; iteration < iterations; iteration++) {
+			totalIterationsRun++;
+			if (telemetry != null) {
+				telemetry.startIteration(numNodesTouched);
+			}
+			runIteration(pool);
+			if (telemetry != null) {
+				telemetry.endIteration(this, totalIterationsRun, numNodesTouched);
+			}
+		}
+	}
+
+	/**
+	 * Performs iteration number totalIterationsRun: a traversal updating the regrets of both players simultaneously, followed by regret matching.
+	 * With alternatingUpdates, a traversal and regret matching for each player in turn, so the traversal for Player 2 uses the strategy Player 1 just computed
+	 * @param pool if not null, the traversal is run in parallel on the pool
+	 */
+	protected void runIteration(ForkJoinPool pool) {
+		if (!alternatingUpdates) {
 			Arrays.fill(informationSetProbabilityForPlayer[1], 0);
 			Arrays.fill(informationSetProbabilityForPlayer[2], 0);
-			GameState gs = game.getInitialGameState();
-			traverseGameState(gs);
+			traverseGame(pool);
+			if (telemetry != null) {
+				telemetry.startRegretMatching();
+			}
 			regretMatch();
+			if (telemetry != null) {
+				telemetry.endRegretMatching();
+			}
+			return;
+		}
+		for (int player = 1; player < 3; player++) {
+			updatingPlayer = player;
+			Arrays.fill(informationSetProbabilityForPlayer[player], 0);
+			traverseGame(pool);
+			if (telemetry != null) {
+				telemetry.startRegretMatching();
+			}
+			regretMatch(player);
+			if (telemetry != null) {
+				telemetry.endRegretMatching();
+			}
 		}
+		updatingPlayer = 0;
 	}
 
 	/**
-	 * Dispatch method for performing an iteration. 
-	 * @param player
-	 * @param gs
-	 * @param iteration
-	 * @return
+	 * Traverses the game from the root, updating the regrets and information set reach probabilities of updatingPlayer, or of both players if it is 0
+	 * @param pool if not null, the chance subtrees are traversed in parallel on the pool
 	 */
-	private double traverseGameState(GameState gs) {
-		numNodesTouched++;
+	protected void traverseGame(ForkJoinPool pool) {
+		if (pool == null) {
+			if (initialGameState == null) {
+				initialGameState = game.getInitialGameState();
+			}
+			traverseGameState(initialGameState, null, traversalStack);
+			return;
+		}
+		pool.invoke(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				List<RecursiveAction> tasks = new ArrayList<RecursiveAction>(chanceSubtrees.size());
+				for (final ChanceSubtree subtree : chanceSubtrees) {
+					tasks.add(new RecursiveAction() {
+						private static final long serialVersionUID = 1L;
+
+						@Override
+						protected void compute() {
+							traverseChanceSubtree(subtree);
+						}
+					});
+				}
+				invokeAll(tasks);
+			}
+		});
+		numNodesTouched += numChancePrefixNodes;
+		for (ChanceSubtree subtree : chanceSubtrees) {
+			subtree.updates.apply();
+		}
+	}
+
+	/**
+	 * Adds a ChanceSubtree for each node reached by nature actions only that is not itself a nature node, in the order of a sequential traversal
+	 */
+	void collectChanceSubtrees(GameState gs, TIntArrayList actions, TDoubleArrayList probabilities) {
+		if (gs.isLeaf() || gs.getCurrentPlayer() != nature) {
+			chanceSubtrees.add(new ChanceSubtree(actions.toArray(), probabilities.toArray()));
+			return;
+		}
+		numChancePrefixNodes++;
+		for (int action = 0; action < game.getNumActionsForNature(gs); action++) {
+			double probabilityOfAction = getProbabilityOfAction(gs, action);
+			game.updateGameStateWithAction(gs, action, probabilityOfAction);
+			actions.add(action);
+			probabilities.add(probabilityOfAction);
+			collectChanceSubtrees(gs, actions, probabilities);
+			actions.removeAt(actions.size() - 1);
+			probabilities.removeAt(probabilities.size() - 1);
+			game.removeActionFromGameState(gs, action, nature);
+		}
+	}
+
+	/**
+	 * On the first call, creates the game state at the root of the subtree by replaying the nature actions leading to it, which multiplies the reach probabilities
+	 * in the same order as a sequential traversal. Traverses the subtree recording the updates in the log of the subtree
+	 */
+	void traverseChanceSubtree(ChanceSubtree subtree) {
+		subtree.updates.clear();
+		if (subtree.gameState == null) {
+			GameState gs = game.getInitialGameState();
+			for (int i = 0; i < subtree.actions.length; i++) {
+				game.updateGameStateWithAction(gs, subtree.actions[i], subtree.probabilities[i]);
+			}
+			subtree.gameState = gs;
+		}
+		traverseGameState(subtree.gameState, subtree.updates, subtree.stack);
+	}
+
+	/**
+	 * Traverses the subtree below gs depth-first on the explicit stack of the traversal instead of the call stack, so games of any depth can be solved at the default thread stack size.
+	 * The actions of each node are visited in order and the values summed in the same order as a recursive traversal would.
+	 * @param gs restored to the same node when the traversal returns
+	 * @param updates if not null, the regret and reach probability updates are recorded here instead of applied to the tables
+	 * @param stack scratch buffers of the traversal
+	 * @return the value of gs to Player 1
+	 */
+	private double traverseGameState(GameState gs, RegretUpdateLog updates, TraversalStack stack) {
+		touchNode(updates);
 		if (gs.isLeaf()) {
 			return gs.getValue();
-		} else if (gs.getCurrentPlayer() == nature){
-			double value = 0;
-			for (int action = 0; action < game.getNumActionsForNature(gs); action++) {
-				double probabilityOfAction = getProbabilityOfAction(gs, action);
-				game.updateGameStateWithAction(gs, action, probabilityOfAction);
-				value += probabilityOfAction * traverseGameState(gs);
-				game.removeActionFromGameState(gs, action, nature);
+		}
+		int[] player = stack.player;
+		int[] numActions = stack.numActions;
+		int[] nextAction = stack.nextAction;
+		int[] abstractAction = stack.abstractAction;
+		double[] probabilityOfAction = stack.probabilityOfAction;
+		double[] value = stack.value;
+		int rootDepth = gs.getDepth();
+		int depth = rootDepth;
+		enterNode(gs, stack, depth);
+		while (true) {
+			double childValue;
+			if (nextAction[depth] == numActions[depth]) {
+				// all actions of the node have been traversed
+				childValue = exitNode(gs, updates, stack, depth);
+				if (depth == rootDepth) {
+					return childValue;
+				}
+				depth--;
+			} else {
+				int currentPlayer = player[depth];
+				int originalAction = nextAction[depth]++;
+				double probability;
+				if (currentPlayer == nature) {
+					probability = getProbabilityOfAction(gs, originalAction);
+				} else {
+					int action = game.getAbstractActionMapping(gs, originalAction);
+					abstractAction[depth] = action;
+					// use the abstract action probability
+					probability = getProbabilityOfAction(gs, action);
+					if (regretBasedPruning && probability == 0 && prunedUntilIteration[currentPlayer][gs.getCurrentInformationSetId()][action] >= totalIterationsRun) {
+						// skip the subtree, and update the regret as if the action had the largest payoff below it
+						stack.actionUtilities[depth][action] = (currentPlayer == player1 ? 1 : -1) * largestActionPayoff[currentPlayer][gs.getCurrentInformationSetId()][action];
+						continue;
+					}
+				}
+				probabilityOfAction[depth] = probability;
+				// take original action in game tree
+				game.updateGameStateWithAction(gs, originalAction, probability);
+				touchNode(updates);
+				if (!gs.isLeaf()) {
+					depth++;
+					enterNode(gs, stack, depth);
+					continue;
+				}
+				childValue = gs.getValue();
+			}
+			// move back up from the child reached by the last action of the node at depth
+			// remove original action from game tree
+			int currentPlayer = player[depth];
+			game.removeActionFromGameState(gs, nextAction[depth] - 1, currentPlayer);
+			if (currentPlayer != nature) {
+				// treat as abstract action when calculating regrets
+				stack.actionUtilities[depth][abstractAction[depth]] = childValue;
 			}
-			return value;
+			value[depth] += probabilityOfAction[depth] * childValue;
+		}
+	}
+
+	private void touchNode(RegretUpdateLog updates) {
+		if (updates == null) {
+			numNodesTouched++;
 		} else {
-			return traversePlayerGameState(gs);
+			updates.numNodesTouched++;
 		}
 	}
 
 	/**
-	 * Perform iteration for non-nature player. This updates regrets.
-	 * @param player
-	 * @param gs
-	 * @param iteration
-	 * @return
+	 * Pushes the frame of the non-leaf node gs is at
 	 */
-	private double traversePlayerGameState(GameState gs) {
-		int numActions = game.getNumActionsAtInformationSet(gs);
+	private void enterNode(GameState gs, TraversalStack stack, int depth) {
 		int currentPlayer = gs.getCurrentPlayer();
-		
-		double sumOfUtilities = 0;
-		double[] actionUtilities = new double[numActions];
-		
+		stack.player[depth] = currentPlayer;
+		stack.numActions[depth] = currentPlayer == nature ? game.getNumActionsForNature(gs) : game.getNumActionsAtInformationSet(gs);
+		stack.nextAction[depth] = 0;
+		stack.value[depth] = 0;
+	}
+
+	/**
+	 * Called once all actions of the node at depth have been traversed. At player nodes, updates the regrets if the player is updated by the traversal
+	 * @return the value of the node
+	 */
+	private double exitNode(GameState gs, RegretUpdateLog updates, TraversalStack stack, int depth) {
+		int currentPlayer = stack.player[depth];
+		double sumOfUtilities = stack.value[depth];
+		if (currentPlayer == nature || (updatingPlayer != 0 && updatingPlayer != currentPlayer)) {
+			return sumOfUtilities;
+		}
+		// Every abstract action read below was written by descend or ascend, so the row needs no clearing
+		double[] utilities = stack.actionUtilities[depth];
+		int numActions = stack.numActions[depth];
+		int utilityMultiplier = currentPlayer == player1 ? 1 : -1;
+		int informationSetId = gs.getCurrentInformationSetId();
+		// The reach probabilities are the same for every action, as the game state is restored after each one
+		double probabilityWithoutPlayer = gs.getProbabilityWithoutPlayer(currentPlayer);
+		double probabilityWithPlayer = gs.getProbabilityWithPlayer(currentPlayer);
 		for (int originalAction = 0; originalAction < numActions; originalAction++) {
-			int abstractAction = game.getAbstractActionMapping(gs, originalAction);
-			// use the abstract action probability
-			double probabilityOfAction = getProbabilityOfAction(gs, abstractAction);
-			// take original action in game tree
-			game.updateGameStateWithAction(gs, originalAction, probabilityOfAction);
-			// treat as abstract action when calculating regrets
-			actionUtilities[abstractAction] = traverseGameState(gs);
-			// remove original action from game tree
-			game.removeActionFromGameState(gs, originalAction, currentPlayer);
 			// treat as abstract action when calculating regrets
-			sumOfUtilities += probabilityOfAction * actionUtilities[abstractAction];
-		}
-		// Perform second loop to update regret table, redundant check for whether player is nature
-		if (gs.getCurrentPlayer() != nature) {
-			int utilityMultiplier = currentPlayer == player1 ? 1 : -1;
-			for (int originalAction = 0; originalAction < numActions; originalAction++) {
-				int informationSetId = gs.getCurrentInformationSetId();
-				// treat as abstract action when calculating regrets
-				int action = game.getAbstractActionMapping(gs, originalAction);
-				regretTable[currentPlayer][gs.getCurrentInformationSetId()][action] += utilityMultiplier * gs.getProbabilityWithoutPlayer(currentPlayer) * (actionUtilities[action] - sumOfUtilities);
+			int action = game.getAbstractActionMapping(gs, originalAction);
+			double regret = utilityMultiplier * probabilityWithoutPlayer * (utilities[action] - sumOfUtilities);
+			if (updates == null) {
+				regretTable[currentPlayer][informationSetId][action] += regret;
 				// TODO should this be a sum of some sorts? Imperfect recall may cause some funky behavior
-				informationSetProbabilityForPlayer[currentPlayer][gs.getCurrentInformationSetId()] += gs.getProbabilityWithPlayer(currentPlayer);
+				informationSetProbabilityForPlayer[currentPlayer][informationSetId] += probabilityWithPlayer;
+			} else {
+				updates.add(currentPlayer, informationSetId, action, regret);
+				updates.add(currentPlayer, informationSetId, RegretUpdateLog.REACH_PROBABILITY, probabilityWithPlayer);
 			}
 		}
-
 		return sumOfUtilities;
 	}
 	
 
 	/**
-	 * Updates the current strategy for gs.getCurrentPlayer() based on the regret tables
-	 * @param gs
+	 * Updates the current strategy for both players based on the regret tables
+	 */
+	protected void regretMatch() {
+		for (int player = 1; player < 3; player++) {
+			regretMatch(player);
+		}
+	}
+
+	/**
+	 * Adds the current strategy of the player, weighted by the information set reach probabilities, to the averaged strategy, and updates the current strategy based on the regret table
+	 * @param player
+	 */
+	protected void regretMatch(int player) {
+		for (int informationSetId = 0; informationSetId < game.getNumInformationSets(player); informationSetId++) {
+			// We only need to update regret for abstracted information sets. Rows are also null for information sets not held by a DistributedCFRWorker
+			if (game.informationSetAbstracted(player, informationSetId) || regretTable[player][informationSetId] == null) {
+				continue;
+			}
+			
+			double regretSum = 0;
+			int numActions = game.getNumActionsAtInformationSet(player, informationSetId);
+			
+			for (int action = 0; action < numActions; action++) {
+				regretSum += Math.max(0, regretTable[player][informationSetId][action]);
+				averagedStrategy[player][informationSetId][action] += informationSetProbabilityForPlayer[player][informationSetId] * currentStrategy[player][informationSetId][action];
+			}
+			
+			double probabilitySum = 0;
+			for (int action = 0; action < numActions; action++) {
+				if (regretSum > 0) {
+					currentStrategy[player][informationSetId][action] = Math.max(0, regretTable[player][informationSetId][action]) / regretSum;
+				} else {
+					currentStrategy[player][informationSetId][action] = 1.0 / numActions;
+				}
+				probabilitySum += currentStrategy[player][informationSetId][action];
+			}
+			assert probabilitySum > 0.99999999 && probabilitySum < 1.00000001;
+			if (regretBasedPruning) {
+				updatePruning(player, informationSetId);
+			}
+		}
+	}
+
+	/**
+	 * Warm starts the solver from a strategy profile, putting it in a state as if CFR had converged to the profile over the given number of iterations.
+	 * The profile is indexed by the original information sets and actions of the game, as returned by getStrategyProfile, so it can come from a solver for a coarser or different abstraction
+	 * of the same game, including one applied to this game before the current abstraction replaced it. To warm start from a checkpoint, restore it into a solver for the game and abstraction it was saved with,
+	 * and pass the getStrategyProfile of that solver.
+	 * The profile is mapped through the abstraction of this solver, summing the probabilities of the original actions over the information sets merged into each abstract one, and becomes the current strategy.
+	 * The averaged strategy is set to iterations times the profile weighted by the reach probabilities of the player, scaled by getAveragedStrategyWeight for solvers that weight later iterations more.
+	 * The regrets at an information set are set to the profile times the reach probability of the opponents and chance, half the payoff range of the game, and the square root of iterations, which is the order
+	 * CFR keeps cumulative regrets at. Regret matching reproduces the profile, and iterations move away from it as fast as CFR would from a strategy it has converged to.
+	 * Any previous tables are discarded, and the solver continues from iteration number iterations.
+	 * @param strategyProfile indexed as [player][informationSetId][actionId]. Rows that are null, or sum to zero over an abstract information set, are treated as uniform
+	 * @param iterations the number of iterations the profile counts for. The more, the longer the regrets and the averaged strategy stay close to the profile, so about the number of iterations
+	 *   the profile was computed with if the game is unchanged, and fewer for a profile from a coarser abstraction
 	 */
-	private void regretMatch() {
+	public void warmStart(double[][][] strategyProfile, int iterations) {
+		if (iterations < 1) {
+			throw new IllegalArgumentException("A warm start must count for at least one iteration");
+		}
+		double[][] opponentReach = new double[3][];
+		for (int player = 1; player < 3; player++) {
+			if (strategyProfile[player].length != game.getNumInformationSets(player)) {
+				throw new IllegalArgumentException("The strategy profile has " + strategyProfile[player].length + " information sets for player " + player + ", the game has " + game.getNumInformationSets(player));
+			}
+			for (int informationSetId = 0; informationSetId < game.getNumInformationSets(player); informationSetId++) {
+				if (regretTable[player][informationSetId] != null) {
+					Arrays.fill(regretTable[player][informationSetId], 0);
+					Arrays.fill(averagedStrategy[player][informationSetId], 0);
+					Arrays.fill(currentStrategy[player][informationSetId], 0);
+				}
+			}
+			for (int informationSetId = 0; informationSetId < game.getNumInformationSets(player); informationSetId++) {
+				int abstractInformationSetId = game.getAbstractInformationSetId(player, informationSetId);
+				if (strategyProfile[player][informationSetId] == null || currentStrategy[player][abstractInformationSetId] == null) {
+					continue;
+				}
+				for (int actionId = 0; actionId < game.getNumActionsAtInformationSet(player, informationSetId); actionId++) {
+					currentStrategy[player][abstractInformationSetId][game.getAbstractActionMapping(player, informationSetId, actionId)] += strategyProfile[player][informationSetId][actionId];
+				}
+			}
+			for (int informationSetId = 0; informationSetId < game.getNumInformationSets(player); informationSetId++) {
+				double[] strategy = currentStrategy[player][informationSetId];
+				if (game.informationSetAbstracted(player, informationSetId) || strategy == null) {
+					continue;
+				}
+				double sum = 0;
+				for (int action = 0; action < strategy.length; action++) {
+					sum += strategy[action];
+				}
+				for (int action = 0; action < strategy.length; action++) {
+					strategy[action] = sum > 0 ? strategy[action] / sum : 1.0 / strategy.length;
+				}
+			}
+			opponentReach[player] = new double[game.getNumInformationSets(player)];
+			Arrays.fill(informationSetProbabilityForPlayer[player], 0);
+		}
+		computeWarmStartReach(game.getInitialGameState(), opponentReach);
+
+		double averagedStrategyWeight = getAveragedStrategyWeight(iterations);
+		// Half the payoff range, which is the largest payoff for games centred on zero. The regrets are the same if all payoffs are shifted by a constant
+		double regretScale = Math.sqrt(iterations) * (game.getLargestPayoff() - game.getSmallestPayoff()) / 2;
 		for (int player = 1; player < 3; player++) {
 			for (int informationSetId = 0; informationSetId < game.getNumInformationSets(player); informationSetId++) {
-				// We only need to update regret for abstracted information sets
+				if (game.informationSetAbstracted(player, informationSetId) || regretTable[player][informationSetId] == null) {
+					continue;
+				}
+				double[] strategy = currentStrategy[player][informationSetId];
+				for (int action = 0; action < strategy.length; action++) {
+					regretTable[player][informationSetId][action] = regretScale * opponentReach[player][informationSetId] * strategy[action];
+					averagedStrategy[player][informationSetId][action] = averagedStrategyWeight * informationSetProbabilityForPlayer[player][informationSetId] * strategy[action];
+				}
+				// The pruning windows of the previous tables no longer hold
+				if (prunedUntilIteration != null) {
+					Arrays.fill(prunedUntilIteration[player][informationSetId], 0);
+				}
+			}
+		}
+		totalIterationsRun = iterations;
+	}
+
+	/**
+	 * Sums, over the nodes of each information set below gs under the current strategy, the reach probability of the opponents and chance into opponentReach,
+	 * and the reach probability of the player into informationSetProbabilityForPlayer, once for each action as the traversals of an iteration do
+	 * @param gs
+	 * @param opponentReach indexed as [player][informationSetId]
+	 */
+	private void computeWarmStartReach(GameState gs, double[][] opponentReach) {
+		if (gs.isLeaf()) {
+			return;
+		}
+		int player = gs.getCurrentPlayer();
+		int numActions = game.getNumActions(gs);
+		if (player != nature) {
+			int informationSetId = gs.getCurrentInformationSetId();
+			opponentReach[player][informationSetId] += gs.getProbabilityWithoutPlayer(player);
+			informationSetProbabilityForPlayer[player][informationSetId] += numActions * gs.getProbabilityWithPlayer(player);
+		}
+		for (int action = 0; action < numActions; action++) {
+			double probability = player == nature ? game.getProbabilityOfNatureAction(gs, action) : currentStrategy[player][gs.getCurrentInformationSetId()][game.getAbstractActionMapping(gs, action)];
+			game.updateGameStateWithAction(gs, action, probability);
+			computeWarmStartReach(gs, opponentReach);
+			game.removeActionFromGameState(gs, action, player);
+		}
+	}
+
+	/**
+	 * @param iterations
+	 * @return the total weight of the first iterations in the averaged strategy, relative to the weight of an iteration with reach probability 1
+	 */
+	protected double getAveragedStrategyWeight(int iterations) {
+		return iterations;
+	}
+
+	/**
+	 * Starts pruning the actions at the information set that have zero probability in the current strategy, for as many iterations as their regret is guaranteed to stay nonpositive,
+	 * and resumes pruned actions whose window has passed or that the current strategy plays
+	 * @param player
+	 * @param informationSetId
+	 */
+	private void updatePruning(int player, int informationSetId) {
+		int[] prunedUntil = prunedUntilIteration[player][informationSetId];
+		for (int action = 0; action < prunedUntil.length; action++) {
+			boolean wasPruned = prunedUntil[action] >= totalIterationsRun;
+			boolean pruned = false;
+			if (currentStrategy[player][informationSetId][action] == 0) {
+				if (prunedUntil[action] > totalIterationsRun) {
+					continue; // still within its window
+				}
+				double iterations = Math.floor(-regretTable[player][informationSetId][action] / maxRegretIncrease[player][informationSetId][action]);
+				if (iterations >= 1) {
+					prunedUntil[action] = totalIterationsRun + (int) Math.min(iterations, Integer.MAX_VALUE - totalIterationsRun);
+					pruned = true;
+				}
+			} else if (prunedUntil[action] > totalIterationsRun) {
+				// All regrets at the information set dropped to zero or below, so the current strategy is uniform and plays the action
+				prunedUntil[action] = totalIterationsRun;
+			}
+			if (pruned && !wasPruned) {
+				numActionsPruned++;
+			} else if (!pruned && wasPruned) {
+				numActionsResumed++;
+			}
+		}
+	}
+
+	/**
+	 * Enables or disables regret-based pruning. When enabled, an action with negative regret and zero probability in the current strategy is skipped by the traversals
+	 * for floor(-regret / maxRegretIncrease) iterations. maxRegretIncrease is the total chance probability of the nodes in the information set times the difference between
+	 * the largest payoff to the player below the action and the smallest payoff to the player below the information set.
+	 * While skipped, its regret is updated as if the action had the largest payoff below it, which overestimates the regret of the skipped iterations,
+	 * so the regret stays nonpositive for the whole window, and the action is traversed again when it ends.
+	 * There is no catch-up when a skipped action is traversed again: the regrets of the information sets of the player below it stay frozen for the window, and their strategies with them.
+	 * Convergence still holds, as the regret of the skipped action bounds the gain of any deviation in its subtree during the window, since it is updated with the largest payoff below it.
+	 * The descendants then only need low regret over the iterations they are traversed in, which regret matching gives them, as it only sees those iterations.
+	 * The opponent's regrets below the action would not change in the window either, as their counterfactual reach includes the zero probability of the action.
+	 * Not sound for solvers that shrink negative regrets.
+	 * @param regretBasedPruning
+	 */
+	public void setRegretBasedPruning(boolean regretBasedPruning) {
+		if (regretBasedPruning && prunedUntilIteration == null) {
+			initializePruning();
+		}
+		this.regretBasedPruning = regretBasedPruning;
+	}
+
+	public boolean isRegretBasedPruning() {
+		return regretBasedPruning;
+	}
+
+	private void initializePruning() {
+		prunedUntilIteration = new int[3][][];
+		largestActionPayoff = new double[3][][];
+		maxRegretIncrease = new double[3][][];
+		double[][] smallestPayoff = new double[3][]; // indexed as [player][informationSetId]
+		double[][] chanceProbability = new double[3][]; // indexed as [player][informationSetId]
+		for (int player = 1; player < 3; player++) {
+			int numInformationSets = game.getNumInformationSets(player);
+			prunedUntilIteration[player] = new int[numInformationSets][];
+			largestActionPayoff[player] = new double[numInformationSets][];
+			maxRegretIncrease[player] = new double[numInformationSets][];
+			smallestPayoff[player] = new double[numInformationSets];
+			Arrays.fill(smallestPayoff[player], Double.MAX_VALUE);
+			chanceProbability[player] = new double[numInformationSets];
+			for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
 				if (game.informationSetAbstracted(player, informationSetId)) {
 					continue;
 				}
-				
-				double regretSum = 0;
 				int numActions = game.getNumActionsAtInformationSet(player, informationSetId);
-				
-				for (int action = 0; action < numActions; action++) {
-					regretSum += Math.max(0, regretTable[player][informationSetId][action]);
-					averagedStrategy[player][informationSetId][action] += informationSetProbabilityForPlayer[player][informationSetId] * currentStrategy[player][informationSetId][action];
-				}
-				
-				double probabilitySum = 0;
-				for (int action = 0; action < numActions; action++) {
-					if (regretSum > 0) {
-						currentStrategy[player][informationSetId][action] = Math.max(0, regretTable[player][informationSetId][action]) / regretSum;
-					} else {
-						currentStrategy[player][informationSetId][action] = 1.0 / numActions;
-					}
-					probabilitySum += currentStrategy[player][informationSetId][action];
+				prunedUntilIteration[player][informationSetId] = new int[numActions];
+				largestActionPayoff[player][informationSetId] = new double[numActions];
+				Arrays.fill(largestActionPayoff[player][informationSetId], -Double.MAX_VALUE);
+				maxRegretIncrease[player][informationSetId] = new double[numActions];
+			}
+		}
+		computePayoffBounds(game.getInitialGameState(), 1, smallestPayoff, chanceProbability);
+		for (int player = 1; player < 3; player++) {
+			for (int informationSetId = 0; informationSetId < maxRegretIncrease[player].length; informationSetId++) {
+				if (maxRegretIncrease[player][informationSetId] == null) continue;
+				for (int action = 0; action < maxRegretIncrease[player][informationSetId].length; action++) {
+					maxRegretIncrease[player][informationSetId][action] = chanceProbability[player][informationSetId] * Math.max(0, largestActionPayoff[player][informationSetId][action] - smallestPayoff[player][informationSetId]);
 				}
-				assert probabilitySum > 0.99999999 && probabilitySum < 1.00000001;
 			}
 		}
 	}
 
+	/**
+	 * Computes largestActionPayoff, along with the smallest payoff to the player below each information set and the total chance probability of its nodes
+	 * @param gs
+	 * @param probability product of the probabilities of the nature actions leading to gs
+	 * @param smallestPayoff indexed as [player][informationSetId]
+	 * @param chanceProbability indexed as [player][informationSetId]
+	 * @return the smallest and largest leaf value below gs, from the perspective of Player 1
+	 */
+	private double[] computePayoffBounds(GameState gs, double probability, double[][] smallestPayoff, double[][] chanceProbability) {
+		if (gs.isLeaf()) {
+			return new double[] {gs.getValue(), gs.getValue()};
+		}
+		double[] bounds = new double[] {Double.MAX_VALUE, -Double.MAX_VALUE};
+		if (gs.getCurrentPlayer() == nature) {
+			for (int action = 0; action < game.getNumActionsForNature(gs); action++) {
+				double probabilityOfAction = getProbabilityOfAction(gs, action);
+				game.updateGameStateWithAction(gs, action, probabilityOfAction);
+				double[] childBounds = computePayoffBounds(gs, probability * probabilityOfAction, smallestPayoff, chanceProbability);
+				game.removeActionFromGameState(gs, action, nature);
+				bounds[0] = Math.min(bounds[0], childBounds[0]);
+				bounds[1] = Math.max(bounds[1], childBounds[1]);
+			}
+			return bounds;
+		}
+		int currentPlayer = gs.getCurrentPlayer();
+		int informationSetId = gs.getCurrentInformationSetId();
+		chanceProbability[currentPlayer][informationSetId] += probability;
+		for (int originalAction = 0; originalAction < game.getNumActionsAtInformationSet(gs); originalAction++) {
+			int action = game.getAbstractActionMapping(gs, originalAction);
+			game.updateGameStateWithAction(gs, originalAction, 1);
+			double[] childBounds = computePayoffBounds(gs, probability, smallestPayoff, chanceProbability);
+			game.removeActionFromGameState(gs, originalAction, currentPlayer);
+			double largestChildPayoff = currentPlayer == player1 ? childBounds[1] : -childBounds[0];
+			largestActionPayoff[currentPlayer][informationSetId][action] = Math.max(largestActionPayoff[currentPlayer][informationSetId][action], largestChildPayoff);
+			bounds[0] = Math.min(bounds[0], childBounds[0]);
+			bounds[1] = Math.max(bounds[1], childBounds[1]);
+		}
+		double smallestNodePayoff = currentPlayer == player1 ? bounds[0] : -bounds[1];
+		smallestPayoff[currentPlayer][informationSetId] = Math.min(smallestPayoff[currentPlayer][informationSetId], smallestNodePayoff);
+		return bounds;
+	}
+
 	/**
 	 * Uses gs.getCurrentInformationSetId() to look up the information set id, which will pull the abstracted information set if an abstraction is used.
 	 * However, action is assumed to be the correct one, so no abstraction map lookup is done. Thus, calling methods should performing mapping if needed.
@@ -317,15 +839,10 @@ public class CounterFactualRegretSolver extends ZeroSumGameSolver {
 	// 
 	private double getProbabilityOfAction(GameState gs, int action) {
 		if (gs.getCurrentPlayer() == nature) {
-			try {
-				return game.getProbabilityOfNatureAction(gs, action);
-			} catch (Exception e) {
-				e.printStackTrace();
-			}
+			return game.getProbabilityOfNatureAction(gs, action);
 		} else {
 			return currentStrategy[gs.getCurrentPlayer()][gs.getCurrentInformationSetId()][action];
 		}
-		return 0; // failure
 	}
 
 	public int getNumNodesTouched() {
@@ -336,26 +853,91 @@ public class CounterFactualRegretSolver extends ZeroSumGameSolver {
 		this.numNodesTouched = numNodesTouched;
 	}
 
-}
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
+	/**
+	 * @return the number of times regret-based pruning started skipping an action
+	 */
+	public int getNumActionsPruned() {
+		return numActionsPruned;
+	}
 
+	/**
+	 * @return the number of times regret-based pruning stopped skipping an action
+	 */
+	public int getNumActionsResumed() {
+		return numActionsResumed;
+	}
 
 
+	/**
+	 * A subtree rooted at the first non-nature node reached by a sequence of nature actions from the root
+	 */
+	class ChanceSubtree {
+		final int[] actions; // nature actions leading to the root of the subtree
+		final double[] probabilities; // probability of each nature action
+		final RegretUpdateLog updates = new RegretUpdateLog();
+		final TraversalStack stack = new TraversalStack(); // stack of the traversal of the subtree
+		GameState gameState; // state at the root of the subtree, created by the first traversal and restored by every traversal
+
+		ChanceSubtree(int[] actions, double[] probabilities) {
+			this.actions = actions;
+			this.probabilities = probabilities;
+		}
+	}
 
+	/**
+	 * Frames of the nodes on the path from the root to the node a traversal is at, indexed by the depth of the node
+	 */
+	class TraversalStack {
+		final double[][] actionUtilities = new double[game.getMaxDepth()][game.getMaxNumActions()]; // indexed as [depth][action]. Value of each action of the player node at depth traversed so far
+		final int[] player = new int[game.getMaxDepth()]; // indexed as [depth]. Player to act at the node
+		final int[] numActions = new int[game.getMaxDepth()]; // indexed as [depth]
+		final int[] nextAction = new int[game.getMaxDepth()]; // indexed as [depth]. The next original action to descend into
+		final int[] abstractAction = new int[game.getMaxDepth()]; // indexed as [depth]. Abstract action of the action the traversal descended into last
+		final double[] probabilityOfAction = new double[game.getMaxDepth()]; // indexed as [depth]. Probability of the action the traversal descended into last
+		final double[] value = new double[game.getMaxDepth()]; // indexed as [depth]. Sum over the actions traversed so far of their probability times their value
+	}
 
+	/**
+	 * Regret table and information set reach probability updates, in the order they were made by a traversal
+	 */
+	class RegretUpdateLog {
+		static final int REACH_PROBABILITY = -1; // action of an update to informationSetProbabilityForPlayer
+
+		int size;
+		int[] player = new int[16]; // indexed as [update]
+		int[] informationSetId = new int[16]; // indexed as [update]
+		int[] action = new int[16]; // indexed as [update]. REACH_PROBABILITY for reach probability updates
+		double[] value = new double[16]; // indexed as [update]
+		int numNodesTouched;
+
+		void clear() {
+			size = 0;
+			numNodesTouched = 0;
+		}
 
+		void add(int updatePlayer, int updateInformationSetId, int updateAction, double updateValue) {
+			if (size == value.length) {
+				player = Arrays.copyOf(player, 2 * size);
+				informationSetId = Arrays.copyOf(informationSetId, 2 * size);
+				action = Arrays.copyOf(action, 2 * size);
+				value = Arrays.copyOf(value, 2 * size);
+			}
+			player[size] = updatePlayer;
+			informationSetId[size] = updateInformationSetId;
+			action[size] = updateAction;
+			value[size] = updateValue;
+			size++;
+		}
 
+		void apply() {
+			for (int update = 0; update < size; update++) {
+				if (action[update] == REACH_PROBABILITY) {
+					informationSetProbabilityForPlayer[player[update]][informationSetId[update]] += value[update];
+				} else {
+					regretTable[player[update]][informationSetId[update]][action[update]] += value[update];
+				}
+			}
+			CounterFactualRegretSolver.this.numNodesTouched += numNodesTouched;
+		}
+	}
+}
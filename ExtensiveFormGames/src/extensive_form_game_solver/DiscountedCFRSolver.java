@@ -0,0 +1,103 @@
+package extensive_form_game_solver;
+
+import extensive_form_game.GameGenerator;
+
+/**
+ * Discounted CFR (Brown and Sandholm 2019). After iteration t, positive cumulative regrets are multiplied by t^alpha / (t^alpha + 1),
+ * negative cumulative regrets by t^beta / (t^beta + 1), and the averaged strategy by (t / (t+1))^gamma, so iteration t contributes to the average with weight proportional to t^gamma.
+ * The players are updated in alternation, as in CFRPlusSolver.
+ * Uses the same tables and abstraction mapping as CounterFactualRegretSolver.
+ */
+public class DiscountedCFRSolver extends CounterFactualRegretSolver {
+	double alpha;
+	double beta;
+	double gamma;
+
+	/**
+	 * Creates a solver with the parameters alpha = 1.5, beta = 0, gamma = 2 recommended by Brown and Sandholm
+	 * @param game
+	 */
+	public DiscountedCFRSolver(GameGenerator game) {
+		this(game, 1.5, 0, 2);
+	}
+
+	public DiscountedCFRSolver(GameGenerator game, double alpha, double beta, double gamma) {
+		super(game);
+		this.alpha = alpha;
+		this.beta = beta;
+		this.gamma = gamma;
+		alternatingUpdates = true;
+	}
+
+	/**
+	 * Discounts the regrets of the player and the averaged strategy of the earlier iterations, then adds the current strategy to the averaged strategy and updates it.
+	 * Discounting the regrets before regret matching gives the same current strategy, since the positive regrets at an information set are all scaled by the same factor
+	 */
+	@Override
+	protected void regretMatch(int player) {
+		double t = totalIterationsRun;
+		double positiveRegretDiscount = Math.pow(t, alpha) / (Math.pow(t, alpha) + 1);
+		double negativeRegretDiscount = Math.pow(t, beta) / (Math.pow(t, beta) + 1);
+		// Discounting the average by ((t-1)/t)^gamma before adding iteration t gives the same normalized average as discounting it after iteration t
+		double averageDiscount = Math.pow((t - 1) / t, gamma);
+		for (int informationSetId = 0; informationSetId < game.getNumInformationSets(player); informationSetId++) {
+			if (game.informationSetAbstracted(player, informationSetId)) {
+				continue;
+			}
+			double[] regrets = regretTable[player][informationSetId];
+			double[] averaged = averagedStrategy[player][informationSetId];
+			for (int action = 0; action < regrets.length; action++) {
+				regrets[action] *= regrets[action] > 0 ? positiveRegretDiscount : negativeRegretDiscount;
+				averaged[action] *= averageDiscount;
+			}
+		}
+		super.regretMatch(player);
+	}
+
+	/**
+	 * After the first iterations, the averaged strategy holds iteration t with weight (t / iterations)^gamma
+	 */
+	@Override
+	protected double getAveragedStrategyWeight(int iterations) {
+		double weight = 0;
+		for (int t = 1; t <= iterations; t++) {
+			weight += Math.pow((double) t / iterations, gamma);
+		}
+		return weight;
+	}
+
+	/**
+	 * Regret-based pruning is not supported, as discounting moves negative regrets toward zero faster than the pruning windows allow for
+	 */
+	@Override
+	public void setRegretBasedPruning(boolean regretBasedPruning) {
+		if (regretBasedPruning) {
+			throw new IllegalArgumentException("Regret-based pruning is not supported by Discounted CFR");
+		}
+		super.setRegretBasedPruning(regretBasedPruning);
+	}
+
+	public double getAlpha() {
+		return alpha;
+	}
+
+	public void setAlpha(double alpha) {
+		this.alpha = alpha;
+	}
+
+	public double getBeta() {
+		return beta;
+	}
+
+	public void setBeta(double beta) {
+		this.beta = beta;
+	}
+
+	public double getGamma() {
+		return gamma;
+	}
+
+	public void setGamma(double gamma) {
+		this.gamma = gamma;
+	}
+}
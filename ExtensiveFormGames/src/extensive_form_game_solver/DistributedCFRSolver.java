@@ -0,0 +1,291 @@
+package extensive_form_game_solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import extensive_form_game.GameGenerator;
+
+/**
+ * Coordinator of a CFR run distributed over DistributedCFRWorker processes, connected over TCP on the loopback interface.
+ * Each iteration, the coordinator tells every worker to traverse its subtrees, receives the updates of each worker to the information sets it shares with other workers,
+ * sums them in the order of the workers, and sends the sums back. The coordinator keeps no tables during the run; the averaged strategies are collected from the workers by getStrategyProfile.
+ * The strategies computed are the ones of CounterFactualRegretSolver, up to the order the updates of the workers are summed in.
+ * Protocol, all values big-endian:
+ *   worker handshake: int MAGIC, int workerIndex, int numWorkers; for each player: int numInformationSets, int numReached, int informationSetId[numReached]
+ *   coordinator handshake: for each player: int numShared, int informationSetId[numShared]
+ *   ITERATE: worker replies with int nodesTouched, double sharedUpdates[], and receives the summed double sharedUpdates[]
+ *   SEND_STRATEGY: worker replies with the averaged strategy of each information set it reaches, in the order of the handshake
+ *   STOP: worker closes the connection
+ */
+public class DistributedCFRSolver extends ZeroSumGameSolver implements Closeable {
+	static final int MAGIC = ('D' << 24) | ('C' << 16) | ('F' << 8) | 'R';
+	static final int ITERATE = 1;
+	static final int SEND_STRATEGY = 2;
+	static final int STOP = 3;
+
+	private final int numWorkers;
+	private final ServerSocket serverSocket;
+	private Socket[] sockets;
+	private DataInputStream[] in;
+	private DataOutputStream[] out;
+
+	private int[][][] reachedInformationSets; // indexed as [worker][player][index]
+	private int[][] sharedEntryOffsets; // indexed as [worker][entry of the worker]. Offset of each entry of the shared updates of the worker into summedUpdates
+	private double[] summedUpdates; // for each information set reached by more than one worker, in increasing order by player and id: the reach probability update, then the regret update of each action
+
+	int totalIterationsRun = 0;
+	long numNodesTouched = 0;
+
+	/**
+	 * Opens a server socket on the loopback interface. The workers are accepted by acceptWorkers
+	 * @param game
+	 * @param numWorkers
+	 * @param port 0 for any free port, see getPort
+	 * @throws IOException
+	 */
+	public DistributedCFRSolver(GameGenerator game, int numWorkers, int port) throws IOException {
+		super(game);
+		if (numWorkers < 1) {
+			throw new IllegalArgumentException("At least one worker is needed");
+		}
+		this.numWorkers = numWorkers;
+		serverSocket = new ServerSocket(port, numWorkers, InetAddress.getLoopbackAddress());
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Blocks until all workers have connected, and tells each which of the information sets it reaches are shared with other workers
+	 * @throws IOException if a worker sends an invalid handshake
+	 */
+	public void acceptWorkers() throws IOException {
+		sockets = new Socket[numWorkers];
+		in = new DataInputStream[numWorkers];
+		out = new DataOutputStream[numWorkers];
+		reachedInformationSets = new int[numWorkers][3][];
+		for (int connection = 0; connection < numWorkers; connection++) {
+			Socket socket = serverSocket.accept();
+			socket.setTcpNoDelay(true);
+			DataInputStream socketIn = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			if (socketIn.readInt() != MAGIC) {
+				socket.close();
+				throw new IOException("Connection is not from a DistributedCFRWorker");
+			}
+			int worker = socketIn.readInt();
+			if (socketIn.readInt() != numWorkers || worker < 0 || worker >= numWorkers || sockets[worker] != null) {
+				socket.close();
+				throw new IOException("Worker " + worker + " does not fit a run with " + numWorkers + " workers");
+			}
+			sockets[worker] = socket;
+			in[worker] = socketIn;
+			out[worker] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			for (int player = 1; player < 3; player++) {
+				if (socketIn.readInt() != game.getNumInformationSets(player)) {
+					throw new IOException("Worker " + worker + " was started with a different game");
+				}
+				reachedInformationSets[worker][player] = new int[socketIn.readInt()];
+				for (int index = 0; index < reachedInformationSets[worker][player].length; index++) {
+					reachedInformationSets[worker][player][index] = socketIn.readInt();
+				}
+			}
+		}
+		computeSharedInformationSets();
+	}
+
+	private void computeSharedInformationSets() throws IOException {
+		int[][] offsets = new int[3][];
+		int numEntries = 0;
+		for (int player = 1; player < 3; player++) {
+			int[] numWorkersReaching = new int[game.getNumInformationSets(player)];
+			for (int worker = 0; worker < numWorkers; worker++) {
+				for (int informationSetId : reachedInformationSets[worker][player]) {
+					numWorkersReaching[informationSetId]++;
+				}
+			}
+			offsets[player] = new int[numWorkersReaching.length];
+			for (int informationSetId = 0; informationSetId < numWorkersReaching.length; informationSetId++) {
+				if (numWorkersReaching[informationSetId] > 1) {
+					offsets[player][informationSetId] = numEntries;
+					numEntries += 1 + game.getNumActionsAtInformationSet(player, informationSetId);
+				} else {
+					offsets[player][informationSetId] = -1;
+				}
+			}
+		}
+		summedUpdates = new double[numEntries];
+
+		sharedEntryOffsets = new int[numWorkers][];
+		for (int worker = 0; worker < numWorkers; worker++) {
+			int numWorkerEntries = 0;
+			for (int player = 1; player < 3; player++) {
+				int numShared = 0;
+				for (int informationSetId : reachedInformationSets[worker][player]) {
+					if (offsets[player][informationSetId] >= 0) {
+						numShared++;
+						numWorkerEntries += 1 + game.getNumActionsAtInformationSet(player, informationSetId);
+					}
+				}
+				out[worker].writeInt(numShared);
+				for (int informationSetId : reachedInformationSets[worker][player]) {
+					if (offsets[player][informationSetId] >= 0) {
+						out[worker].writeInt(informationSetId);
+					}
+				}
+			}
+			out[worker].flush();
+
+			sharedEntryOffsets[worker] = new int[numWorkerEntries];
+			int entry = 0;
+			for (int player = 1; player < 3; player++) {
+				for (int informationSetId : reachedInformationSets[worker][player]) {
+					int offset = offsets[player][informationSetId];
+					if (offset >= 0) {
+						for (int i = 0; i <= game.getNumActionsAtInformationSet(player, informationSetId); i++) {
+							sharedEntryOffsets[worker][entry++] = offset + i;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public void solveGame() {
+		solveGame(10);
+	}
+
+	public void solveGame(int numIterations) {
+		runCFR(numIterations);
+	}
+
+	public void runCFR(int iterations) {
+		try {
+			if (sockets == null) {
+				acceptWorkers();
+			}
+			for (int iteration = 0; iteration < iterations; iteration++) {
+				totalIterationsRun++;
+				if (telemetry != null) {
+					telemetry.startIteration(numNodesTouched);
+				}
+				runIteration();
+				if (telemetry != null) {
+					telemetry.endIteration(this, totalIterationsRun, numNodesTouched);
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Lost connection to a worker", e);
+		}
+	}
+
+	private void runIteration() throws IOException {
+		for (int worker = 0; worker < numWorkers; worker++) {
+			out[worker].writeInt(ITERATE);
+			out[worker].flush();
+		}
+		// The workers traverse in parallel, and their replies are read and summed in the order of the workers
+		java.util.Arrays.fill(summedUpdates, 0);
+		for (int worker = 0; worker < numWorkers; worker++) {
+			numNodesTouched += in[worker].readInt();
+			for (int offset : sharedEntryOffsets[worker]) {
+				summedUpdates[offset] += in[worker].readDouble();
+			}
+		}
+		for (int worker = 0; worker < numWorkers; worker++) {
+			for (int offset : sharedEntryOffsets[worker]) {
+				out[worker].writeDouble(summedUpdates[offset]);
+			}
+			out[worker].flush();
+		}
+	}
+
+	@Override
+	public void printStrategyVarsAndGameValue() {
+	}
+
+	@Override
+	public void printGameValue() {
+	}
+
+	@Override
+	public double getValueOfGame() {
+		return game.computeGameValueForStrategies(getStrategyProfile());
+	}
+
+	/**
+	 * Collects the averaged strategies from the workers and normalizes them as CounterFactualRegretSolver does
+	 */
+	@Override
+	public double[][][] getStrategyProfile() {
+		double[][][] averagedStrategy = new double[3][][];
+		for (int player = 1; player < 3; player++) {
+			averagedStrategy[player] = new double[game.getNumInformationSets(player)][];
+		}
+		try {
+			for (int worker = 0; worker < numWorkers; worker++) {
+				out[worker].writeInt(SEND_STRATEGY);
+				out[worker].flush();
+				for (int player = 1; player < 3; player++) {
+					for (int informationSetId : reachedInformationSets[worker][player]) {
+						double[] averaged = new double[game.getNumActionsAtInformationSet(player, informationSetId)];
+						for (int action = 0; action < averaged.length; action++) {
+							averaged[action] = in[worker].readDouble();
+						}
+						// Shared information sets have the same averaged strategy in every worker reaching them
+						averagedStrategy[player][informationSetId] = averaged;
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Lost connection to a worker", e);
+		}
+
+		return normalizeAveragedStrategy(game, averagedStrategy, false);
+	}
+
+	/**
+	 * Stops the workers and closes the connections
+	 */
+	@Override
+	public void close() throws IOException {
+		if (sockets != null) {
+			for (int worker = 0; worker < numWorkers; worker++) {
+				try {
+					out[worker].writeInt(STOP);
+					out[worker].flush();
+				} finally {
+					sockets[worker].close();
+				}
+			}
+		}
+		serverSocket.close();
+	}
+
+	public int getNumWorkers() {
+		return numWorkers;
+	}
+
+	/**
+	 * @return the number of information sets reached by more than one worker, whose updates go through the coordinator
+	 */
+	public int getNumSharedEntries() {
+		return summedUpdates.length;
+	}
+
+	public long getNumNodesTouched() {
+		return numNodesTouched;
+	}
+
+	public int getTotalIterationsRun() {
+		return totalIterationsRun;
+	}
+}
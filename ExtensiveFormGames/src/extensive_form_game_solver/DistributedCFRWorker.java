@@ -0,0 +1,284 @@
+package extensive_form_game_solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import extensive_form_game.BinaryGameFormat;
+import extensive_form_game.GameGenerator;
+import extensive_form_game.GameState;
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * A worker of DistributedCFRSolver. The subtrees below the chance nodes at the top of the game are divided between the workers, worker i taking every subtree whose index is i modulo the number of workers.
+ * Each iteration, the worker traverses its subtrees with the update rules of CounterFactualRegretSolver, and applies the updates to the information sets only it reaches directly.
+ * The updates to information sets shared with other workers are sent to the coordinator, which sends back their sums over all workers. The worker then regret matches,
+ * so the shared information sets have the same regrets and strategies in all workers that reach them. Rows of the tables are only kept for the information sets the worker reaches.
+ * Run as a separate process with main, or on a thread with connect and serve.
+ */
+public class DistributedCFRWorker extends CounterFactualRegretSolver {
+	private final int workerIndex;
+	private final int numWorkers;
+	private final List<ChanceSubtree> ownedSubtrees = new ArrayList<ChanceSubtree>();
+
+	private TIntArrayList[] reachedInformationSets; // indexed as [player]. Information sets reached by the subtrees of the worker, in increasing order
+	private int[][] sharedOffset; // indexed as [player][informationSetId]. Offset of the information set into sharedUpdates, -1 if not shared
+	private double[] sharedUpdates; // for each shared information set in increasing order by player and id: the reach probability update, followed by the regret update of each action
+
+	private Socket socket;
+	private DataInputStream in;
+	private DataOutputStream out;
+
+	public DistributedCFRWorker(GameGenerator game, int workerIndex, int numWorkers) {
+		super(game, false);
+		if (workerIndex < 0 || workerIndex >= numWorkers) {
+			throw new IllegalArgumentException("Worker index must be between 0 and the number of workers");
+		}
+		this.workerIndex = workerIndex;
+		this.numWorkers = numWorkers;
+		chanceSubtrees = new ArrayList<ChanceSubtree>();
+		collectChanceSubtrees(game.getInitialGameState(), new TIntArrayList(), new TDoubleArrayList());
+		for (int subtree = workerIndex; subtree < chanceSubtrees.size(); subtree += numWorkers) {
+			ownedSubtrees.add(chanceSubtrees.get(subtree));
+		}
+		findReachedInformationSets();
+	}
+
+	/**
+	 * Finds the information sets reached by the subtrees of the worker, and allocates table rows only for those.
+	 * The arrays indexed by information set id, and the reach probabilities, still have an entry for every information set of the game
+	 */
+	private void findReachedInformationSets() {
+		boolean[][] reached = new boolean[3][];
+		for (int player = 1; player < 3; player++) {
+			reached[player] = new boolean[game.getNumInformationSets(player)];
+		}
+		for (ChanceSubtree subtree : ownedSubtrees) {
+			GameState gs = game.getInitialGameState();
+			for (int i = 0; i < subtree.actions.length; i++) {
+				game.updateGameStateWithAction(gs, subtree.actions[i], subtree.probabilities[i]);
+			}
+			markReachedInformationSets(gs, reached);
+		}
+		reachedInformationSets = new TIntArrayList[3];
+		for (int player = 1; player < 3; player++) {
+			reachedInformationSets[player] = new TIntArrayList();
+			for (int informationSetId = 0; informationSetId < reached[player].length; informationSetId++) {
+				if (reached[player][informationSetId]) {
+					reachedInformationSets[player].add(informationSetId);
+				}
+			}
+		}
+		initializeDataStructures(reached);
+	}
+
+	private void markReachedInformationSets(GameState gs, boolean[][] reached) {
+		if (gs.isLeaf()) {
+			return;
+		}
+		int player = gs.getCurrentPlayer();
+		if (player != nature) {
+			reached[player][gs.getCurrentInformationSetId()] = true;
+		}
+		int numActions = game.getNumActions(gs);
+		for (int action = 0; action < numActions; action++) {
+			game.updateGameStateWithAction(gs, action, 1);
+			markReachedInformationSets(gs, reached);
+			game.removeActionFromGameState(gs, action, player);
+		}
+	}
+
+	/**
+	 * Connects to the coordinator and exchanges the information sets reached, learning which are shared with other workers
+	 * @param host
+	 * @param port
+	 * @throws IOException
+	 */
+	public void connect(String host, int port) throws IOException {
+		socket = new Socket(host, port);
+		socket.setTcpNoDelay(true);
+		in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		out.writeInt(DistributedCFRSolver.MAGIC);
+		out.writeInt(workerIndex);
+		out.writeInt(numWorkers);
+		for (int player = 1; player < 3; player++) {
+			out.writeInt(game.getNumInformationSets(player));
+			out.writeInt(reachedInformationSets[player].size());
+			for (int index = 0; index < reachedInformationSets[player].size(); index++) {
+				out.writeInt(reachedInformationSets[player].get(index));
+			}
+		}
+		out.flush();
+
+		sharedOffset = new int[3][];
+		int numSharedEntries = 0;
+		for (int player = 1; player < 3; player++) {
+			sharedOffset[player] = new int[game.getNumInformationSets(player)];
+			Arrays.fill(sharedOffset[player], -1);
+			int numShared = in.readInt();
+			for (int index = 0; index < numShared; index++) {
+				int informationSetId = in.readInt();
+				sharedOffset[player][informationSetId] = numSharedEntries;
+				numSharedEntries += 1 + regretTable[player][informationSetId].length;
+			}
+		}
+		sharedUpdates = new double[numSharedEntries];
+	}
+
+	/**
+	 * Runs the commands of the coordinator until it stops the worker, then closes the connection
+	 * @throws IOException
+	 */
+	public void serve() throws IOException {
+		try {
+			while (true) {
+				int command = in.readInt();
+				if (command == DistributedCFRSolver.ITERATE) {
+					runDistributedIteration();
+				} else if (command == DistributedCFRSolver.SEND_STRATEGY) {
+					sendAveragedStrategy();
+				} else if (command == DistributedCFRSolver.STOP) {
+					return;
+				} else {
+					throw new IOException("Unknown command " + command);
+				}
+			}
+		} finally {
+			socket.close();
+		}
+	}
+
+	private void runDistributedIteration() throws IOException {
+		totalIterationsRun++;
+		Arrays.fill(informationSetProbabilityForPlayer[1], 0);
+		Arrays.fill(informationSetProbabilityForPlayer[2], 0);
+		Arrays.fill(sharedUpdates, 0);
+		int iterationNodesTouched = 0;
+		for (ChanceSubtree subtree : ownedSubtrees) {
+			traverseChanceSubtree(subtree);
+			RegretUpdateLog updates = subtree.updates;
+			for (int update = 0; update < updates.size; update++) {
+				int player = updates.player[update];
+				int informationSetId = updates.informationSetId[update];
+				int action = updates.action[update];
+				int offset = sharedOffset[player][informationSetId];
+				if (offset >= 0) {
+					sharedUpdates[offset + 1 + action] += updates.value[update];
+				} else if (action == RegretUpdateLog.REACH_PROBABILITY) {
+					informationSetProbabilityForPlayer[player][informationSetId] += updates.value[update];
+				} else {
+					regretTable[player][informationSetId][action] += updates.value[update];
+				}
+			}
+			iterationNodesTouched += updates.numNodesTouched;
+		}
+		numNodesTouched += iterationNodesTouched;
+
+		out.writeInt(iterationNodesTouched);
+		for (int entry = 0; entry < sharedUpdates.length; entry++) {
+			out.writeDouble(sharedUpdates[entry]);
+		}
+		out.flush();
+
+		for (int entry = 0; entry < sharedUpdates.length; entry++) {
+			sharedUpdates[entry] = in.readDouble();
+		}
+		for (int player = 1; player < 3; player++) {
+			for (int index = 0; index < reachedInformationSets[player].size(); index++) {
+				int informationSetId = reachedInformationSets[player].get(index);
+				int offset = sharedOffset[player][informationSetId];
+				if (offset < 0) {
+					continue;
+				}
+				informationSetProbabilityForPlayer[player][informationSetId] += sharedUpdates[offset];
+				double[] regrets = regretTable[player][informationSetId];
+				for (int action = 0; action < regrets.length; action++) {
+					regrets[action] += sharedUpdates[offset + 1 + action];
+				}
+			}
+		}
+		regretMatch();
+	}
+
+	private void sendAveragedStrategy() throws IOException {
+		for (int player = 1; player < 3; player++) {
+			for (int index = 0; index < reachedInformationSets[player].size(); index++) {
+				double[] averaged = averagedStrategy[player][reachedInformationSets[player].get(index)];
+				for (int action = 0; action < averaged.length; action++) {
+					out.writeDouble(averaged[action]);
+				}
+			}
+		}
+		out.flush();
+	}
+
+	/**
+	 * Not supported, as the worker only has table rows for the information sets it reaches. The iterations are run by the coordinator through serve
+	 */
+	@Override
+	public void runCFR(int iterations) {
+		throw new IllegalArgumentException("DistributedCFRWorker runs the iterations of its coordinator, see serve");
+	}
+
+	/**
+	 * Not supported, as the worker only has table rows for the information sets it reaches. The iterations are run by the coordinator through serve
+	 */
+	@Override
+	public void runCFRParallel(int iterations, ForkJoinPool pool) {
+		throw new IllegalArgumentException("DistributedCFRWorker runs the iterations of its coordinator, see serve");
+	}
+
+	/**
+	 * Warm starting is not supported, as the worker only keeps the strategies of the information sets it reaches, and a warm start needs the reach probabilities of the whole game
+	 */
+	@Override
+	public void warmStart(double[][][] strategyProfile, int iterations) {
+		throw new IllegalArgumentException("Warm starting is not supported by DistributedCFRWorker");
+	}
+
+	public int getWorkerIndex() {
+		return workerIndex;
+	}
+
+	/**
+	 * @return the number of chance subtrees traversed by the worker
+	 */
+	public int getNumSubtrees() {
+		return ownedSubtrees.size();
+	}
+
+	/**
+	 * @param player
+	 * @return the number of information sets of the player reached by the worker, which are the ones it keeps table rows for
+	 */
+	public int getNumInformationSetsReached(int player) {
+		return reachedInformationSets[player].size();
+	}
+
+	/**
+	 * Usage: DistributedCFRWorker binaryGameFile host port workerIndex numWorkers
+	 * The game is memory-mapped, so workers on the same machine share its pages
+	 */
+	public static void main(String[] args) {
+		if (args.length != 5) {
+			System.out.println("Usage: DistributedCFRWorker binaryGameFile host port workerIndex numWorkers");
+			return;
+		}
+		try {
+			DistributedCFRWorker worker = new DistributedCFRWorker(BinaryGameFormat.read(args[0]), Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+			worker.connect(args[1], Integer.parseInt(args[2]));
+			worker.serve();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
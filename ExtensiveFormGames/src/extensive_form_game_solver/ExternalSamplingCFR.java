@@ -0,0 +1,189 @@
+package extensive_form_game_solver;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.distribution.UniformRealDistribution;
+
+import extensive_form_game.GameGenerator;
+import extensive_form_game.GameState;
+
+/**
+ * External-sampling Monte Carlo CFR (Lanctot et al. 2009). Each iteration traverses the game once for each player in turn. The updating player takes every action,
+ * while nature and the other player take a single sampled action, so the sampled counterfactual values are unbiased without importance weights.
+ * The other player samples one action per information set and traversal, drawn lazily on the first visit and stored in arrays indexed by information set, so every node of the information set reached
+ * by the traversal takes the same action. Nature nodes are sampled when visited, as each is visited at most once by a traversal.
+ * The averaged strategy of the other player is updated with its current strategy at every node of it visited. A node is visited with the probability of nature and the other player reaching it,
+ * which for perfect recall is the reach of the other player at the information set times a constant, so the average is weighted by the reach of the player in expectation.
+ * Uses the same abstraction mapping as CounterFactualRegretSolver.
+ */
+public class ExternalSamplingCFR extends MonteCarloCFR {
+	private final Traversal traversal;
+
+	public ExternalSamplingCFR(GameGenerator game) {
+		super(game);
+		traversal = new Traversal(game, createTable()) {
+			@Override
+			void regretMatch(int player, int informationSetId) {
+				MonteCarloCFR.regretMatch(regretTable[player][informationSetId], currentStrategy[player][informationSetId]);
+			}
+
+			@Override
+			void addRegrets(int player, int informationSetId, double[] regrets) {
+				double[] entries = regretTable[player][informationSetId];
+				for (int action = 0; action < entries.length; action++) {
+					entries[action] += regrets[action];
+				}
+			}
+
+			@Override
+			void addAveragedStrategy(int player, int informationSetId, double[] strategy) {
+				double[] entries = averagedStrategy[player][informationSetId];
+				for (int action = 0; action < entries.length; action++) {
+					entries[action] += strategy[action];
+				}
+			}
+		};
+	}
+
+	@Override
+	public void runCFR(int iterations) {
+		GameState gs = game.getInitialGameState();
+		for (int iteration = 0; iteration < iterations; iteration++) {
+			totalIterationsRun++;
+			if (telemetry != null) {
+				telemetry.startIteration(traversal.numNodesTouched);
+			}
+			traversal.runIteration(gs);
+			if (telemetry != null) {
+				telemetry.endIteration(this, totalIterationsRun, traversal.numNodesTouched);
+			}
+		}
+	}
+
+	/**
+	 * Reseeds the random generator used for sampling, making the iterations that follow reproducible
+	 * @param seed
+	 */
+	public void reseed(long seed) {
+		traversal.distribution.reseedRandomGenerator(seed);
+	}
+
+	@Override
+	public long getNumNodesTouched() {
+		return traversal.numNodesTouched;
+	}
+
+	/**
+	 * The traversals of external sampling, with their own random generator, samples and current strategies. ExternalSamplingCFR runs one, and ParallelExternalSamplingCFR one per worker.
+	 * Subclasses decide where the regrets and averaged strategy are kept, and compute the current strategy at an information set from the regrets.
+	 */
+	abstract static class Traversal {
+		private final GameGenerator game;
+		UniformRealDistribution distribution = new UniformRealDistribution(0, 1);
+		final double[][][] currentStrategy; // indexed as [player][informationSetId][actionId]
+		private final int[][] sampledAction = new int[3][]; // indexed as [player][informationSetId]. Original action sampled by the traversal in sampleTraversal
+		private final int[][] sampleTraversal = new int[3][]; // indexed as [player][informationSetId]. Traversal that sampledAction was drawn in, samples of earlier traversals are stale
+		private int numTraversals = 0;
+		private final double[][] actionValues; // indexed as [depth][action]. Scratch buffers of the traversals, the node of the updating player at depth d using row d
+		long numNodesTouched = 0;
+
+		/**
+		 * @param game
+		 * @param currentStrategy a table with a row for each information set that is not abstracted
+		 */
+		Traversal(GameGenerator game, double[][][] currentStrategy) {
+			this.game = game;
+			this.currentStrategy = currentStrategy;
+			for (int player = 1; player < 3; player++) {
+				sampledAction[player] = new int[game.getNumInformationSets(player)];
+				sampleTraversal[player] = new int[game.getNumInformationSets(player)];
+			}
+			actionValues = new double[game.getMaxDepth()][game.getMaxNumActions()];
+		}
+
+		/**
+		 * Updates currentStrategy at the information set based on its regrets
+		 */
+		abstract void regretMatch(int player, int informationSetId);
+
+		/**
+		 * Adds to the regret of each action at the information set
+		 */
+		abstract void addRegrets(int player, int informationSetId, double[] regrets);
+
+		/**
+		 * Adds the current strategy at the information set to its averaged strategy
+		 */
+		abstract void addAveragedStrategy(int player, int informationSetId, double[] strategy);
+
+		/**
+		 * Runs an iteration: a traversal for each player in turn
+		 * @param gs the root, which is restored before returning
+		 */
+		void runIteration(GameState gs) {
+			for (int player = 1; player < 3; player++) {
+				numTraversals++;
+				traverseGameState(gs, player);
+			}
+		}
+
+		/**
+		 * Traverses the subtree of gs, taking every action of updatingPlayer and a sampled action of nature and the other player, and updates the regrets of updatingPlayer.
+		 * The game state is restored before returning
+		 * @param gs
+		 * @param updatingPlayer
+		 * @return the sampled counterfactual value of gs for updatingPlayer, divided by the probability of nature and the other player reaching it
+		 */
+		private double traverseGameState(GameState gs, int updatingPlayer) {
+			numNodesTouched++;
+			if (gs.isLeaf()) {
+				return updatingPlayer == 1 ? gs.getValue() : -gs.getValue();
+			}
+
+			int currentPlayer = gs.getCurrentPlayer();
+			if (currentPlayer == 0) {
+				int action = sampleNatureAction(game, gs, distribution);
+				double probability = game.getProbabilityOfNatureAction(gs, action);
+				game.updateGameStateWithAction(gs, action, probability);
+				double value = traverseGameState(gs, updatingPlayer);
+				game.removeActionFromGameState(gs, action, 0);
+				return value;
+			}
+
+			int informationSetId = gs.getCurrentInformationSetId();
+			double[] strategy = currentStrategy[currentPlayer][informationSetId];
+			if (currentPlayer == updatingPlayer) {
+				regretMatch(currentPlayer, informationSetId);
+				int numActions = game.getNumActionsAtInformationSet(gs);
+				double[] actionValues = this.actionValues[gs.getDepth()];
+				// Abstract actions that no original action maps to are read as zero
+				Arrays.fill(actionValues, 0, numActions, 0);
+				double value = 0;
+				for (int originalAction = 0; originalAction < numActions; originalAction++) {
+					int action = game.getAbstractActionMapping(gs, originalAction);
+					game.updateGameStateWithAction(gs, originalAction, strategy[action]);
+					actionValues[action] = traverseGameState(gs, updatingPlayer);
+					game.removeActionFromGameState(gs, originalAction, currentPlayer);
+					value += strategy[action] * actionValues[action];
+				}
+				for (int action = 0; action < numActions; action++) {
+					actionValues[action] -= value;
+				}
+				addRegrets(currentPlayer, informationSetId, actionValues);
+				return value;
+			} else {
+				if (sampleTraversal[currentPlayer][informationSetId] != numTraversals) {
+					regretMatch(currentPlayer, informationSetId);
+					sampledAction[currentPlayer][informationSetId] = samplePlayerAction(game, gs, strategy, 0, distribution);
+					sampleTraversal[currentPlayer][informationSetId] = numTraversals;
+				}
+				addAveragedStrategy(currentPlayer, informationSetId, strategy);
+				int originalAction = sampledAction[currentPlayer][informationSetId];
+				game.updateGameStateWithAction(gs, originalAction, strategy[game.getAbstractActionMapping(gs, originalAction)]);
+				double value = traverseGameState(gs, updatingPlayer);
+				game.removeActionFromGameState(gs, originalAction, currentPlayer);
+				return value;
+			}
+		}
+	}
+}
@@ -0,0 +1,395 @@
+package extensive_form_game_solver;
+
+import java.util.Arrays;
+
+import extensive_form_game.GameGenerator;
+import extensive_form_game.GameState;
+import extensive_form_game.StrategyProfile;
+
+/**
+ * CFR with the regret, current strategy and averaged strategy tables each packed into one contiguous array per player, addressed by precomputed information set offsets,
+ * in the same layout as StrategyProfile. The precision of the tables is chosen when the solver is created:
+ * DOUBLE stores doubles and computes exactly what CounterFactualRegretSolver computes, FLOAT stores all three tables as floats,
+ * and QUANTIZED stores regrets as ints counting multiples of getRegretResolution(), rounded to nearest and saturating, with floats for the strategies.
+ * Abstracted information sets take up no entries.
+ */
+public class FlatCounterFactualRegretSolver extends ZeroSumGameSolver {
+	public enum Precision { DOUBLE, FLOAT, QUANTIZED }
+
+	// Assumed JVM layout when estimating table sizes: 64-bit JVM with compressed references
+	private static final int ARRAY_HEADER_BYTES = 16;
+	private static final int REFERENCE_BYTES = 4;
+
+	// Default regret resolution of the QUANTIZED precision, as a fraction of the payoff range of the game. Regrets saturate at 2^31 times the resolution
+	private static final double DEFAULT_RELATIVE_RESOLUTION = 1.0 / (1 << 20);
+
+	private final Precision precision;
+	private int[][] informationSetOffset; // indexed as [player][informationSetId], with numInformationSets+1 entries. Abstracted information sets have no entries
+	private Table[] regretTable; // indexed as [player]
+	private Table[] currentStrategy; // indexed as [player]
+	private Table[] averagedStrategy; // indexed as [player]
+	private double[][] informationSetProbabilityForPlayer; // indexed as [player][informationSetId]
+	private double regretResolution;
+
+	private int numNodesTouched;
+	private int totalIterationsRun = 0;
+
+	/**
+	 * A table of one player, indexed as [informationSetOffset[player][informationSetId] + action]
+	 */
+	abstract static class Table {
+		abstract double get(int index);
+		abstract void set(int index, double value);
+		abstract void add(int index, double value);
+		abstract long getBytes();
+	}
+
+	static class DoubleTable extends Table {
+		private final double[] values;
+
+		DoubleTable(int size) {
+			values = new double[size];
+		}
+
+		double get(int index) {
+			return values[index];
+		}
+
+		void set(int index, double value) {
+			values[index] = value;
+		}
+
+		void add(int index, double value) {
+			values[index] += value;
+		}
+
+		long getBytes() {
+			return align(ARRAY_HEADER_BYTES + 8L * values.length);
+		}
+	}
+
+	static class FloatTable extends Table {
+		private final float[] values;
+
+		FloatTable(int size) {
+			values = new float[size];
+		}
+
+		double get(int index) {
+			return values[index];
+		}
+
+		void set(int index, double value) {
+			values[index] = (float) value;
+		}
+
+		void add(int index, double value) {
+			values[index] += value;
+		}
+
+		long getBytes() {
+			return align(ARRAY_HEADER_BYTES + 4L * values.length);
+		}
+	}
+
+	static class QuantizedTable extends Table {
+		private final int[] values;
+		private final double resolution;
+
+		QuantizedTable(int size, double resolution) {
+			values = new int[size];
+			this.resolution = resolution;
+		}
+
+		double get(int index) {
+			return values[index] * resolution;
+		}
+
+		void set(int index, double value) {
+			values[index] = quantize(value);
+		}
+
+		void add(int index, double value) {
+			long sum = (long) values[index] + quantize(value);
+			values[index] = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, sum));
+		}
+
+		private int quantize(double value) {
+			return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, Math.round(value / resolution)));
+		}
+
+		long getBytes() {
+			return align(ARRAY_HEADER_BYTES + 4L * values.length);
+		}
+	}
+
+	public FlatCounterFactualRegretSolver(GameGenerator game, Precision precision) {
+		super(game);
+		this.precision = precision;
+		initializeDataStructures();
+	}
+
+	/**
+	 * Creates a solver with the QUANTIZED precision and the given regret resolution
+	 * @param game
+	 * @param regretResolution
+	 */
+	public FlatCounterFactualRegretSolver(GameGenerator game, double regretResolution) {
+		super(game);
+		this.precision = Precision.QUANTIZED;
+		this.regretResolution = regretResolution;
+		initializeDataStructures();
+	}
+
+	private void initializeDataStructures() {
+		informationSetOffset = new int[3][];
+		regretTable = new Table[3];
+		currentStrategy = new Table[3];
+		averagedStrategy = new Table[3];
+		informationSetProbabilityForPlayer = new double[3][];
+		if (precision == Precision.QUANTIZED && regretResolution == 0) {
+			double[] bounds = computePayoffBounds(game.getInitialGameState());
+			regretResolution = Math.max(bounds[1] - bounds[0], Double.MIN_NORMAL) * DEFAULT_RELATIVE_RESOLUTION;
+		}
+		for (int player = 1; player < 3; player++) {
+			int numInformationSets = game.getNumInformationSets(player);
+			informationSetOffset[player] = new int[numInformationSets+1];
+			for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
+				int numActions = game.informationSetAbstracted(player, informationSetId) ? 0 : game.getNumActionsAtInformationSet(player, informationSetId);
+				informationSetOffset[player][informationSetId+1] = informationSetOffset[player][informationSetId] + numActions;
+			}
+			int size = informationSetOffset[player][numInformationSets];
+			regretTable[player] = precision == Precision.DOUBLE ? new DoubleTable(size) : precision == Precision.FLOAT ? new FloatTable(size) : new QuantizedTable(size, regretResolution);
+			currentStrategy[player] = precision == Precision.DOUBLE ? new DoubleTable(size) : new FloatTable(size);
+			averagedStrategy[player] = precision == Precision.DOUBLE ? new DoubleTable(size) : new FloatTable(size);
+			informationSetProbabilityForPlayer[player] = new double[numInformationSets];
+			for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
+				int numActions = informationSetOffset[player][informationSetId+1] - informationSetOffset[player][informationSetId];
+				for (int action = 0; action < numActions; action++) {
+					currentStrategy[player].set(informationSetOffset[player][informationSetId] + action, 1.0 / numActions);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the smallest and largest leaf value below gs, from the perspective of Player 1
+	 */
+	private double[] computePayoffBounds(GameState gs) {
+		if (gs.isLeaf()) {
+			return new double[] {gs.getValue(), gs.getValue()};
+		}
+		double[] bounds = new double[] {Double.MAX_VALUE, -Double.MAX_VALUE};
+		int currentPlayer = gs.getCurrentPlayer();
+		int numActions = currentPlayer == nature ? game.getNumActionsForNature(gs) : game.getNumActionsAtInformationSet(gs);
+		for (int action = 0; action < numActions; action++) {
+			game.updateGameStateWithAction(gs, action, 1);
+			double[] childBounds = computePayoffBounds(gs);
+			game.removeActionFromGameState(gs, action, currentPlayer);
+			bounds[0] = Math.min(bounds[0], childBounds[0]);
+			bounds[1] = Math.max(bounds[1], childBounds[1]);
+		}
+		return bounds;
+	}
+
+	@Override
+	public void solveGame() {
+		solveGame(10);
+	}
+
+	public void solveGame(int numIterations) {
+		runCFR(numIterations);
+	}
+
+	@Override
+	public void printStrategyVarsAndGameValue() {
+	}
+
+	@Override
+	public void printGameValue() {
+	}
+
+	@Override
+	public double getValueOfGame() {
+		return game.computeGameValueForStrategies(getStrategyProfile());
+	}
+
+	public void runCFR(int iterations) {
+		for (int iteration = 0; iteration < iterations; iteration++) {
+			totalIterationsRun++;
+			if (telemetry != null) {
+				telemetry.startIteration(numNodesTouched);
+			}
+			Arrays.fill(informationSetProbabilityForPlayer[1], 0);
+			Arrays.fill(informationSetProbabilityForPlayer[2], 0);
+			traverseGameState(game.getInitialGameState());
+			if (telemetry != null) {
+				telemetry.startRegretMatching();
+			}
+			for (int player = 1; player < 3; player++) {
+				regretMatch(player);
+			}
+			if (telemetry != null) {
+				telemetry.endRegretMatching();
+				telemetry.endIteration(this, totalIterationsRun, numNodesTouched);
+			}
+		}
+	}
+
+	private double traverseGameState(GameState gs) {
+		numNodesTouched++;
+		if (gs.isLeaf()) {
+			return gs.getValue();
+		} else if (gs.getCurrentPlayer() == nature) {
+			double value = 0;
+			for (int action = 0; action < game.getNumActionsForNature(gs); action++) {
+				double probabilityOfAction = game.getProbabilityOfNatureAction(gs, action);
+				game.updateGameStateWithAction(gs, action, probabilityOfAction);
+				value += probabilityOfAction * traverseGameState(gs);
+				game.removeActionFromGameState(gs, action, nature);
+			}
+			return value;
+		} else {
+			return traversePlayerGameState(gs);
+		}
+	}
+
+	/**
+	 * Same as CounterFactualRegretSolver.traversePlayerGameState, with table entries addressed by offset
+	 */
+	private double traversePlayerGameState(GameState gs) {
+		int numActions = game.getNumActionsAtInformationSet(gs);
+		int currentPlayer = gs.getCurrentPlayer();
+		int offset = informationSetOffset[currentPlayer][gs.getCurrentInformationSetId()];
+
+		double sumOfUtilities = 0;
+		double[] actionUtilities = new double[numActions];
+
+		for (int originalAction = 0; originalAction < numActions; originalAction++) {
+			int abstractAction = game.getAbstractActionMapping(gs, originalAction);
+			double probabilityOfAction = currentStrategy[currentPlayer].get(offset + abstractAction);
+			game.updateGameStateWithAction(gs, originalAction, probabilityOfAction);
+			actionUtilities[abstractAction] = traverseGameState(gs);
+			game.removeActionFromGameState(gs, originalAction, currentPlayer);
+			sumOfUtilities += probabilityOfAction * actionUtilities[abstractAction];
+		}
+
+		int utilityMultiplier = currentPlayer == player1 ? 1 : -1;
+		int informationSetId = gs.getCurrentInformationSetId();
+		double probabilityWithoutPlayer = gs.getProbabilityWithoutPlayer(currentPlayer);
+		double probabilityWithPlayer = gs.getProbabilityWithPlayer(currentPlayer);
+		for (int originalAction = 0; originalAction < numActions; originalAction++) {
+			int action = game.getAbstractActionMapping(gs, originalAction);
+			regretTable[currentPlayer].add(offset + action, utilityMultiplier * probabilityWithoutPlayer * (actionUtilities[action] - sumOfUtilities));
+			informationSetProbabilityForPlayer[currentPlayer][informationSetId] += probabilityWithPlayer;
+		}
+		return sumOfUtilities;
+	}
+
+	private void regretMatch(int player) {
+		Table regrets = regretTable[player];
+		Table current = currentStrategy[player];
+		Table averaged = averagedStrategy[player];
+		for (int informationSetId = 0; informationSetId < game.getNumInformationSets(player); informationSetId++) {
+			int start = informationSetOffset[player][informationSetId];
+			int end = informationSetOffset[player][informationSetId+1];
+			if (start == end) {
+				continue;
+			}
+			double regretSum = 0;
+			for (int index = start; index < end; index++) {
+				regretSum += Math.max(0, regrets.get(index));
+				averaged.add(index, informationSetProbabilityForPlayer[player][informationSetId] * current.get(index));
+			}
+			for (int index = start; index < end; index++) {
+				current.set(index, regretSum > 0 ? Math.max(0, regrets.get(index)) / regretSum : 1.0 / (end - start));
+			}
+		}
+	}
+
+	@Override
+	public double[][][] getStrategyProfile() {
+		return getFlatStrategyProfile().toArray();
+	}
+
+	/**
+	 * Normalizes the averaged strategy, mapping information sets and actions through the abstraction of the game
+	 */
+	@Override
+	public StrategyProfile getFlatStrategyProfile() {
+		StrategyProfile profile = new StrategyProfile(game);
+		for (int player = 1; player < 3; player++) {
+			double[] probabilities = profile.getProbabilities(player);
+			for (int informationSetId = 0; informationSetId < game.getNumInformationSets(player); informationSetId++) {
+				int abstractOffset = informationSetOffset[player][game.getAbstractInformationSetId(player, informationSetId)];
+				int offset = profile.getOffset(player, informationSetId);
+				int numActions = game.getNumActionsAtInformationSet(player, informationSetId);
+				double sum = 0;
+				for (int actionId = 0; actionId < numActions; actionId++) {
+					sum += averagedStrategy[player].get(abstractOffset + game.getAbstractActionMapping(player, informationSetId, actionId));
+				}
+				if (sum > 0) {
+					for (int actionId = 0; actionId < numActions; actionId++) {
+						probabilities[offset + actionId] = averagedStrategy[player].get(abstractOffset + game.getAbstractActionMapping(player, informationSetId, actionId)) / sum;
+					}
+				}
+			}
+		}
+		return profile;
+	}
+
+	public Precision getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * @return the value of one unit of a quantized regret, or 0 if regrets are not quantized
+	 */
+	public double getRegretResolution() {
+		return precision == Precision.QUANTIZED ? regretResolution : 0;
+	}
+
+	public int getNumNodesTouched() {
+		return numNodesTouched;
+	}
+
+	public int getTotalIterationsRun() {
+		return totalIterationsRun;
+	}
+
+	/**
+	 * Approximate number of bytes used by the regret, current strategy and averaged strategy tables and the offsets
+	 * @return
+	 */
+	public long getTableBytes() {
+		long bytes = 0;
+		for (int player = 1; player < 3; player++) {
+			bytes += regretTable[player].getBytes() + currentStrategy[player].getBytes() + averagedStrategy[player].getBytes();
+			bytes += align(ARRAY_HEADER_BYTES + 4L * informationSetOffset[player].length);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Approximate number of bytes used by the three double[][][] tables of CounterFactualRegretSolver for the game, with one array per information set
+	 * @param game
+	 * @return
+	 */
+	public static long estimateNestedTableBytes(GameGenerator game) {
+		long bytes = 0;
+		for (int player = 1; player < 3; player++) {
+			long tableBytes = align(ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * game.getNumInformationSets(player));
+			for (int informationSetId = 0; informationSetId < game.getNumInformationSets(player); informationSetId++) {
+				if (!game.informationSetAbstracted(player, informationSetId)) {
+					tableBytes += align(ARRAY_HEADER_BYTES + 8L * game.getNumActionsAtInformationSet(player, informationSetId));
+				}
+			}
+			bytes += 3 * tableBytes;
+		}
+		return bytes;
+	}
+
+	private static long align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+}
@@ -0,0 +1,132 @@
+package extensive_form_game_solver;
+
+import org.apache.commons.math3.distribution.UniformRealDistribution;
+
+import extensive_form_game.GameGenerator;
+import extensive_form_game.GameState;
+
+/**
+ * The parts shared by the Monte Carlo CFR solvers OutcomeSamplingCFR, ExternalSamplingCFR and ParallelExternalSamplingCFR: the regret and averaged strategy tables,
+ * regret matching, sampling of actions, and normalizing the averaged strategy into a strategy profile.
+ */
+abstract class MonteCarloCFR extends ZeroSumGameSolver {
+	int totalIterationsRun = 0;
+
+	double[][][] averagedStrategy; // indexed as [player][informationSetId][actionId]
+	double[][][] regretTable; // indexed as [player][informationSetId][actionId]
+
+	MonteCarloCFR(GameGenerator game) {
+		super(game);
+		averagedStrategy = createTable();
+		regretTable = createTable();
+	}
+
+	public abstract void runCFR(int iterations);
+
+	public abstract long getNumNodesTouched();
+
+	@Override
+	public void solveGame() {
+		solveGame(1000);
+	}
+
+	public void solveGame(int numIterations) {
+		runCFR(numIterations);
+	}
+
+	@Override
+	public void printStrategyVarsAndGameValue() {
+	}
+
+	@Override
+	public void printGameValue() {
+	}
+
+	@Override
+	public double getValueOfGame() {
+		return game.computeGameValueForStrategies(getStrategyProfile());
+	}
+
+	/**
+	 * Normalizes the averaged strategy, mapping information sets and actions through the abstraction of the game. Information sets never sampled are played uniformly
+	 */
+	@Override
+	public double[][][] getStrategyProfile() {
+		return normalizeAveragedStrategy(game, averagedStrategy, true);
+	}
+
+	public int getTotalIterationsRun() {
+		return totalIterationsRun;
+	}
+
+	/**
+	 * @return a table with a zero entry for each action of the information sets that are not abstracted, indexed as [player][informationSetId][actionId]
+	 */
+	double[][][] createTable() {
+		double[][][] table = new double[3][][];
+		for (int player = 1; player < 3; player++) {
+			int numInformationSets = game.getNumInformationSets(player);
+			table[player] = new double[numInformationSets][];
+			for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
+				if (!game.informationSetAbstracted(player, informationSetId)) {
+					table[player][informationSetId] = new double[game.getNumActionsAtInformationSet(player, informationSetId)];
+				}
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Sets the strategy at an information set proportional to the positive part of its regrets, or uniform if no regret is positive
+	 * @param regrets
+	 * @param strategy may be the same array as regrets
+	 */
+	static void regretMatch(double[] regrets, double[] strategy) {
+		double regretSum = 0;
+		for (int action = 0; action < regrets.length; action++) {
+			regretSum += Math.max(0, regrets[action]);
+		}
+		for (int action = 0; action < regrets.length; action++) {
+			if (regretSum > 0) {
+				strategy[action] = Math.max(0, regrets[action]) / regretSum;
+			} else {
+				strategy[action] = 1.0 / regrets.length;
+			}
+		}
+	}
+
+	/**
+	 * @param game
+	 * @param gs
+	 * @param strategy current strategy at the information set of gs, over abstract actions
+	 * @param exploration probability added to each action, with the strategy scaled down to keep the total at one
+	 * @param distribution
+	 * @return an original action, sampled with the probability of the abstract action it maps to
+	 */
+	static int samplePlayerAction(GameGenerator game, GameState gs, double[] strategy, double exploration, UniformRealDistribution distribution) {
+		int numActions = game.getNumActionsAtInformationSet(gs);
+		double scale = 1 - exploration * numActions;
+		double randomNumber = distribution.sample();
+		double sum = 0;
+		for (int originalAction = 0; originalAction < numActions - 1; originalAction++) {
+			sum += exploration + scale * strategy[game.getAbstractActionMapping(gs, originalAction)];
+			if (randomNumber < sum) {
+				return originalAction;
+			}
+		}
+		return numActions - 1;
+	}
+
+	static int sampleNatureAction(GameGenerator game, GameState gs, UniformRealDistribution distribution) {
+		int numActions = game.getNumActionsForNature(gs);
+		double randomNumber = distribution.sample();
+		double sum = 0;
+		for (int action = 0; action < numActions - 1; action++) {
+			sum += game.getProbabilityOfNatureAction(gs, action);
+			if (randomNumber < sum) {
+				return action;
+			}
+		}
+		return numActions - 1;
+	}
+}
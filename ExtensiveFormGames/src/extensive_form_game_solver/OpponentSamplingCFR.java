@@ -19,12 +19,15 @@ public class OpponentSamplingCFR extends ZeroSumGameSolver {
 	int player2 = 2;
 	
 	int totalIterationsRun = 0;
+	long numNodesTouched = 0;
 	
 	double[][][] averagedStrategy;
 	double[][][] currentStrategy;
 	double[][][] regretTable;
 	int[][] informationSetCounter;
-	final UniformRealDistribution distribution = new UniformRealDistribution(0, 1);
+	double[][] actionUtilities; // indexed as [depth][action]. Scratch buffers of the traversals, the node of the updating player at depth d using row d
+	GameState gameState; // reused by every iteration, which leaves it back at the root
+	UniformRealDistribution distribution = new UniformRealDistribution(0, 1);
 
 	public OpponentSamplingCFR(Game game) {
 		super(game);
@@ -156,6 +159,7 @@ public class OpponentSamplingCFR extends ZeroSumGameSolver {
 		regretTable[player2] = new double[numInfoSetsP2][];
 		informationSetCounter[player1] = new int[numInfoSetsP1];
 		informationSetCounter[player2] = new int[numInfoSetsP2];
+		actionUtilities = new double[game.getMaxDepth()][game.getMaxNumActions()];
 		
 		// This currently assumes that information set IDs are consecutively numbered starting from 0
 		// Initialize each information set for Player 1
@@ -183,17 +187,27 @@ public class OpponentSamplingCFR extends ZeroSumGameSolver {
 
 		int totalNodesTraversed = 0;
 		
-		for (int iteration = 1; iteration < iterations; iteration++) {
+		for (int iteration = 0; iteration < iterations; iteration++) {
 			totalIterationsRun++;
 			if (iteration % 10 == 0) {
 				//System.out.println("Starting iteartion " + iteration);
 				
 			}
 			
-			GameState gs = game.getInitialGameState();
-			preSample(gs);
-			traverseGameState(1, gs);
-			traverseGameState(2, gs);
+			if (telemetry != null) {
+				telemetry.startIteration(numNodesTouched);
+			}
+			if (gameState == null) {
+				gameState = game.getInitialGameState();
+			}
+			// The samples of the previous iteration are forgotten, but their maps are kept for reuse
+			gameState.clearSamples();
+			preSample(gameState);
+			traverseGameState(1, gameState);
+			traverseGameState(2, gameState);
+			if (telemetry != null) {
+				telemetry.endIteration(this, totalIterationsRun, numNodesTouched);
+			}
 			
 		}
 	}
@@ -206,6 +220,7 @@ public class OpponentSamplingCFR extends ZeroSumGameSolver {
 	 * @return
 	 */
 	private double traverseGameState(int player, GameState gs) {
+		numNodesTouched++;
 		if (gs.isLeaf()) {
 			if (player == player1) {
 				return gs.getValue();
@@ -231,7 +246,7 @@ public class OpponentSamplingCFR extends ZeroSumGameSolver {
 	private double traverseGameStateForUpdatingPlayer(int player, GameState gs) {
 		regretMatch(gs);
 		int numActions = game.getNumActionsAtInformationSet(gs);
-		double[] u = new double[numActions];
+		double[] u = actionUtilities[gs.getDepth()];
 		double uSigma = 0;
 		
 		for (int action = 0; action < numActions; action++) {
@@ -318,31 +333,26 @@ public class OpponentSamplingCFR extends ZeroSumGameSolver {
 
 	private double getProbabilityOfAction(GameState gs, int action) {
 		if (gs.getCurrentPlayer() == nature) {
-			try {
-				return game.getProbabilityOfNatureAction(gs, action);
-			} catch (Exception e) {
-				e.printStackTrace();
-			}
+			return game.getProbabilityOfNatureAction(gs, action);
 		} else {
 			return currentStrategy[gs.getCurrentPlayer()][gs.getCurrentInformationSetId()][action];
 		}
-		return 0; // failure
 	}
 
 	private int sampleAction(GameState gs) {
-		if (gs.priorSampleExists(gs.getCurrentPlayer(), gs.getCurrentInformationSetId())) {
-			return gs.getPriorSample(gs.getCurrentPlayer(), gs.getCurrentInformationSetId());
+		// Nature nodes have no information set, and the information set id of the game state is left over from the last player node, so nature samples are kept by node
+		int sampleKey = gs.getCurrentPlayer() == nature ? gs.getCurrentNodeId() : gs.getCurrentInformationSetId();
+		if (gs.priorSampleExists(gs.getCurrentPlayer(), sampleKey)) {
+			return gs.getPriorSample(gs.getCurrentPlayer(), sampleKey);
 		} else {
 			double randomNumber = distribution.sample();
+			int numActions = game.getNumActions(gs);
 			int action = 0;
 			double sum = 0;
-			while (sum <= randomNumber) {
+			// The probabilities may sum to slightly less than randomNumber, in which case the last action is sampled
+			while (sum <= randomNumber && action < numActions) {
 				if (gs.getCurrentPlayer() == nature) {
-					try {
-						sum += game.getProbabilityOfNatureAction(gs, action);
-					} catch (Exception e) {
-						e.printStackTrace();
-					}
+					sum += game.getProbabilityOfNatureAction(gs, action);
 				} else {
 					sum += currentStrategy[gs.getCurrentPlayer()][gs.getCurrentInformationSetId()][action];
 				}
@@ -350,30 +360,12 @@ public class OpponentSamplingCFR extends ZeroSumGameSolver {
 			}
 			
 			action -= 1;
-			gs.addSample(gs.getCurrentPlayer(), gs.getCurrentInformationSetId(), action);
+			gs.addSample(gs.getCurrentPlayer(), sampleKey, action);
 			return action;
 		}
 	}
-}
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
 
+	public long getNumNodesTouched() {
+		return numNodesTouched;
+	}
+}
@@ -0,0 +1,151 @@
+package extensive_form_game_solver;
+
+import org.apache.commons.math3.distribution.UniformRealDistribution;
+
+import extensive_form_game.GameGenerator;
+import extensive_form_game.GameState;
+
+/**
+ * Outcome-sampling Monte Carlo CFR (Lanctot et al. 2009). Each iteration samples a single path from the root to a leaf for each player in turn, so an iteration costs time linear in the depth of the game.
+ * Nature and the other player act according to their probabilities, while the updating player explores, taking an action uniformly at random with probability epsilon and otherwise according to its current strategy.
+ * The regrets along the path are updated with the sampled counterfactual values, the payoff of the leaf divided by the probability of sampling it, and the averaged strategy of the other player
+ * is updated with the same importance weight. Uses the same abstraction mapping as CounterFactualRegretSolver.
+ */
+public class OutcomeSamplingCFR extends MonteCarloCFR {
+	long numNodesTouched = 0;
+
+	double[][][] currentStrategy; // indexed as [player][informationSetId][actionId]. Computed from the regrets when the information set is visited
+	double epsilon;
+	UniformRealDistribution distribution = new UniformRealDistribution(0, 1);
+
+	// payoff to the updating player of the leaf sampled by the current traversal, divided by the probability of sampling the path to it
+	private double sampledLeafValue;
+
+	/**
+	 * Creates a solver with exploration epsilon = 0.6, as used by Lanctot et al.
+	 * @param game
+	 */
+	public OutcomeSamplingCFR(GameGenerator game) {
+		this(game, 0.6);
+	}
+
+	/**
+	 * @param game
+	 * @param epsilon probability that the updating player takes an action uniformly at random instead of according to its current strategy, must be in (0, 1]
+	 */
+	public OutcomeSamplingCFR(GameGenerator game, double epsilon) {
+		super(game);
+		setEpsilon(epsilon);
+		currentStrategy = createTable();
+	}
+
+	@Override
+	public void runCFR(int iterations) {
+		GameState gs = game.getInitialGameState();
+		for (int iteration = 0; iteration < iterations; iteration++) {
+			totalIterationsRun++;
+			if (telemetry != null) {
+				telemetry.startIteration(numNodesTouched);
+			}
+			for (int player = 1; player < 3; player++) {
+				sampleGameState(gs, player, 1, 1);
+			}
+			if (telemetry != null) {
+				telemetry.endIteration(this, totalIterationsRun, numNodesTouched);
+			}
+		}
+	}
+
+	/**
+	 * Samples a path from gs to a leaf, updating the regrets of updatingPlayer and the averaged strategy of the other player along it. The game state is restored before returning
+	 * @param gs
+	 * @param updatingPlayer
+	 * @param probabilityOverOtherAgents probability of nature and the other player reaching gs
+	 * @param sampleProbability probability of sampling the path to gs
+	 * @return the probability of reaching the sampled leaf from gs under the current strategies and nature
+	 */
+	private double sampleGameState(GameState gs, int updatingPlayer, double probabilityOverOtherAgents, double sampleProbability) {
+		numNodesTouched++;
+		if (gs.isLeaf()) {
+			sampledLeafValue = (updatingPlayer == player1 ? gs.getValue() : -gs.getValue()) / sampleProbability;
+			return 1;
+		}
+
+		int currentPlayer = gs.getCurrentPlayer();
+		if (currentPlayer == nature) {
+			int action = sampleNatureAction(game, gs, distribution);
+			double probability = game.getProbabilityOfNatureAction(gs, action);
+			game.updateGameStateWithAction(gs, action, probability);
+			double tail = sampleGameState(gs, updatingPlayer, probabilityOverOtherAgents * probability, sampleProbability * probability);
+			game.removeActionFromGameState(gs, action, nature);
+			return probability * tail;
+		}
+
+		int informationSetId = gs.getCurrentInformationSetId();
+		double[] strategy = currentStrategy[currentPlayer][informationSetId];
+		regretMatch(regretTable[currentPlayer][informationSetId], strategy);
+		int numActions = game.getNumActionsAtInformationSet(gs);
+
+		if (currentPlayer == updatingPlayer) {
+			double exploration = epsilon / numActions;
+			int originalAction = samplePlayerAction(game, gs, strategy, exploration, distribution);
+			int action = game.getAbstractActionMapping(gs, originalAction);
+			// read before recursing, as an abstract information set may be visited again below
+			double probabilityOfAction = strategy[action];
+			double sampleProbabilityOfAction = exploration + (1 - epsilon) * probabilityOfAction;
+			game.updateGameStateWithAction(gs, originalAction, probabilityOfAction);
+			double tail = sampleGameState(gs, updatingPlayer, probabilityOverOtherAgents, sampleProbability * sampleProbabilityOfAction);
+			game.removeActionFromGameState(gs, originalAction, currentPlayer);
+
+			// The sampled counterfactual value is weightedValue * tail for the sampled action, 0 for the others, and weightedValue * probabilityOfAction * tail for the information set
+			double weightedValue = sampledLeafValue * probabilityOverOtherAgents;
+			double[] regrets = regretTable[currentPlayer][informationSetId];
+			for (int otherAction = 0; otherAction < numActions; otherAction++) {
+				if (otherAction == action) {
+					regrets[otherAction] += weightedValue * tail * (1 - probabilityOfAction);
+				} else {
+					regrets[otherAction] -= weightedValue * tail * probabilityOfAction;
+				}
+			}
+			return probabilityOfAction * tail;
+		} else {
+			// Stochastically-weighted averaging: in expectation, each information set is weighted by the probability of the acting player reaching it
+			double weight = probabilityOverOtherAgents / sampleProbability;
+			double[] averaged = averagedStrategy[currentPlayer][informationSetId];
+			for (int action = 0; action < numActions; action++) {
+				averaged[action] += weight * strategy[action];
+			}
+			int originalAction = samplePlayerAction(game, gs, strategy, 0, distribution);
+			int action = game.getAbstractActionMapping(gs, originalAction);
+			double probabilityOfAction = strategy[action];
+			game.updateGameStateWithAction(gs, originalAction, probabilityOfAction);
+			double tail = sampleGameState(gs, updatingPlayer, probabilityOverOtherAgents * probabilityOfAction, sampleProbability * probabilityOfAction);
+			game.removeActionFromGameState(gs, originalAction, currentPlayer);
+			return probabilityOfAction * tail;
+		}
+	}
+
+	/**
+	 * Reseeds the random generator used for sampling, making the iterations that follow reproducible
+	 * @param seed
+	 */
+	public void reseed(long seed) {
+		distribution.reseedRandomGenerator(seed);
+	}
+
+	public double getEpsilon() {
+		return epsilon;
+	}
+
+	public void setEpsilon(double epsilon) {
+		if (epsilon <= 0 || epsilon > 1) {
+			throw new IllegalArgumentException("Exploration epsilon must be in (0, 1]");
+		}
+		this.epsilon = epsilon;
+	}
+
+	@Override
+	public long getNumNodesTouched() {
+		return numNodesTouched;
+	}
+}
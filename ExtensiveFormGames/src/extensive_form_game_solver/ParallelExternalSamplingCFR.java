@@ -0,0 +1,256 @@
+package extensive_form_game_solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import extensive_form_game.GameGenerator;
+import extensive_form_game.GameState;
+
+/**
+ * Runs the iterations of external-sampling MCCFR, as in ExternalSamplingCFR, on several workers at once over shared regret and averaged strategy tables, indexed as in OpponentSamplingCFR.
+ * Each worker has its own random generator, samples and current strategy table. The mode decides how the workers update the shared tables:
+ * HOGWILD adds to them without synchronization, so concurrent additions to the same entry are occasionally lost;
+ * STRIPED_LOCKS reads and updates an information set while holding one of a fixed number of locks, chosen by the block of information sets it is in;
+ * DELTA_BUFFERS adds to tables private to the worker, which are merged into the shared tables after every worker has run mergeInterval iterations.
+ * Between merges, a worker regret matches on the shared regrets plus its own. Given the seeds, DELTA_BUFFERS computes the same strategies on any number of threads of the pool.
+ * In every mode the iterations are run in rounds of mergeInterval iterations per worker, and telemetry records one entry per round, with the nodes touched by all workers.
+ */
+public class ParallelExternalSamplingCFR extends MonteCarloCFR {
+	public enum Mode {HOGWILD, STRIPED_LOCKS, DELTA_BUFFERS}
+
+	private static final int NUM_LOCKS = 64;
+	private static final int INFORMATION_SETS_PER_LOCK_BLOCK = 8;
+
+	private final Mode mode;
+	private int mergeInterval = 10;
+	private final Object[] locks;
+	private final Worker[] workers;
+
+	/**
+	 * @param game
+	 * @param mode
+	 * @param numWorkers number of workers the iterations are divided between, usually the parallelism of the pool used
+	 */
+	public ParallelExternalSamplingCFR(GameGenerator game, Mode mode, int numWorkers) {
+		super(game);
+		if (numWorkers < 1) {
+			throw new IllegalArgumentException("At least one worker is needed");
+		}
+		this.mode = mode;
+		locks = new Object[NUM_LOCKS];
+		for (int lock = 0; lock < NUM_LOCKS; lock++) {
+			locks[lock] = new Object();
+		}
+		workers = new Worker[numWorkers];
+		for (int worker = 0; worker < numWorkers; worker++) {
+			workers[worker] = new Worker();
+		}
+	}
+
+	@Override
+	public void runCFR(int iterations) {
+		runCFR(iterations, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Runs iterations of external-sampling MCCFR in rounds, each divided as evenly as possible between the workers, which run as tasks on the pool.
+	 * Telemetry is given the iteration count at the end of each round, so the exploitability is only computed by rounds ending on a multiple of its interval
+	 * @param iterations
+	 * @param pool
+	 */
+	public void runCFR(int iterations, ForkJoinPool pool) {
+		int iterationsPerRound = mergeInterval * workers.length;
+		for (int iteration = 0; iteration < iterations; iteration += iterationsPerRound) {
+			int roundIterations = Math.min(iterationsPerRound, iterations - iteration);
+			if (telemetry != null) {
+				telemetry.startIteration(getNumNodesTouched());
+			}
+			runWorkers(roundIterations, pool);
+			if (mode == Mode.DELTA_BUFFERS) {
+				mergeDeltas();
+			}
+			totalIterationsRun += roundIterations;
+			if (telemetry != null) {
+				telemetry.endIteration(this, totalIterationsRun, getNumNodesTouched());
+			}
+		}
+	}
+
+	private void runWorkers(int iterations, ForkJoinPool pool) {
+		for (int worker = 0; worker < workers.length; worker++) {
+			workers[worker].iterationsToRun = iterations / workers.length + (worker < iterations % workers.length ? 1 : 0);
+		}
+		pool.invoke(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				List<RecursiveAction> tasks = new ArrayList<RecursiveAction>(workers.length);
+				for (final Worker worker : workers) {
+					tasks.add(new RecursiveAction() {
+						private static final long serialVersionUID = 1L;
+
+						@Override
+						protected void compute() {
+							worker.run();
+						}
+					});
+				}
+				invokeAll(tasks);
+			}
+		});
+	}
+
+	/**
+	 * Adds the delta tables of the workers to the shared tables, in the order of the workers, and clears them
+	 */
+	private void mergeDeltas() {
+		for (Worker worker : workers) {
+			for (int player = 1; player < 3; player++) {
+				for (int informationSetId = 0; informationSetId < regretTable[player].length; informationSetId++) {
+					if (regretTable[player][informationSetId] == null) {
+						continue;
+					}
+					double[] regretDelta = worker.regretDelta[player][informationSetId];
+					double[] averagedDelta = worker.averagedDelta[player][informationSetId];
+					for (int action = 0; action < regretDelta.length; action++) {
+						regretTable[player][informationSetId][action] += regretDelta[action];
+						averagedStrategy[player][informationSetId][action] += averagedDelta[action];
+					}
+					Arrays.fill(regretDelta, 0);
+					Arrays.fill(averagedDelta, 0);
+				}
+			}
+		}
+	}
+
+	private Object getLock(int player, int informationSetId) {
+		return locks[(player * NUM_LOCKS / 2 + informationSetId / INFORMATION_SETS_PER_LOCK_BLOCK) % NUM_LOCKS];
+	}
+
+	/**
+	 * A worker runs its iterations with its own random generator, samples and current strategies. Only the updates of the shared tables depend on the mode
+	 */
+	private class Worker extends ExternalSamplingCFR.Traversal {
+		double[][][] regretDelta; // indexed as [player][informationSetId][actionId]. Only for DELTA_BUFFERS
+		double[][][] averagedDelta; // indexed as [player][informationSetId][actionId]. Only for DELTA_BUFFERS
+		int iterationsToRun;
+
+		Worker() {
+			super(game, createTable());
+			if (mode == Mode.DELTA_BUFFERS) {
+				regretDelta = createTable();
+				averagedDelta = createTable();
+			}
+		}
+
+		void run() {
+			GameState gs = game.getInitialGameState();
+			for (int iteration = 0; iteration < iterationsToRun; iteration++) {
+				runIteration(gs);
+			}
+		}
+
+		@Override
+		void addRegrets(int player, int informationSetId, double[] regrets) {
+			add(regretTable, regretDelta, player, informationSetId, regrets);
+		}
+
+		@Override
+		void addAveragedStrategy(int player, int informationSetId, double[] strategy) {
+			add(averagedStrategy, averagedDelta, player, informationSetId, strategy);
+		}
+
+		/**
+		 * Adds the values to the entries of the information set in the shared table, or in the delta table for DELTA_BUFFERS
+		 */
+		private void add(double[][][] table, double[][][] delta, int player, int informationSetId, double[] values) {
+			double[] entries;
+			switch (mode) {
+			case STRIPED_LOCKS:
+				entries = table[player][informationSetId];
+				synchronized (getLock(player, informationSetId)) {
+					for (int action = 0; action < entries.length; action++) {
+						entries[action] += values[action];
+					}
+				}
+				return;
+			case DELTA_BUFFERS:
+				entries = delta[player][informationSetId];
+				break;
+			default:
+				entries = table[player][informationSetId];
+			}
+			for (int action = 0; action < entries.length; action++) {
+				entries[action] += values[action];
+			}
+		}
+
+		/**
+		 * Updates the current strategy of the worker at the information set based on the shared regrets, plus the regrets of the worker not yet merged for DELTA_BUFFERS
+		 */
+		@Override
+		void regretMatch(int player, int informationSetId) {
+			double[] regrets = regretTable[player][informationSetId];
+			double[] strategy = currentStrategy[player][informationSetId];
+			if (mode == Mode.STRIPED_LOCKS) {
+				synchronized (getLock(player, informationSetId)) {
+					System.arraycopy(regrets, 0, strategy, 0, regrets.length);
+				}
+			} else {
+				System.arraycopy(regrets, 0, strategy, 0, regrets.length);
+				if (mode == Mode.DELTA_BUFFERS) {
+					double[] deltas = regretDelta[player][informationSetId];
+					for (int action = 0; action < strategy.length; action++) {
+						strategy[action] += deltas[action];
+					}
+				}
+			}
+			MonteCarloCFR.regretMatch(strategy, strategy);
+		}
+	}
+
+	/**
+	 * Reseeds the random generators of the workers, worker i with seed + i
+	 * @param seed
+	 */
+	public void reseed(long seed) {
+		for (int worker = 0; worker < workers.length; worker++) {
+			workers[worker].distribution.reseedRandomGenerator(seed + worker);
+		}
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	public int getMergeInterval() {
+		return mergeInterval;
+	}
+
+	/**
+	 * @param mergeInterval number of iterations each worker runs per round, after which the delta tables are merged for DELTA_BUFFERS
+	 */
+	public void setMergeInterval(int mergeInterval) {
+		if (mergeInterval < 1) {
+			throw new IllegalArgumentException("Merge interval must be positive");
+		}
+		this.mergeInterval = mergeInterval;
+	}
+
+	public int getNumWorkers() {
+		return workers.length;
+	}
+
+	@Override
+	public long getNumNodesTouched() {
+		long numNodesTouched = 0;
+		for (Worker worker : workers) {
+			numNodesTouched += worker.numNodesTouched;
+		}
+		return numNodesTouched;
+	}
+}
@@ -0,0 +1,460 @@
+package extensive_form_game_solver;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.math3.distribution.UniformRealDistribution;
+
+/**
+ * Checkpoints of the tables of a CounterFactualRegretSolver (or subclass) or OpponentSamplingCFR in a memory-mapped file, from which a run can be resumed exactly.
+ * The file is a little-endian header followed by two slots of equal size:
+ * <pre>
+ * header: int magic ('CFRK'), version; long slotBytes
+ * slot:   long sequence (0 until the slot is complete); int totalIterationsRun, length of the random generator state; long hash of the table layout;
+ *         long counters[NUM_COUNTERS]; byte random generator state (Java serialization of the sampling distribution), padded to 8 bytes;
+ *         double entries of the double tables; int entries of the int tables
+ * </pre>
+ * A save writes to the slot that does not hold the latest checkpoint, so a crash during a save leaves the previous checkpoint intact, and restore uses the complete slot with the highest sequence.
+ * The tables are copied into the mapping with one bulk put per information set, and flushing the slot to disk and marking it complete happen on a background thread,
+ * so a save only stalls the solver for the copy. The next save waits for the flush of the previous one.
+ * A checkpoint only becomes the latest once its flush succeeds. If the flush fails, the failure is thrown by the next save, awaitFlush or close, and the previous checkpoint stays the latest.
+ */
+public class SolverCheckpoint implements Closeable {
+	public static final int MAGIC = ('C' << 24) | ('F' << 16) | ('R' << 8) | 'K';
+	public static final int VERSION = 1;
+
+	private static final int HEADER_BYTES = 16;
+	private static final int NUM_COUNTERS = 4;
+	private static final int SLOT_HEADER_BYTES = 8 + 4 + 4 + 8 + NUM_COUNTERS * 8;
+	private static final int COUNTER_PRUNING = 3; // index of the counter recording whether regret-based pruning was enabled
+
+	private final String filename;
+	private final RandomAccessFile file;
+	private final long slotBytes;
+	private final MappedByteBuffer[] slots = new MappedByteBuffer[2];
+	private long latestSequence; // sequence of the latest complete checkpoint, 0 if there is none
+	private int latestSlot = 1;
+	private ExecutorService flushExecutor;
+	private Future<?> pendingFlush;
+	private long pendingSequence; // sequence of the checkpoint being flushed by pendingFlush
+	private int pendingSlot;
+
+	/**
+	 * The solver state that goes into a slot. The rows reference the tables of the solver, so filling it does not copy any table entries
+	 */
+	private static class State {
+		int iterations;
+		long[] counters = new long[NUM_COUNTERS];
+		Object random;
+		double[][] doubleRows; // indexed as [row]. Null rows, for abstracted information sets, are skipped
+		int[][] intRows; // indexed as [row]. Null rows are skipped
+
+		/**
+		 * Hashes the layout of the double rows only. The int tables follow from them and the counters, and are not allocated yet when a solver with pruning disabled is checked before a restore
+		 */
+		long layoutHash() {
+			long hash = 17;
+			for (double[] row : doubleRows) {
+				hash = 31 * hash + (row == null ? -1 : row.length);
+			}
+			return hash;
+		}
+
+		long numDoubles() {
+			long numDoubles = 0;
+			for (double[] row : doubleRows) {
+				if (row != null) numDoubles += row.length;
+			}
+			return numDoubles;
+		}
+
+		long numInts() {
+			long numInts = 0;
+			for (int[] row : intRows) {
+				if (row != null) numInts += row.length;
+			}
+			return numInts;
+		}
+	}
+
+	/**
+	 * Opens or creates a checkpoint file sized for the solver. An existing checkpoint file is kept, so it can be restored from
+	 * @param filename
+	 * @param solver
+	 * @throws IOException if the file exists but is not a checkpoint file, or is too small for the solver
+	 */
+	public SolverCheckpoint(String filename, CounterFactualRegretSolver solver) throws IOException {
+		this(filename, getRequiredSlotBytes(getState(solver), getNumRegretEntries(solver)));
+	}
+
+	public SolverCheckpoint(String filename, OpponentSamplingCFR solver) throws IOException {
+		this(filename, getRequiredSlotBytes(getState(solver), 0));
+	}
+
+	private SolverCheckpoint(String filename, long requiredSlotBytes) throws IOException {
+		this.filename = filename;
+		file = new RandomAccessFile(filename, "rw");
+		try {
+			FileChannel channel = file.getChannel();
+			if (channel.size() == 0) {
+				slotBytes = requiredSlotBytes;
+				file.setLength(HEADER_BYTES + 2 * slotBytes);
+				map(channel, 0, HEADER_BYTES).putInt(MAGIC).putInt(VERSION).putLong(slotBytes);
+			} else {
+				ByteBuffer header = channel.size() < HEADER_BYTES ? null : map(channel, 0, HEADER_BYTES);
+				if (header == null || header.getInt() != MAGIC) {
+					throw new IOException(filename + " is not a checkpoint file");
+				}
+				int version = header.getInt();
+				if (version != VERSION) {
+					throw new IOException(filename + " has version " + version + ", only version " + VERSION + " is supported");
+				}
+				slotBytes = header.getLong();
+				if (slotBytes < requiredSlotBytes || channel.size() < HEADER_BYTES + 2 * slotBytes) {
+					throw new IOException(filename + " is too small for the tables of the solver");
+				}
+			}
+			if (slotBytes > Integer.MAX_VALUE) {
+				throw new IOException("Checkpoint slots are larger than the 2GB that can be mapped at once");
+			}
+			for (int slot = 0; slot < 2; slot++) {
+				slots[slot] = map(channel, HEADER_BYTES + slot * slotBytes, slotBytes);
+				long sequence = slots[slot].getLong(0);
+				if (sequence > latestSequence) {
+					latestSequence = sequence;
+					latestSlot = slot;
+				}
+			}
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return whether the file holds a complete checkpoint
+	 */
+	public boolean hasCheckpoint() {
+		awaitFlush();
+		return latestSequence > 0;
+	}
+
+	/**
+	 * @return the number of iterations the solver had run at the latest checkpoint, or 0 if there is none
+	 */
+	public int getIterations() {
+		return hasCheckpoint() ? slots[latestSlot].getInt(8) : 0;
+	}
+
+	public void save(CounterFactualRegretSolver solver) {
+		save(getState(solver));
+	}
+
+	public void save(OpponentSamplingCFR solver) {
+		save(getState(solver));
+	}
+
+	/**
+	 * Restores the tables, iteration count, counters and random generator of the solver from the latest checkpoint.
+	 * The solver must have been created for the same game, and with the same abstraction, as the one that was saved.
+	 * Regret-based pruning is enabled on the solver if and only if it was enabled when the checkpoint was saved.
+	 * @param solver
+	 * @return false if the file holds no checkpoint, in which case the solver is unchanged
+	 * @throws IllegalArgumentException if the checkpoint was saved for a different game, abstraction or solver, in which case the solver is unchanged
+	 */
+	public boolean restore(CounterFactualRegretSolver solver) {
+		if (!hasCheckpoint()) {
+			return false;
+		}
+		checkLayout(getState(solver));
+		solver.setRegretBasedPruning(slots[latestSlot].getLong(24 + 8 * COUNTER_PRUNING) != 0);
+		State state = getState(solver);
+		read(state);
+		solver.totalIterationsRun = state.iterations;
+		solver.numNodesTouched = (int) state.counters[0];
+		solver.numActionsPruned = (int) state.counters[1];
+		solver.numActionsResumed = (int) state.counters[2];
+		solver.distribution = (UniformRealDistribution) state.random;
+		return true;
+	}
+
+	/**
+	 * Restores the tables, iteration count and random generator of the solver from the latest checkpoint
+	 * @param solver
+	 * @return false if the file holds no checkpoint, in which case the solver is unchanged
+	 */
+	public boolean restore(OpponentSamplingCFR solver) {
+		if (!hasCheckpoint()) {
+			return false;
+		}
+		State state = getState(solver);
+		read(state);
+		solver.totalIterationsRun = state.iterations;
+		solver.distribution = (UniformRealDistribution) state.random;
+		solver.numNodesTouched = state.counters[0];
+		return true;
+	}
+
+	/**
+	 * Blocks until the latest save is flushed to disk and marked complete, after which it is the latest checkpoint
+	 * @throws IllegalStateException if the flush failed, in which case the previous checkpoint is still the latest, or if the thread was interrupted while waiting
+	 */
+	public void awaitFlush() {
+		if (pendingFlush == null) {
+			return;
+		}
+		try {
+			pendingFlush.get();
+		} catch (InterruptedException e) {
+			// The flush is still pending, and is waited for again by the next call
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while flushing the checkpoint to " + filename, e);
+		} catch (ExecutionException e) {
+			pendingFlush = null;
+			// The flush may have failed after marking the slot complete in the mapping
+			slots[pendingSlot].putLong(0, 0);
+			throw new IllegalStateException("Flushing the checkpoint to " + filename + " failed", e.getCause());
+		}
+		pendingFlush = null;
+		latestSequence = pendingSequence;
+		latestSlot = pendingSlot;
+	}
+
+	/**
+	 * Waits for the latest save to be flushed and closes the file
+	 * @throws IllegalStateException if the flush failed. The file is closed regardless
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			awaitFlush();
+		} finally {
+			if (flushExecutor != null) {
+				flushExecutor.shutdown();
+			}
+			file.close();
+		}
+	}
+
+	public String getFilename() {
+		return filename;
+	}
+
+	private static State getState(CounterFactualRegretSolver solver) {
+		State state = new State();
+		state.iterations = solver.totalIterationsRun;
+		state.counters[0] = solver.numNodesTouched;
+		state.counters[1] = solver.numActionsPruned;
+		state.counters[2] = solver.numActionsResumed;
+		state.counters[COUNTER_PRUNING] = solver.regretBasedPruning ? 1 : 0;
+		state.random = solver.distribution;
+		state.doubleRows = concatenateRows(solver.regretTable, solver.currentStrategy, solver.averagedStrategy);
+		state.intRows = solver.regretBasedPruning ? concatenateRows(solver.prunedUntilIteration) : new int[0][];
+		return state;
+	}
+
+	private static State getState(OpponentSamplingCFR solver) {
+		State state = new State();
+		state.iterations = solver.totalIterationsRun;
+		state.random = solver.distribution;
+		state.counters[0] = solver.numNodesTouched;
+		state.doubleRows = concatenateRows(solver.regretTable, solver.currentStrategy, solver.averagedStrategy);
+		state.intRows = new int[][] {solver.informationSetCounter[1], solver.informationSetCounter[2]};
+		return state;
+	}
+
+	/**
+	 * @return the number of entries of the regret table, which is the number of entries of the pruning table once pruning is enabled
+	 */
+	private static long getNumRegretEntries(CounterFactualRegretSolver solver) {
+		long numEntries = 0;
+		for (double[] row : concatenateRows(solver.regretTable)) {
+			if (row != null) numEntries += row.length;
+		}
+		return numEntries;
+	}
+
+	/**
+	 * @param numExtraInts room for int table entries that the solver may allocate after the checkpoint file is created
+	 */
+	private static long getRequiredSlotBytes(State state, long numExtraInts) {
+		// The serialized random generator state is the same size for every save, but leave room in case the implementation varies it
+		int randomBytes = 2 * serialize(state.random).length + 64;
+		long intBytes = 4 * Math.max(state.numInts(), numExtraInts);
+		return align(SLOT_HEADER_BYTES + randomBytes) + 8 * state.numDoubles() + align(intBytes);
+	}
+
+	/**
+	 * @return the rows of the tables for players 1 and 2, in order
+	 */
+	private static double[][] concatenateRows(double[][][]... tables) {
+		int numRows = 0;
+		for (double[][][] table : tables) {
+			numRows += table[1].length + table[2].length;
+		}
+		double[][] rows = new double[numRows][];
+		int row = 0;
+		for (double[][][] table : tables) {
+			for (int player = 1; player < 3; player++) {
+				System.arraycopy(table[player], 0, rows, row, table[player].length);
+				row += table[player].length;
+			}
+		}
+		return rows;
+	}
+
+	private static int[][] concatenateRows(int[][][] table) {
+		int[][] rows = new int[table[1].length + table[2].length][];
+		System.arraycopy(table[1], 0, rows, 0, table[1].length);
+		System.arraycopy(table[2], 0, rows, table[1].length, table[2].length);
+		return rows;
+	}
+
+	private void save(State state) {
+		awaitFlush();
+		byte[] random = serialize(state.random);
+		int randomOffset = SLOT_HEADER_BYTES;
+		int doubleOffset = (int) align(randomOffset + random.length);
+		long intOffset = doubleOffset + 8 * state.numDoubles();
+		if (align(intOffset + 4 * state.numInts()) > slotBytes) {
+			throw new IllegalArgumentException("The tables of the solver do not fit in " + filename);
+		}
+
+		final int slot = 1 - latestSlot;
+		final MappedByteBuffer buffer = slots[slot];
+		buffer.putLong(0, 0);
+		buffer.putInt(8, state.iterations);
+		buffer.putInt(12, random.length);
+		buffer.putLong(16, state.layoutHash());
+		for (int counter = 0; counter < NUM_COUNTERS; counter++) {
+			buffer.putLong(24 + 8 * counter, state.counters[counter]);
+		}
+		ByteBuffer randomBuffer = buffer.duplicate();
+		randomBuffer.position(randomOffset);
+		randomBuffer.put(random);
+
+		DoubleBuffer doubles = slice(buffer, doubleOffset).asDoubleBuffer();
+		for (double[] row : state.doubleRows) {
+			if (row != null) doubles.put(row);
+		}
+		IntBuffer ints = slice(buffer, intOffset).asIntBuffer();
+		for (int[] row : state.intRows) {
+			if (row != null) ints.put(row);
+		}
+
+		final long sequence = latestSequence + 1;
+		pendingSequence = sequence;
+		pendingSlot = slot;
+		if (flushExecutor == null) {
+			flushExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "checkpoint flush " + filename);
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		pendingFlush = flushExecutor.submit(new Callable<Void>() {
+			@Override
+			public Void call() {
+				// The slot is only marked complete once its contents are on disk
+				buffer.force();
+				buffer.putLong(0, sequence);
+				buffer.force();
+				return null;
+			}
+		});
+	}
+
+	private void checkLayout(State state) {
+		if (slots[latestSlot].getLong(16) != state.layoutHash()) {
+			throw new IllegalArgumentException("The checkpoint in " + filename + " was saved for a different game, abstraction or solver");
+		}
+	}
+
+	private void read(State state) {
+		checkLayout(state);
+		MappedByteBuffer buffer = slots[latestSlot];
+		state.iterations = buffer.getInt(8);
+		int randomLength = buffer.getInt(12);
+		for (int counter = 0; counter < NUM_COUNTERS; counter++) {
+			state.counters[counter] = buffer.getLong(24 + 8 * counter);
+		}
+		byte[] random = new byte[randomLength];
+		ByteBuffer randomBuffer = buffer.duplicate();
+		randomBuffer.position(SLOT_HEADER_BYTES);
+		randomBuffer.get(random);
+		state.random = deserialize(random);
+
+		int doubleOffset = (int) align(SLOT_HEADER_BYTES + randomLength);
+		DoubleBuffer doubles = slice(buffer, doubleOffset).asDoubleBuffer();
+		for (double[] row : state.doubleRows) {
+			if (row != null) doubles.get(row);
+		}
+		IntBuffer ints = slice(buffer, doubleOffset + 8 * state.numDoubles()).asIntBuffer();
+		for (int[] row : state.intRows) {
+			if (row != null) ints.get(row);
+		}
+	}
+
+	private static byte[] serialize(Object object) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(object);
+			out.close();
+			return bytes.toByteArray();
+		} catch (IOException e) {
+			throw new IllegalArgumentException("The random generator of the solver can not be serialized", e);
+		}
+	}
+
+	private static Object deserialize(byte[] bytes) {
+		try {
+			ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+			try {
+				return in.readObject();
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new IllegalArgumentException("The random generator state in the checkpoint is corrupt", e);
+		} catch (ClassNotFoundException e) {
+			throw new IllegalArgumentException("The random generator state in the checkpoint is corrupt", e);
+		}
+	}
+
+	private static ByteBuffer slice(ByteBuffer buffer, long offset) {
+		ByteBuffer slice = buffer.duplicate();
+		slice.position((int) offset);
+		return slice.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static MappedByteBuffer map(FileChannel channel, long offset, long bytes) throws IOException {
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, offset, bytes);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		return buffer;
+	}
+
+	private static long align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+}
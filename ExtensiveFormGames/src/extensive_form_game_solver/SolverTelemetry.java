@@ -0,0 +1,282 @@
+package extensive_form_game_solver;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Collects per-iteration metrics from an iterative solver: wall time, nodes touched, time spent regret matching, bytes allocated, and optionally the exploitability of the
+ * solver's strategy profile every exploitabilityInterval iterations. The most recent iterations are kept in a ring buffer, and every iteration is passed on to the sinks added.
+ * A solver reports to the telemetry set with ZeroSumGameSolver.setTelemetry, and does no extra work when none is set.
+ * Allocations are those of the thread running the solver, so allocations made by the worker threads of a parallel run are not included.
+ */
+public class SolverTelemetry {
+
+	/**
+	 * The metrics of a single iteration
+	 */
+	public static class IterationMetrics {
+		private final int iteration;
+		private final long wallTimeNanos;
+		private final long regretMatchingNanos;
+		private final long nodesTouched;
+		private final long allocatedBytes;
+		private final double exploitability;
+
+		IterationMetrics(int iteration, long wallTimeNanos, long regretMatchingNanos, long nodesTouched, long allocatedBytes, double exploitability) {
+			this.iteration = iteration;
+			this.wallTimeNanos = wallTimeNanos;
+			this.regretMatchingNanos = regretMatchingNanos;
+			this.nodesTouched = nodesTouched;
+			this.allocatedBytes = allocatedBytes;
+			this.exploitability = exploitability;
+		}
+
+		public int getIteration() {
+			return iteration;
+		}
+
+		public long getWallTimeNanos() {
+			return wallTimeNanos;
+		}
+
+		public long getRegretMatchingNanos() {
+			return regretMatchingNanos;
+		}
+
+		public long getNodesTouched() {
+			return nodesTouched;
+		}
+
+		public double getNodesPerSecond() {
+			return wallTimeNanos > 0 ? nodesTouched * 1e9 / wallTimeNanos : 0;
+		}
+
+		/**
+		 * @return the bytes allocated during the iteration, -1 if the JVM does not measure allocations per thread
+		 */
+		public long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+
+		/**
+		 * @return bytes allocated per second during the iteration, -1 if the JVM does not measure allocations per thread
+		 */
+		public double getAllocationRate() {
+			if (allocatedBytes < 0) {
+				return -1;
+			}
+			return wallTimeNanos > 0 ? allocatedBytes * 1e9 / wallTimeNanos : 0;
+		}
+
+		/**
+		 * @return the exploitability after the iteration, NaN if it was not sampled at this iteration
+		 */
+		public double getExploitability() {
+			return exploitability;
+		}
+	}
+
+	/**
+	 * Receives the metrics of every iteration recorded
+	 */
+	public interface Sink {
+		public void write(IterationMetrics metrics) throws IOException;
+
+		public void close() throws IOException;
+	}
+
+	/**
+	 * Writes one comma-separated line per iteration, after a header line
+	 */
+	public static class CsvSink implements Sink {
+		private final PrintWriter writer;
+
+		public CsvSink(Writer writer) {
+			this.writer = new PrintWriter(writer);
+			this.writer.println("iteration,wall_time_ns,regret_matching_ns,nodes_touched,nodes_per_second,allocated_bytes,exploitability");
+		}
+
+		@Override
+		public void write(IterationMetrics metrics) throws IOException {
+			writer.printf(Locale.ROOT, "%d,%d,%d,%d,%.1f,%d,%s\n", metrics.getIteration(), metrics.getWallTimeNanos(), metrics.getRegretMatchingNanos(), metrics.getNodesTouched(),
+					metrics.getNodesPerSecond(), metrics.getAllocatedBytes(), Double.isNaN(metrics.getExploitability()) ? "" : Double.toString(metrics.getExploitability()));
+			checkError();
+		}
+
+		@Override
+		public void close() throws IOException {
+			writer.close();
+			checkError();
+		}
+
+		private void checkError() throws IOException {
+			if (writer.checkError()) {
+				throw new IOException("Error writing telemetry");
+			}
+		}
+	}
+
+	/**
+	 * Writes one JSON object per line and iteration. Exploitability is omitted when it was not sampled
+	 */
+	public static class JsonLinesSink implements Sink {
+		private final PrintWriter writer;
+
+		public JsonLinesSink(Writer writer) {
+			this.writer = new PrintWriter(writer);
+		}
+
+		@Override
+		public void write(IterationMetrics metrics) throws IOException {
+			writer.printf(Locale.ROOT, "{\"iteration\":%d,\"wall_time_ns\":%d,\"regret_matching_ns\":%d,\"nodes_touched\":%d,\"nodes_per_second\":%.1f,\"allocated_bytes\":%d",
+					metrics.getIteration(), metrics.getWallTimeNanos(), metrics.getRegretMatchingNanos(), metrics.getNodesTouched(), metrics.getNodesPerSecond(), metrics.getAllocatedBytes());
+			if (!Double.isNaN(metrics.getExploitability())) {
+				writer.print(",\"exploitability\":" + metrics.getExploitability());
+			}
+			writer.print("}\n");
+			if (writer.checkError()) {
+				throw new IOException("Error writing telemetry");
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			writer.close();
+		}
+	}
+
+	private final IterationMetrics[] ringBuffer;
+	private int numIterationsRecorded;
+	private final int exploitabilityInterval;
+	private final List<Sink> sinks = new ArrayList<Sink>();
+
+	private final com.sun.management.ThreadMXBean allocationCounter;
+
+	private long iterationStartNanos;
+	private long iterationStartAllocatedBytes;
+	private long regretMatchingStartNanos;
+	private long regretMatchingNanos;
+	private long iterationStartNodesTouched;
+
+	/**
+	 * @param capacity number of most recent iterations kept in memory
+	 * @param exploitabilityInterval the exploitability is computed after every iteration that is a multiple of this, 0 for never
+	 */
+	public SolverTelemetry(int capacity, int exploitabilityInterval) {
+		if (capacity < 1 || exploitabilityInterval < 0) {
+			throw new IllegalArgumentException("Capacity must be positive and the exploitability interval non-negative");
+		}
+		this.ringBuffer = new IterationMetrics[capacity];
+		this.exploitabilityInterval = exploitabilityInterval;
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if (threadBean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+			allocationCounter = (com.sun.management.ThreadMXBean) threadBean;
+			allocationCounter.setThreadAllocatedMemoryEnabled(true);
+		} else {
+			allocationCounter = null;
+		}
+	}
+
+	public SolverTelemetry(int capacity) {
+		this(capacity, 0);
+	}
+
+	public void addSink(Sink sink) {
+		sinks.add(sink);
+	}
+
+	/**
+	 * Called by a solver before an iteration
+	 * @param nodesTouched the total number of nodes the solver has touched so far
+	 */
+	public void startIteration(long nodesTouched) {
+		iterationStartNodesTouched = nodesTouched;
+		regretMatchingNanos = 0;
+		iterationStartAllocatedBytes = getAllocatedBytes();
+		iterationStartNanos = System.nanoTime();
+	}
+
+	public void startRegretMatching() {
+		regretMatchingStartNanos = System.nanoTime();
+	}
+
+	public void endRegretMatching() {
+		regretMatchingNanos += System.nanoTime() - regretMatchingStartNanos;
+	}
+
+	/**
+	 * Called by a solver after an iteration. The exploitability, if sampled, is computed after the iteration is timed
+	 * @param solver
+	 * @param iteration the number of iterations the solver has run
+	 * @param nodesTouched the total number of nodes the solver has touched so far
+	 */
+	public void endIteration(ZeroSumGameSolver solver, int iteration, long nodesTouched) {
+		long wallTimeNanos = System.nanoTime() - iterationStartNanos;
+		long allocatedBytes = allocationCounter != null ? getAllocatedBytes() - iterationStartAllocatedBytes : -1;
+		double exploitability = Double.NaN;
+		if (exploitabilityInterval > 0 && iteration % exploitabilityInterval == 0) {
+			exploitability = solver.computeExploitability();
+		}
+		IterationMetrics metrics = new IterationMetrics(iteration, wallTimeNanos, regretMatchingNanos, nodesTouched - iterationStartNodesTouched, allocatedBytes, exploitability);
+		ringBuffer[numIterationsRecorded % ringBuffer.length] = metrics;
+		numIterationsRecorded++;
+		for (Sink sink : sinks) {
+			try {
+				sink.write(metrics);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private long getAllocatedBytes() {
+		if (allocationCounter == null) {
+			return 0;
+		}
+		return allocationCounter.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * @return the metrics of the most recent iterations still in the ring buffer, oldest first
+	 */
+	public List<IterationMetrics> getRecentIterations() {
+		int numKept = Math.min(numIterationsRecorded, ringBuffer.length);
+		List<IterationMetrics> recent = new ArrayList<IterationMetrics>(numKept);
+		for (int index = numIterationsRecorded - numKept; index < numIterationsRecorded; index++) {
+			recent.add(ringBuffer[index % ringBuffer.length]);
+		}
+		return recent;
+	}
+
+	public int getNumIterationsRecorded() {
+		return numIterationsRecorded;
+	}
+
+	/**
+	 * @return nodes touched per second over the iterations in the ring buffer
+	 */
+	public double getRecentNodesPerSecond() {
+		long nodesTouched = 0;
+		long wallTimeNanos = 0;
+		for (IterationMetrics metrics : getRecentIterations()) {
+			nodesTouched += metrics.getNodesTouched();
+			wallTimeNanos += metrics.getWallTimeNanos();
+		}
+		return wallTimeNanos > 0 ? nodesTouched * 1e9 / wallTimeNanos : 0;
+	}
+
+	/**
+	 * Closes all sinks
+	 */
+	public void close() throws IOException {
+		for (Sink sink : sinks) {
+			sink.close();
+		}
+	}
+}
@@ -0,0 +1,451 @@
+package extensive_form_game_solver;
+
+import java.util.Arrays;
+
+import extensive_form_game.Game;
+import extensive_form_game.Game.Action;
+import extensive_form_game.Game.Node;
+import extensive_form_game.ObservationKeyIndex;
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.procedure.TIntIntProcedure;
+
+/**
+ * Vector-form CFR for signal-decomposable games in the extended file format, such as leduc.txt in gameFiles.
+ * The game must start with nature dealing private signals. Each sequence of private signals observed by a player is a type of that player,
+ * and each path through the private deals is a deal between a type of Player 1 and a type of Player 2.
+ * The subtrees of all deals are walked in lockstep to build the public tree, where public nature nodes branch on signal ids, so a deal is absent
+ * from the public nodes below a public signal it cannot be dealt with. Each iteration walks the public tree once, carrying the reach probabilities
+ * and counterfactual values of both players as vectors indexed by type. At a public leaf, the chance-weighted payoffs are stored as a
+ * types of Player 1 by types of Player 2 matrix, so the values of both players are computed as matrix-vector products.
+ * Computes the same strategies as CounterFactualRegretSolver up to floating point rounding. Information set abstractions are not supported.
+ */
+public class VectorCounterFactualRegretSolver extends ZeroSumGameSolver {
+	private static final int LEAF = -1; // player of public leaves
+
+	Game game;
+
+	int totalIterationsRun = 0;
+
+	double[][][] averagedStrategy; // indexed as [player][informationSetId][actionId]
+	double[][][] currentStrategy; // indexed as [player][informationSetId][actionId]
+	double[][][] regretTable; // indexed as [player][informationSetId][actionId]
+
+	int[] numTypes; // indexed as [player]
+	private ObservationKeyIndex[] typeIndex; // indexed as [player]. Maps sequences of observed private signal ids to types
+	private TIntArrayList[] dealType; // indexed as [player][deal]
+	private TDoubleArrayList dealProbability; // indexed as [deal]
+	private TIntArrayList dealRoot; // indexed as [deal]. The first node of the deal that is not a private nature node
+
+	// The public tree, indexed by public node id. The root has id 0, and the children of a node are stored consecutively
+	private int numPublicNodes;
+	private int[] publicPlayer; // indexed as [publicNodeId]. 0 for nature, LEAF for leaves
+	private int[] publicFirstChild; // indexed as [publicNodeId]
+	private int[] publicNumChildren; // indexed as [publicNodeId]
+	private int[][] publicInformationSet; // indexed as [publicNodeId][type]. Information set of the acting player with the type, -1 if no deal with the type reaches the node
+	private double[][] publicPayoffMatrix; // indexed as [publicNodeId][typePlayer1 * numTypes[2] + typePlayer2]. Payoff to Player 1 weighted by the probability of the chance actions of the deal
+
+	private double[][][] reach; // indexed as [publicNodeId][player][type]
+	private double[][][] value; // indexed as [publicNodeId][player][type]. Counterfactual value for the player, the utility weighted by the reach of chance and the opponent
+
+	public VectorCounterFactualRegretSolver(Game game) {
+		super(game);
+		this.game = game;
+		if (game.getSignals() == null) {
+			throw new IllegalArgumentException("VectorCounterFactualRegretSolver: the game has no signal information, use a game in the extended file format");
+		}
+		for (int player = 1; player < 3; player++) {
+			for (int informationSetId = 0; informationSetId < game.getNumInformationSets(player); informationSetId++) {
+				if (game.informationSetAbstracted(player, informationSetId)) {
+					throw new IllegalArgumentException("VectorCounterFactualRegretSolver: information set abstractions are not supported, information set " + informationSetId + " of player " + player + " is abstracted");
+				}
+			}
+		}
+		collectDeals();
+		buildPublicTree();
+		initializeDataStructures();
+	}
+
+	@Override
+	public void solveGame() {
+		solveGame(10);
+	}
+
+	public void solveGame(int numIterations) {
+		runCFR(numIterations);
+	}
+
+	@Override
+	public void printStrategyVarsAndGameValue() {
+	}
+
+	@Override
+	public void printGameValue() {
+	}
+
+	@Override
+	public double getValueOfGame() {
+		return game.computeGameValueForStrategies(getStrategyProfile());
+	}
+
+	/**
+	 * Walks the private nature nodes at the top of the game, creating a deal for each path through them
+	 */
+	private void collectDeals() {
+		numTypes = new int[3];
+		typeIndex = new ObservationKeyIndex[] {null, new ObservationKeyIndex(), new ObservationKeyIndex()};
+		dealType = new TIntArrayList[] {null, new TIntArrayList(), new TIntArrayList()};
+		dealProbability = new TDoubleArrayList();
+		dealRoot = new TIntArrayList();
+		int[][] observedSignals = new int[3][game.getMaxDepth()+1];
+		collectDeals(game.getRoot(), 1, observedSignals, new int[3]);
+	}
+
+	private void collectDeals(int nodeId, double probability, int[][] observedSignals, int[] numObservedSignals) {
+		Node node = game.getNodeById(nodeId);
+		if (node.isLeaf() || node.getPlayer() != 0 || node.isPublicSignal()) {
+			for (int player = 1; player < 3; player++) {
+				int type = typeIndex[player].get(observedSignals[player], 0, numObservedSignals[player]);
+				if (type < 0) {
+					type = numTypes[player]++;
+					typeIndex[player].put(observedSignals[player], 0, numObservedSignals[player], type);
+				}
+				dealType[player].add(type);
+			}
+			dealProbability.add(probability);
+			dealRoot.add(nodeId);
+			return;
+		}
+
+		int[] signalIds = getSignalIdsOfActions(nodeId);
+		int player = node.getPlayerReceivingSignal();
+		for (int actionId = 0; actionId < node.getActions().length; actionId++) {
+			observedSignals[player][numObservedSignals[player]++] = signalIds[actionId];
+			collectDeals(node.getActions()[actionId].getChildId(), probability * node.getActions()[actionId].getProbability(), observedSignals, numObservedSignals);
+			numObservedSignals[player]--;
+		}
+	}
+
+	/**
+	 * @return the signal ids of the actions at the nature node, indexed as [actionId]
+	 */
+	private int[] getSignalIdsOfActions(int nodeId) {
+		final int[] signalIds = new int[game.getNodeById(nodeId).getActions().length];
+		game.getActionIdBySignalId()[nodeId].forEachEntry(new TIntIntProcedure() {
+			@Override
+			public boolean execute(int signalId, int actionId) {
+				signalIds[actionId] = signalId;
+				return true;
+			}
+		});
+		return signalIds;
+	}
+
+	private void buildPublicTree() {
+		int capacity = 16;
+		publicPlayer = new int[capacity];
+		publicFirstChild = new int[capacity];
+		publicNumChildren = new int[capacity];
+		publicInformationSet = new int[capacity][];
+		publicPayoffMatrix = new double[capacity][];
+		numPublicNodes = 1;
+		buildPublicNode(0, dealRoot.toArray(), dealProbability.toArray());
+	}
+
+	/**
+	 * Fills in the public node with the given id, which is reached by each deal at the given node with the given chance probability
+	 * @param publicNodeId
+	 * @param nodeIdByDeal indexed as [deal]. -1 for deals that do not reach the public node
+	 * @param chanceProbabilityByDeal indexed as [deal]
+	 */
+	private void buildPublicNode(int publicNodeId, int[] nodeIdByDeal, double[] chanceProbabilityByDeal) {
+		Node representative = null;
+		for (int deal = 0; deal < nodeIdByDeal.length && representative == null; deal++) {
+			if (nodeIdByDeal[deal] >= 0) representative = game.getNodeById(nodeIdByDeal[deal]);
+		}
+		int player = representative.isLeaf() ? LEAF : representative.getPlayer();
+		publicPlayer[publicNodeId] = player;
+
+		for (int deal = 0; deal < nodeIdByDeal.length; deal++) {
+			if (nodeIdByDeal[deal] < 0) continue;
+			Node node = game.getNodeById(nodeIdByDeal[deal]);
+			if ((node.isLeaf() ? LEAF : node.getPlayer()) != player || (player > 0 && node.getActions().length != representative.getActions().length)) {
+				throw new IllegalArgumentException("VectorCounterFactualRegretSolver: the game is not signal-decomposable, nodes " + representative.getName() + " and " + node.getName() + " are in the same public state");
+			}
+			if (player == 0 && !node.isPublicSignal()) {
+				throw new IllegalArgumentException("VectorCounterFactualRegretSolver: private signals are only supported before the first public node, found " + node.getName());
+			}
+		}
+
+		if (player == LEAF) {
+			double[] payoffMatrix = new double[numTypes[1] * numTypes[2]];
+			for (int deal = 0; deal < nodeIdByDeal.length; deal++) {
+				if (nodeIdByDeal[deal] < 0) continue;
+				payoffMatrix[dealType[1].get(deal) * numTypes[2] + dealType[2].get(deal)] += chanceProbabilityByDeal[deal] * game.getNodeById(nodeIdByDeal[deal]).getValue();
+			}
+			publicPayoffMatrix[publicNodeId] = payoffMatrix;
+			return;
+		}
+
+		if (player == 0) {
+			// Public nature nodes branch on signal ids, since the signals available depend on the deal
+			TIntArrayList signalIds = new TIntArrayList();
+			for (int deal = 0; deal < nodeIdByDeal.length; deal++) {
+				if (nodeIdByDeal[deal] < 0) continue;
+				for (int signalId : game.getChildNodeIdBySignalId()[nodeIdByDeal[deal]].keys()) {
+					if (!signalIds.contains(signalId)) signalIds.add(signalId);
+				}
+			}
+			signalIds.sort();
+			int firstChild = addChildren(publicNodeId, signalIds.size());
+			for (int i = 0; i < signalIds.size(); i++) {
+				int[] childNodeIdByDeal = new int[nodeIdByDeal.length];
+				double[] childChanceProbabilityByDeal = new double[nodeIdByDeal.length];
+				Arrays.fill(childNodeIdByDeal, -1);
+				for (int deal = 0; deal < nodeIdByDeal.length; deal++) {
+					if (nodeIdByDeal[deal] < 0) continue;
+					TIntIntMap actionIdBySignalId = game.getActionIdBySignalId()[nodeIdByDeal[deal]];
+					if (!actionIdBySignalId.containsKey(signalIds.get(i))) continue;
+					Action action = game.getNodeById(nodeIdByDeal[deal]).getActions()[actionIdBySignalId.get(signalIds.get(i))];
+					childNodeIdByDeal[deal] = action.getChildId();
+					childChanceProbabilityByDeal[deal] = chanceProbabilityByDeal[deal] * action.getProbability();
+				}
+				buildPublicNode(firstChild + i, childNodeIdByDeal, childChanceProbabilityByDeal);
+			}
+			return;
+		}
+
+		int[] informationSetByType = new int[numTypes[player]];
+		Arrays.fill(informationSetByType, -1);
+		for (int deal = 0; deal < nodeIdByDeal.length; deal++) {
+			if (nodeIdByDeal[deal] < 0) continue;
+			int type = dealType[player].get(deal);
+			int informationSetId = game.getNodeById(nodeIdByDeal[deal]).getInformationSet();
+			if (informationSetByType[type] >= 0 && informationSetByType[type] != informationSetId) {
+				throw new IllegalArgumentException("VectorCounterFactualRegretSolver: the game is not signal-decomposable, a type is in two information sets at the public state of node " + representative.getName());
+			}
+			informationSetByType[type] = informationSetId;
+		}
+		publicInformationSet[publicNodeId] = informationSetByType;
+
+		int numActions = representative.getActions().length;
+		int firstChild = addChildren(publicNodeId, numActions);
+		for (int actionId = 0; actionId < numActions; actionId++) {
+			int[] childNodeIdByDeal = new int[nodeIdByDeal.length];
+			for (int deal = 0; deal < nodeIdByDeal.length; deal++) {
+				childNodeIdByDeal[deal] = nodeIdByDeal[deal] < 0 ? -1 : game.getNodeById(nodeIdByDeal[deal]).getActions()[actionId].getChildId();
+			}
+			buildPublicNode(firstChild + actionId, childNodeIdByDeal, chanceProbabilityByDeal);
+		}
+	}
+
+	/**
+	 * Allocates ids for numChildren consecutive children of the public node
+	 * @return the id of the first child
+	 */
+	private int addChildren(int publicNodeId, int numChildren) {
+		int firstChild = numPublicNodes;
+		numPublicNodes += numChildren;
+		if (numPublicNodes > publicPlayer.length) {
+			int capacity = Math.max(2 * publicPlayer.length, numPublicNodes);
+			publicPlayer = Arrays.copyOf(publicPlayer, capacity);
+			publicFirstChild = Arrays.copyOf(publicFirstChild, capacity);
+			publicNumChildren = Arrays.copyOf(publicNumChildren, capacity);
+			publicInformationSet = Arrays.copyOf(publicInformationSet, capacity);
+			publicPayoffMatrix = Arrays.copyOf(publicPayoffMatrix, capacity);
+		}
+		publicFirstChild[publicNodeId] = firstChild;
+		publicNumChildren[publicNodeId] = numChildren;
+		return firstChild;
+	}
+
+	private void initializeDataStructures() {
+		averagedStrategy = new double[3][][];
+		currentStrategy = new double[3][][];
+		regretTable = new double[3][][];
+		for (int player = 1; player < 3; player++) {
+			int numInformationSets = game.getNumInformationSets(player);
+			averagedStrategy[player] = new double[numInformationSets][];
+			currentStrategy[player] = new double[numInformationSets][];
+			regretTable[player] = new double[numInformationSets][];
+			for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
+				int numActions = game.getNumActionsAtInformationSet(player, informationSetId);
+				averagedStrategy[player][informationSetId] = new double[numActions];
+				currentStrategy[player][informationSetId] = new double[numActions];
+				Arrays.fill(currentStrategy[player][informationSetId], 1.0 / numActions);
+				regretTable[player][informationSetId] = new double[numActions];
+			}
+		}
+
+		reach = new double[numPublicNodes][3][];
+		value = new double[numPublicNodes][3][];
+		for (int publicNodeId = 0; publicNodeId < numPublicNodes; publicNodeId++) {
+			for (int player = 1; player < 3; player++) {
+				reach[publicNodeId][player] = new double[numTypes[player]];
+				value[publicNodeId][player] = new double[numTypes[player]];
+			}
+		}
+	}
+
+	/**
+	 * Runs iterations of vector-form CFR. Nodes touched are reported to the telemetry as public nodes, each public node walked once per iteration
+	 * @param iterations
+	 */
+	public void runCFR(int iterations) {
+		for (int iteration = 0; iteration < iterations; iteration++) {
+			if (telemetry != null) {
+				telemetry.startIteration((long) totalIterationsRun * numPublicNodes);
+			}
+			totalIterationsRun++;
+			Arrays.fill(reach[0][1], 1);
+			Arrays.fill(reach[0][2], 1);
+			traversePublicNode(0);
+			if (telemetry != null) {
+				telemetry.startRegretMatching();
+			}
+			regretMatch();
+			if (telemetry != null) {
+				telemetry.endRegretMatching();
+				telemetry.endIteration(this, totalIterationsRun, (long) totalIterationsRun * numPublicNodes);
+			}
+		}
+	}
+
+	/**
+	 * Computes the counterfactual values of both players at the public node from the reach probabilities already stored for it, updating regrets
+	 * and the averaged strategy at the player nodes
+	 * @param publicNodeId
+	 */
+	private void traversePublicNode(int publicNodeId) {
+		double[] reachPlayer1 = reach[publicNodeId][1];
+		double[] reachPlayer2 = reach[publicNodeId][2];
+		double[] valuePlayer1 = value[publicNodeId][1];
+		double[] valuePlayer2 = value[publicNodeId][2];
+		int player = publicPlayer[publicNodeId];
+
+		if (player == LEAF) {
+			// valuePlayer1 = M * reachPlayer2, valuePlayer2 = -M^T * reachPlayer1
+			double[] payoffMatrix = publicPayoffMatrix[publicNodeId];
+			Arrays.fill(valuePlayer2, 0);
+			for (int type1 = 0; type1 < numTypes[1]; type1++) {
+				double sum = 0;
+				int row = type1 * numTypes[2];
+				for (int type2 = 0; type2 < numTypes[2]; type2++) {
+					sum += payoffMatrix[row + type2] * reachPlayer2[type2];
+					valuePlayer2[type2] -= payoffMatrix[row + type2] * reachPlayer1[type1];
+				}
+				valuePlayer1[type1] = sum;
+			}
+			return;
+		}
+
+		int firstChild = publicFirstChild[publicNodeId];
+		int numChildren = publicNumChildren[publicNodeId];
+		Arrays.fill(valuePlayer1, 0);
+		Arrays.fill(valuePlayer2, 0);
+
+		if (player == 0) {
+			// The chance probabilities are part of the payoff matrices, so the reach probabilities are passed on unchanged
+			for (int child = firstChild; child < firstChild + numChildren; child++) {
+				System.arraycopy(reachPlayer1, 0, reach[child][1], 0, numTypes[1]);
+				System.arraycopy(reachPlayer2, 0, reach[child][2], 0, numTypes[2]);
+				traversePublicNode(child);
+				for (int type = 0; type < numTypes[1]; type++) {
+					valuePlayer1[type] += value[child][1][type];
+				}
+				for (int type = 0; type < numTypes[2]; type++) {
+					valuePlayer2[type] += value[child][2][type];
+				}
+			}
+			return;
+		}
+
+		int opponent = (player % 2) + 1;
+		int[] informationSetByType = publicInformationSet[publicNodeId];
+		double[] reachPlayer = reach[publicNodeId][player];
+		double[] valuePlayer = value[publicNodeId][player];
+		double[] valueOpponent = value[publicNodeId][opponent];
+		for (int actionId = 0; actionId < numChildren; actionId++) {
+			int child = firstChild + actionId;
+			double[] childReachPlayer = reach[child][player];
+			for (int type = 0; type < numTypes[player]; type++) {
+				int informationSetId = informationSetByType[type];
+				childReachPlayer[type] = informationSetId < 0 ? 0 : reachPlayer[type] * currentStrategy[player][informationSetId][actionId];
+			}
+			System.arraycopy(reach[publicNodeId][opponent], 0, reach[child][opponent], 0, numTypes[opponent]);
+			traversePublicNode(child);
+			double[] childValuePlayer = value[child][player];
+			double[] childValueOpponent = value[child][opponent];
+			for (int type = 0; type < numTypes[player]; type++) {
+				int informationSetId = informationSetByType[type];
+				if (informationSetId >= 0) {
+					valuePlayer[type] += currentStrategy[player][informationSetId][actionId] * childValuePlayer[type];
+				}
+			}
+			for (int type = 0; type < numTypes[opponent]; type++) {
+				valueOpponent[type] += childValueOpponent[type];
+			}
+		}
+
+		for (int type = 0; type < numTypes[player]; type++) {
+			int informationSetId = informationSetByType[type];
+			if (informationSetId < 0) continue;
+			for (int actionId = 0; actionId < numChildren; actionId++) {
+				regretTable[player][informationSetId][actionId] += value[firstChild + actionId][player][type] - valuePlayer[type];
+				averagedStrategy[player][informationSetId][actionId] += reachPlayer[type] * currentStrategy[player][informationSetId][actionId];
+			}
+		}
+	}
+
+	private void regretMatch() {
+		for (int player = 1; player < 3; player++) {
+			for (int informationSetId = 0; informationSetId < regretTable[player].length; informationSetId++) {
+				double[] regrets = regretTable[player][informationSetId];
+				double regretSum = 0;
+				for (int action = 0; action < regrets.length; action++) {
+					regretSum += Math.max(0, regrets[action]);
+				}
+				for (int action = 0; action < regrets.length; action++) {
+					currentStrategy[player][informationSetId][action] = regretSum > 0 ? Math.max(0, regrets[action]) / regretSum : 1.0 / regrets.length;
+				}
+			}
+		}
+	}
+
+	@Override
+	public double[][][] getStrategyProfile() {
+		double[][][] profile = new double[3][][];
+		for (int player = 1; player < 3; player++) {
+			profile[player] = new double[averagedStrategy[player].length][];
+			for (int informationSetId = 0; informationSetId < averagedStrategy[player].length; informationSetId++) {
+				double[] averaged = averagedStrategy[player][informationSetId];
+				profile[player][informationSetId] = new double[averaged.length];
+				double sum = 0;
+				for (int actionId = 0; actionId < averaged.length; actionId++) {
+					sum += averaged[actionId];
+				}
+				for (int actionId = 0; actionId < averaged.length; actionId++) {
+					profile[player][informationSetId][actionId] = sum > 0 ? averaged[actionId] / sum : 0;
+				}
+			}
+		}
+		return profile;
+	}
+
+	public int getNumPublicNodes() {
+		return numPublicNodes;
+	}
+
+	public int getNumDeals() {
+		return dealRoot.size();
+	}
+
+	public int getNumTypes(int player) {
+		return numTypes[player];
+	}
+
+	public int getTotalIterationsRun() {
+		return totalIterationsRun;
+	}
+}
@@ -1,6 +1,7 @@
 package extensive_form_game_solver;
 
 import extensive_form_game.GameGenerator;
+import extensive_form_game.StrategyProfile;
 import gnu.trove.map.TIntDoubleMap;
 import gnu.trove.map.TObjectDoubleMap;
 
@@ -14,6 +15,8 @@ public abstract class ZeroSumGameSolver {
 	double valueOfGame;
 	double [] strategyVars;
 	GameGenerator game;
+	// null when metrics are not collected
+	SolverTelemetry telemetry;
 	
 	public ZeroSumGameSolver(GameGenerator game) {
 		this.game = game;
@@ -35,6 +38,63 @@ public abstract class ZeroSumGameSolver {
 		return strategyVars;
 	}
 
+	public SolverTelemetry getTelemetry() {
+		return telemetry;
+	}
+
+	/**
+	 * @param telemetry receives the metrics of each iteration run by iterative solvers, null to stop collecting them
+	 */
+	public void setTelemetry(SolverTelemetry telemetry) {
+		this.telemetry = telemetry;
+	}
+
 	//public abstract TObjectDoubleMap<String>[] getInformationSetActionProbabilities();
 	public abstract double[][][] getStrategyProfile();
+
+	/**
+	 * @return the strategy profile of getStrategyProfile as a StrategyProfile. Players that the solver does not compute a strategy for have probability zero on all actions
+	 */
+	public StrategyProfile getFlatStrategyProfile() {
+		return new StrategyProfile(game, getStrategyProfile());
+	}
+
+	/**
+	 * @return the exploitability of getStrategyProfile, computed by BestResponseTreeTraversalSolver in time linear in the size of the game tree
+	 */
+	public double computeExploitability() {
+		return BestResponseTreeTraversalSolver.computeExploitability(game, getStrategyProfile());
+	}
+
+	/**
+	 * Normalizes an averaged strategy into a strategy profile, mapping information sets and actions through the abstraction of the game
+	 * @param game
+	 * @param averagedStrategy indexed as [player][abstractInformationSetId][abstractActionId]. Null rows are treated as all zero
+	 * @param uniformIfZero if true, information sets whose averaged strategy sums to zero are played uniformly, otherwise with probability zero on all actions
+	 * @return strategy profile indexed as [player][informationSetId][actionId]
+	 */
+	static double[][][] normalizeAveragedStrategy(GameGenerator game, double[][][] averagedStrategy, boolean uniformIfZero) {
+		double[][][] map = new double[3][][];
+		for (int player = 1; player < 3; player++) {
+			int numInformationSets = game.getNumInformationSets(player);
+			map[player] = new double[numInformationSets][];
+			for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
+				int numActions = game.getNumActionsAtInformationSet(player, informationSetId);
+				map[player][informationSetId] = new double[numActions];
+				double[] averaged = averagedStrategy[player][game.getAbstractInformationSetId(player, informationSetId)];
+				double sum = 0;
+				for (int actionId = 0; averaged != null && actionId < numActions; actionId++) {
+					sum += averaged[game.getAbstractActionMapping(player, informationSetId, actionId)];
+				}
+				for (int actionId = 0; actionId < numActions; actionId++) {
+					if (sum > 0) {
+						map[player][informationSetId][actionId] = averaged[game.getAbstractActionMapping(player, informationSetId, actionId)] / sum;
+					} else if (uniformIfZero) {
+						map[player][informationSetId][actionId] = 1.0 / numActions;
+					}
+				}
+			}
+		}
+		return map;
+	}
 }
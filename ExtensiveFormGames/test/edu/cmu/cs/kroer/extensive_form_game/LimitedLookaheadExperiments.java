@@ -43,6 +43,9 @@ public class LimitedLookaheadExperiments {
 		
 		TObjectDoubleMap<String>[] strategyP1 = solverP1.getInformationSetActionProbabilities();
 		TObjectDoubleMap<String>[] strategyP2 = solverP2.getInformationSetActionProbabilities();
+		// The evaluation without cumulative noise does not depend on the noise level or iteration, so it is computed once and copied
+		double[][][] strategyProfile = game.getStrategyProfile(strategyP1, strategyP2);
+		double[] expectedValues = game.getExpectedValuesForNodesParallel(strategyProfile, playerToSolveFor == 1);
 
 
 		
@@ -50,18 +53,24 @@ public class LimitedLookaheadExperiments {
 		MersenneTwister twister = new MersenneTwister();
 		//int[][] iterationsBookKeeper = new int[lookAheadUpperBound][noiseUpperBound / noiseIncrement];
 		for (int noise = 0; noise < noiseUpperBound; noise++) {
-			NormalDistribution distribution;
-			if (noise > 0) distribution = new NormalDistribution(twister, 0, (double) noise / noiseDivisor);
-			else distribution = new NormalDistribution(twister, 0, 1);
+			// One seeded distribution per iteration, so the noisy evaluations of all iterations can be computed in a single traversal
+			NormalDistribution[] distributions = new NormalDistribution[iterations];
+			for (int iteration = 0; iteration < iterations; iteration++) {
+				if (noise > 0) distributions[iteration] = new NormalDistribution(new MersenneTwister(twister.nextLong()), 0, (double) noise / noiseDivisor);
+			}
+			double[][] cumulativeNodeEvaluationTables = null;
+			if (cumulativeNoise && noise > 0) {
+				//System.out.println("Adding cumulative");
+				cumulativeNodeEvaluationTables = game.getNoisyExpectedValuesForNodes(strategyProfile, playerToSolveFor == 1, distributions);
+			}
 			for (int iteration = 0; iteration < iterations; iteration++) {
 				double[] nodeEvaluationTable;
-				if (cumulativeNoise && noise > 0) {
-					//System.out.println("Adding cumulative");
-					nodeEvaluationTable = game.getExpectedValuesForNodes(strategyP1, strategyP2, playerToSolveFor == 1, distribution);
+				if (cumulativeNodeEvaluationTables != null) {
+					nodeEvaluationTable = cumulativeNodeEvaluationTables[iteration];
 				} else {
-					nodeEvaluationTable = game.getExpectedValuesForNodes(strategyP1, strategyP2, playerToSolveFor == 1);
+					nodeEvaluationTable = expectedValues.clone();
 				}
-				if (noise > 0) addGaussianNoise(distribution, nodeEvaluationTable);
+				if (noise > 0) addGaussianNoise(distributions[iteration], nodeEvaluationTable);
 				// Compute the best strategy to commit to
 				LimitedLookAheadOpponentSolver solver = new LimitedLookAheadOpponentSolver(game, playerToSolveFor, nodeEvaluationTable, lookAhead);
 				solver.solveGame();
@@ -0,0 +1,67 @@
+package edu.cmu.cs.kroer.extensive_form_game;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import extensive_form_game.Game;
+import extensive_form_game_solver.BestResponseTreeTraversalSolver;
+import extensive_form_game_solver.CFRPlusSolver;
+import extensive_form_game_solver.CounterFactualRegretSolver;
+import gnu.trove.list.array.TDoubleArrayList;
+
+public class TestBestResponseTreeTraversalSolver {
+
+	@Test
+	public void testBestResponseValues() {
+		testBestResponseValues("kuhn.txt", TestConfiguration.kuhnValueOfGame);
+		testBestResponseValues("leduc_Kj1Raise.txt", TestConfiguration.leducKj1RaiseValueOfGame);
+		testBestResponseValues("prsl.txt", TestConfiguration.prslValueOfGame);
+	}
+
+	public void testBestResponseValues(String gameFile, double gameValue) {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + gameFile);
+		CFRPlusSolver solver = new CFRPlusSolver(game);
+		solver.runCFR(1000);
+		double[][][] strategyProfile = solver.getStrategyProfile();
+
+		BestResponseTreeTraversalSolver player1BestResponse = new BestResponseTreeTraversalSolver(game, 1, strategyProfile[2]);
+		player1BestResponse.solveGame();
+		BestResponseTreeTraversalSolver player2BestResponse = new BestResponseTreeTraversalSolver(game, 2, strategyProfile[1]);
+		player2BestResponse.solveGame();
+		assertEquals(gameValue, player1BestResponse.getValueOfGame(), 0.001);
+		assertEquals(gameValue, -player2BestResponse.getValueOfGame(), 0.001);
+
+		// Neither player can do better than the game value against an equilibrium
+		double exploitability = solver.computeExploitability();
+		assertEquals(player1BestResponse.getValueOfGame() + player2BestResponse.getValueOfGame(), exploitability, 1e-12);
+		assertTrue(exploitability >= -1e-12);
+		assertTrue(exploitability < 0.001);
+
+		// Solving again against the best response of player 2 gives the same value as the best response of player 1 against it
+		double[][][] bestResponseProfile = player2BestResponse.getStrategyProfile();
+		BestResponseTreeTraversalSolver counterResponse = new BestResponseTreeTraversalSolver(game, 1, bestResponseProfile[2]);
+		counterResponse.solveGame();
+		assertTrue(counterResponse.getValueOfGame() >= -player2BestResponse.getValueOfGame() - 1e-12);
+	}
+
+	@Test
+	public void testExploitabilityDuringCFR() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "leduc.txt");
+		CounterFactualRegretSolver solver = new CounterFactualRegretSolver(game);
+		TDoubleArrayList exploitability = new TDoubleArrayList();
+		solver.runCFR(250, 100, exploitability);
+		assertEquals(3, exploitability.size());
+		assertTrue(exploitability.get(2) < exploitability.get(0));
+		assertEquals(solver.computeExploitability(), exploitability.get(2), 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsZeroExploitabilityInterval() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		new CounterFactualRegretSolver(game).runCFR(10, 0, new TDoubleArrayList());
+	}
+}
@@ -0,0 +1,77 @@
+package edu.cmu.cs.kroer.extensive_form_game;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import extensive_form_game.BinaryGameFormat;
+import extensive_form_game.Game;
+import extensive_form_game.MappedGame;
+import extensive_form_game_solver.CounterFactualRegretSolver;
+
+public class TestBinaryGameFormat {
+
+	@Test
+	public void testRoundTripKuhn() throws Exception {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		MappedGame mappedGame = convert(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+
+		assertEquals(game.getNumNodes(), mappedGame.getNumNodes());
+		assertEquals(game.getRoot(), mappedGame.getRoot());
+		for (int nodeId = 0; nodeId < game.getNumNodes(); nodeId++) {
+			Game.Node node = game.getNodeById(nodeId);
+			assertEquals(node.getName(), mappedGame.getNodeName(nodeId));
+			assertEquals(node.getPlayer(), mappedGame.getPlayer(nodeId));
+			if (node.isLeaf()) {
+				assertEquals(node.getValue(), mappedGame.getPayoff(nodeId), 0);
+				continue;
+			}
+			assertEquals(node.getActions().length, mappedGame.getNumActions(nodeId));
+			for (int actionId = 0; actionId < node.getActions().length; actionId++) {
+				assertEquals(node.getActions()[actionId].getChildId(), mappedGame.getChildId(nodeId, actionId));
+			}
+		}
+		testCFRMatchesGame(game, mappedGame, 1000);
+	}
+
+	@Test
+	public void testRoundTripLeducWithSignals() throws Exception {
+		Game game = new Game();
+		game.createGameFromFile(TestConfiguration.gamesFolder + "leduc.txt");
+		MappedGame mappedGame = convert(TestConfiguration.gamesFolder + "leduc.txt");
+		assertEquals(game.getNumInformationSets(1), mappedGame.getNumInformationSets(1));
+		assertEquals(game.getNumInformationSets(2), mappedGame.getNumInformationSets(2));
+		testCFRMatchesGame(game, mappedGame, 100);
+	}
+
+	@Test(expected = java.io.IOException.class)
+	public void testRejectsTextFile() throws Exception {
+		BinaryGameFormat.read(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+	}
+
+	private MappedGame convert(String filename) throws Exception {
+		File binaryFile = File.createTempFile("game", ".efgb");
+		binaryFile.deleteOnExit();
+		BinaryGameFormat.convert(filename, binaryFile.getPath());
+		return BinaryGameFormat.read(binaryFile.getPath());
+	}
+
+	private void testCFRMatchesGame(Game game, MappedGame mappedGame, int iterations) {
+		CounterFactualRegretSolver solver = new CounterFactualRegretSolver(game);
+		solver.runCFR(iterations);
+		CounterFactualRegretSolver mappedSolver = new CounterFactualRegretSolver(mappedGame);
+		mappedSolver.runCFR(iterations);
+
+		double[][][] strategyProfile = solver.getStrategyProfile();
+		double[][][] mappedStrategyProfile = mappedSolver.getStrategyProfile();
+		for (int player = 1; player < 3; player++) {
+			for (int informationSetId = 0; informationSetId < strategyProfile[player].length; informationSetId++) {
+				assertArrayEquals(strategyProfile[player][informationSetId], mappedStrategyProfile[player][informationSetId], 0);
+			}
+		}
+		assertEquals(game.computeGameValueForStrategies(strategyProfile), mappedGame.computeGameValueForStrategies(mappedStrategyProfile), 0);
+	}
+}
@@ -0,0 +1,37 @@
+package edu.cmu.cs.kroer.extensive_form_game;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import extensive_form_game.Game;
+import extensive_form_game_solver.CFRPlusSolver;
+
+public class TestCFRPlusSolver {
+
+	@Test
+	public void testKuhnConvergence() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		testGameConvergence(game, TestConfiguration.kuhnValueOfGame, 1000, 0.001);
+	}
+
+	@Test
+	public void testLeducKj1RaiseConvergence() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "leduc_Kj1Raise.txt");
+		testGameConvergence(game, TestConfiguration.leducKj1RaiseValueOfGame, 1000, 0.001);
+	}
+
+	public void testGameConvergence(Game game, double gameValue, int iterations, double epsilon) {
+		CFRPlusSolver solver = new CFRPlusSolver(game);
+		solver.runCFR(iterations);
+
+		double[][][] strategyProfile = solver.getStrategyProfile();
+
+		// The exploitability is the sum of how much each player's best response gains over the value of the game
+		assertTrue(solver.computeExploitability() < epsilon);
+
+		assertEquals(gameValue, game.computeGameValueForStrategies(strategyProfile), epsilon);
+	}
+}
@@ -0,0 +1,51 @@
+package edu.cmu.cs.kroer.extensive_form_game;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import extensive_form_game.Game;
+import extensive_form_game_solver.DiscountedCFRSolver;
+
+public class TestDiscountedCFRSolver {
+
+	@Test
+	public void testKuhnConvergence() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		testGameConvergence(game, TestConfiguration.kuhnValueOfGame, 1000, 0.001);
+	}
+
+	@Test
+	public void testLeducKj1RaiseConvergence() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "leduc_Kj1Raise.txt");
+		testGameConvergence(game, TestConfiguration.leducKj1RaiseValueOfGame, 1000, 0.001);
+	}
+
+	@Test
+	public void testParameters() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		DiscountedCFRSolver solver = new DiscountedCFRSolver(game);
+		assertEquals(1.5, solver.getAlpha(), 0);
+		assertEquals(0, solver.getBeta(), 0);
+		assertEquals(2, solver.getGamma(), 0);
+
+		// Linear regret discounting with a uniform average
+		solver = new DiscountedCFRSolver(game, 1, 1, 0);
+		solver.runCFR(1000);
+		assertEquals(TestConfiguration.kuhnValueOfGame, game.computeGameValueForStrategies(solver.getStrategyProfile()), 0.01);
+	}
+
+	public void testGameConvergence(Game game, double gameValue, int iterations, double epsilon) {
+		DiscountedCFRSolver solver = new DiscountedCFRSolver(game);
+		solver.runCFR(iterations);
+
+		double[][][] strategyProfile = solver.getStrategyProfile();
+
+		assertTrue(solver.computeExploitability() < epsilon);
+
+		assertEquals(gameValue, game.computeGameValueForStrategies(strategyProfile), epsilon);
+	}
+}
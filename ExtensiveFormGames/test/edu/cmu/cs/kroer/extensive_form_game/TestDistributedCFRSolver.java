@@ -0,0 +1,111 @@
+package edu.cmu.cs.kroer.extensive_form_game;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import extensive_form_game.BinaryGameFormat;
+import extensive_form_game.Game;
+import extensive_form_game.GameGenerator;
+import extensive_form_game_solver.CounterFactualRegretSolver;
+import extensive_form_game_solver.DistributedCFRSolver;
+import extensive_form_game_solver.DistributedCFRWorker;
+
+public class TestDistributedCFRSolver {
+
+	@Test
+	public void testMatchesCFR() throws Exception {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "leduc.txt");
+		testMatchesCFR(game, 1);
+		testMatchesCFR(game, 3);
+	}
+
+	private void testMatchesCFR(GameGenerator game, int numWorkers) throws Exception {
+		DistributedCFRSolver solver = new DistributedCFRSolver(game, numWorkers, 0);
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int workerIndex = 0; workerIndex < numWorkers; workerIndex++) {
+			final DistributedCFRWorker worker = new DistributedCFRWorker(game, workerIndex, numWorkers);
+			assertTrue(worker.getNumSubtrees() > 0);
+			assertTrue(worker.getNumInformationSetsReached(1) <= game.getNumInformationSets(1));
+			final int port = solver.getPort();
+			// The coordinator answers the handshake only once all workers have connected, so each worker connects on its own thread
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						worker.connect("localhost", port);
+						worker.serve();
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+				}
+			};
+			thread.start();
+			threads.add(thread);
+		}
+		solver.runCFR(200);
+
+		CounterFactualRegretSolver cfrSolver = new CounterFactualRegretSolver(game);
+		cfrSolver.runCFR(200);
+		// The workers do not count the nature nodes above their subtrees
+		assertTrue(solver.getNumNodesTouched() > 0 && solver.getNumNodesTouched() <= cfrSolver.getNumNodesTouched());
+		assertStrategiesEqual(cfrSolver.getStrategyProfile(), solver.getStrategyProfile());
+		assertEquals(cfrSolver.getValueOfGame(), solver.getValueOfGame(), 1e-9);
+
+		solver.close();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+	}
+
+	private void assertStrategiesEqual(double[][][] expected, double[][][] actual) {
+		for (int player = 1; player < 3; player++) {
+			for (int informationSetId = 0; informationSetId < expected[player].length; informationSetId++) {
+				assertArrayEquals(expected[player][informationSetId], actual[player][informationSetId], 1e-9);
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWorkerRejectsLocalIterations() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		new DistributedCFRWorker(game, 0, 2).runCFR(1);
+	}
+
+	@Test
+	public void testWorkerProcesses() throws Exception {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		File binaryFile = File.createTempFile("game", ".efgb");
+		binaryFile.deleteOnExit();
+		BinaryGameFormat.write(game, binaryFile.getPath());
+
+		DistributedCFRSolver solver = new DistributedCFRSolver(game, 2, 0);
+		List<Process> processes = new ArrayList<Process>();
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		for (int workerIndex = 0; workerIndex < 2; workerIndex++) {
+			ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), DistributedCFRWorker.class.getName(),
+					binaryFile.getPath(), "localhost", Integer.toString(solver.getPort()), Integer.toString(workerIndex), "2");
+			builder.inheritIO();
+			processes.add(builder.start());
+		}
+		solver.runCFR(1000);
+
+		CounterFactualRegretSolver cfrSolver = new CounterFactualRegretSolver(game);
+		cfrSolver.runCFR(1000);
+		assertStrategiesEqual(cfrSolver.getStrategyProfile(), solver.getStrategyProfile());
+		assertEquals(TestConfiguration.kuhnValueOfGame, solver.getValueOfGame(), 0.01);
+
+		solver.close();
+		for (Process process : processes) {
+			assertEquals(0, process.waitFor());
+		}
+	}
+}
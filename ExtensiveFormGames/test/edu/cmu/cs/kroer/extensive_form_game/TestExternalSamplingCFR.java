@@ -0,0 +1,59 @@
+package edu.cmu.cs.kroer.extensive_form_game;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import extensive_form_game.Game;
+import extensive_form_game_solver.CounterFactualRegretSolver;
+import extensive_form_game_solver.ExternalSamplingCFR;
+import extensive_form_game_solver.OpponentSamplingCFR;
+
+public class TestExternalSamplingCFR {
+
+	@Test
+	public void testConvergence() {
+		testConvergence("kuhn.txt", TestConfiguration.kuhnValueOfGame, 0.02);
+		testConvergence("leduc_Kj1Raise.txt", TestConfiguration.leducKj1RaiseValueOfGame, 0.05);
+	}
+
+	public void testConvergence(String gameFile, double gameValue, double exploitability) {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + gameFile);
+		ExternalSamplingCFR solver = new ExternalSamplingCFR(game);
+		solver.reseed(1);
+		solver.runCFR(50000);
+		assertEquals(50000, solver.getTotalIterationsRun());
+		assertEquals(gameValue, solver.getValueOfGame(), 0.01);
+		assertTrue(solver.computeExploitability() < exploitability);
+
+		// Only the updating player branches, so an iteration touches a fraction of the tree
+		CounterFactualRegretSolver cfrSolver = new CounterFactualRegretSolver(game);
+		cfrSolver.runCFR(1);
+		assertTrue(solver.getNumNodesTouched() / 50000.0 < 0.5 * cfrSolver.getNumNodesTouched());
+	}
+
+	@Test
+	public void testReseed() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "leduc.txt");
+		ExternalSamplingCFR solver = new ExternalSamplingCFR(game);
+		solver.reseed(3);
+		solver.runCFR(500);
+		ExternalSamplingCFR otherSolver = new ExternalSamplingCFR(game);
+		otherSolver.reseed(3);
+		otherSolver.runCFR(500);
+		assertTrue(Arrays.deepEquals(solver.getStrategyProfile(), otherSolver.getStrategyProfile()));
+	}
+
+	@Test
+	public void testOpponentSamplingRunsAllIterations() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		OpponentSamplingCFR solver = new OpponentSamplingCFR(game);
+		solver.runCFR(1);
+		assertTrue(solver.getNumNodesTouched() > 0);
+	}
+}
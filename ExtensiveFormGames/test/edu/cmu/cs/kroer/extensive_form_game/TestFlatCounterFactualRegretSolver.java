@@ -0,0 +1,52 @@
+package edu.cmu.cs.kroer.extensive_form_game;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import extensive_form_game.Game;
+import extensive_form_game_solver.CounterFactualRegretSolver;
+import extensive_form_game_solver.FlatCounterFactualRegretSolver;
+import extensive_form_game_solver.FlatCounterFactualRegretSolver.Precision;
+
+public class TestFlatCounterFactualRegretSolver {
+
+	@Test
+	public void testDoubleMatchesCFR() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "leduc.txt");
+		CounterFactualRegretSolver solver = new CounterFactualRegretSolver(game);
+		solver.runCFR(200);
+		FlatCounterFactualRegretSolver flatSolver = new FlatCounterFactualRegretSolver(game, Precision.DOUBLE);
+		flatSolver.runCFR(200);
+
+		double[][][] strategyProfile = solver.getStrategyProfile();
+		double[][][] flatStrategyProfile = flatSolver.getStrategyProfile();
+		for (int player = 1; player < 3; player++) {
+			for (int informationSetId = 0; informationSetId < strategyProfile[player].length; informationSetId++) {
+				assertArrayEquals(strategyProfile[player][informationSetId], flatStrategyProfile[player][informationSetId], 0);
+			}
+		}
+		assertEquals(solver.getNumNodesTouched(), flatSolver.getNumNodesTouched());
+	}
+
+	@Test
+	public void testReducedPrecision() {
+		testReducedPrecision("kuhn.txt", TestConfiguration.kuhnValueOfGame);
+		testReducedPrecision("leduc_Kj1Raise.txt", TestConfiguration.leducKj1RaiseValueOfGame);
+	}
+
+	public void testReducedPrecision(String gameFile, double gameValue) {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + gameFile);
+		long nestedTableBytes = FlatCounterFactualRegretSolver.estimateNestedTableBytes(game);
+		for (Precision precision : Precision.values()) {
+			FlatCounterFactualRegretSolver solver = new FlatCounterFactualRegretSolver(game, precision);
+			if (precision != Precision.DOUBLE) {
+				assertTrue(2 * solver.getTableBytes() <= nestedTableBytes);
+			}
+			solver.runCFR(2000);
+			assertEquals(gameValue, solver.getValueOfGame(), 0.01);
+		}
+	}
+}
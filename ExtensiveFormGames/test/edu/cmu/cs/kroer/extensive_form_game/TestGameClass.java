@@ -1,11 +1,22 @@
 package edu.cmu.cs.kroer.extensive_form_game;
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.apache.commons.math3.random.MersenneTwister;
 import org.junit.Test;
 
+import extensive_form_game.CompactGame;
 import extensive_form_game.Game;
+import extensive_form_game_abstraction.SignalAbstraction;
+import gnu.trove.map.TObjectDoubleMap;
+import gnu.trove.map.hash.TObjectDoubleHashMap;
 
 
 public class TestGameClass {
@@ -120,7 +131,139 @@ public class TestGameClass {
 	}
 	
 	@Test
-	public void testApplySignalAbstraction() {
-		
+	public void testApplySignalAbstraction() throws Exception {
+		// Player 1 privately observes a die roll of 1, 2 or 3 and checks or raises, Player 2 only observes the action of Player 1
+		File gameFile = File.createTempFile("signal_abstraction", ".txt");
+		gameFile.deleteOnExit();
+		PrintWriter out = new PrintWriter(gameFile);
+		out.println("'signal abstraction test' 1 9 12 0 21 0 3 2");
+		out.println("0 '/' 3 '1' 1 1 '2' 2 1 '3' 3 1");
+		int leafId = 10;
+		for (int die = 1; die <= 3; die++) {
+			out.println(die + " '/n;0;" + die + "/' 0 " + (die-1) + " 2 'c' " + (2+2*die) + " 'r' " + (3+2*die));
+			String[] player1Actions = {"c", "r"};
+			for (int action = 0; action < 2; action++) {
+				String name = "/n;0;" + die + "/0;a;" + player1Actions[action] + "/";
+				out.println((2+2*die+action) + " '" + name + "' 1 " + action + " 2 'c' " + leafId + " 'f' " + (leafId+1));
+				out.println(leafId++ + " '" + name + "1;a;c/' " + (die-2));
+				out.println(leafId++ + " '" + name + "1;a;f/' 1");
+			}
+		}
+		out.close();
+
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(gameFile.getPath());
+		SignalAbstraction abstraction = new SignalAbstraction(new String[] {"1", "2", "3"});
+		abstraction.addAbstractionByName(Arrays.asList("2"), Arrays.asList("3"));
+		game.applySignalAbstraction(abstraction);
+
+		assertEquals(0, game.getAbstractInformationSetId(1, 0));
+		assertEquals(1, game.getAbstractInformationSetId(1, 1));
+		assertEquals(1, game.getAbstractInformationSetId(1, 2));
+		assertTrue(game.informationSetAbstracted(1, 2));
+		assertEquals(0, game.getAbstractInformationSetId(2, 0));
+		assertEquals(1, game.getAbstractInformationSetId(2, 1));
+
+		// Applying a different abstraction replaces the previous one
+		SignalAbstraction otherAbstraction = new SignalAbstraction(new String[] {"1", "2", "3"});
+		otherAbstraction.addAbstractionByName(Arrays.asList("1"), Arrays.asList("2"));
+		game.applySignalAbstraction(otherAbstraction);
+		assertEquals(0, game.getAbstractInformationSetId(1, 1));
+		assertEquals(2, game.getAbstractInformationSetId(1, 2));
+		assertFalse(game.informationSetAbstracted(1, 2));
+	}
+
+	@Test
+	public void testCompactNodeNames() {
+		testCompactNodeNames(TestConfiguration.gamesFolder + "leduc.txt", false);
+		testCompactNodeNames(TestConfiguration.zerosumGamesFolder + "leduc.txt", true);
+	}
+
+	private void testCompactNodeNames(String filename, boolean zerosumFormat) {
+		Game game = new Game();
+		if (zerosumFormat) {
+			game.createGameFromFileZerosumPackageFormat(filename);
+		} else {
+			game.createGameFromFile(filename);
+		}
+		String[] names = new String[game.getNumNodes()];
+		for (int nodeId = 0; nodeId < game.getNumNodes(); nodeId++) {
+			names[nodeId] = game.getNodeById(nodeId).getName();
+		}
+		double bytesPerNode = CompactGame.estimateObjectGraphBytesPerNode(game);
+
+		game.compactNodeNames();
+		assertTrue(game.hasCompactNodeNames());
+		for (int nodeId = 0; nodeId < game.getNumNodes(); nodeId++) {
+			assertEquals(names[nodeId], game.getNodeById(nodeId).getName());
+			assertEquals(names[nodeId], game.getNodeById(nodeId).toString());
+		}
+		assertTrue(CompactGame.estimateObjectGraphBytesPerNode(game) < bytesPerNode);
+	}
+
+	@Test
+	public void testParallelExpectedValuesMatchSequential() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "leduc.txt");
+
+		TObjectDoubleMap<String>[][] strategies = createRandomStrategies(game, new Random(0));
+		double[][][] strategyProfile = game.getStrategyProfile(strategies[0], strategies[1]);
+
+		for (boolean negateValues : new boolean[] {false, true}) {
+			double[] expectedValues = game.getExpectedValuesForNodes(strategies[0], strategies[1], negateValues);
+			assertArrayEquals(expectedValues, game.getExpectedValuesForNodes(strategyProfile, negateValues), 0);
+			assertArrayEquals(expectedValues, game.getExpectedValuesForNodesParallel(strategyProfile, negateValues), 0);
+			assertArrayEquals(expectedValues, game.getExpectedValuesForNodesParallel(strategyProfile, negateValues, new ForkJoinPool(3)), 0);
+		}
+	}
+
+	@Test
+	public void testNoisyExpectedValuesMatchSeparateTraversals() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "leduc.txt");
+		TObjectDoubleMap<String>[][] strategies = createRandomStrategies(game, new Random(0));
+		double[][][] strategyProfile = game.getStrategyProfile(strategies[0], strategies[1]);
+
+		int numSamples = 4;
+		NormalDistribution[] distributions = new NormalDistribution[numSamples];
+		for (int sample = 0; sample < numSamples; sample++) {
+			distributions[sample] = new NormalDistribution(new MersenneTwister(sample), 0, 0.1);
+		}
+		double[][] expectedValues = game.getNoisyExpectedValuesForNodes(strategyProfile, true, distributions);
+		assertEquals(numSamples, expectedValues.length);
+		for (int sample = 0; sample < numSamples; sample++) {
+			NormalDistribution distribution = new NormalDistribution(new MersenneTwister(sample), 0, 0.1);
+			assertArrayEquals(game.getExpectedValuesForNodes(strategies[0], strategies[1], true, distribution), expectedValues[sample], 0);
+		}
+
+		// Seeded samples are reproducible and differ from each other
+		double[][] seeded = game.getNoisyExpectedValuesForNodes(strategyProfile, false, 0.1, 42, 2);
+		assertArrayEquals(seeded[0], game.getNoisyExpectedValuesForNodes(strategyProfile, false, 0.1, 42, 2)[0], 0);
+		assertFalse(Arrays.equals(seeded[0], seeded[1]));
+	}
+
+	/**
+	 * Creates random strategies for both players where some actions have probability zero, so probability zero subtrees are covered
+	 * @return strategies indexed as [player-1][informationSetId]
+	 */
+	private TObjectDoubleMap<String>[][] createRandomStrategies(Game game, Random random) {
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		TObjectDoubleMap<String>[][] strategies = new TObjectDoubleMap[][] {new TObjectDoubleMap[game.getNumInformationSetsPlayer1()], new TObjectDoubleMap[game.getNumInformationSetsPlayer2()]};
+		for (int nodeId = 0; nodeId < game.getNumNodes(); nodeId++) {
+			Game.Node node = game.getNodeById(nodeId);
+			if (node.isLeaf() || node.getPlayer() == 0 || strategies[node.getPlayer()-1][node.getInformationSet()] != null) continue;
+			TObjectDoubleMap<String> actionProbabilities = new TObjectDoubleHashMap<String>();
+			double sum = 0;
+			for (Game.Action action : node.getActions()) {
+				double weight = random.nextInt(3) == 0 ? 0 : random.nextDouble();
+				actionProbabilities.put(action.getName(), weight);
+				sum += weight;
+			}
+			for (Game.Action action : node.getActions()) {
+				actionProbabilities.put(action.getName(), sum > 0 ? actionProbabilities.get(action.getName()) / sum : 0);
+			}
+			strategies[node.getPlayer()-1][node.getInformationSet()] = actionProbabilities;
+		}
+		return strategies;
 	}
 }
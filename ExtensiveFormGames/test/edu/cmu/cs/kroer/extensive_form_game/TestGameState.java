@@ -0,0 +1,60 @@
+package edu.cmu.cs.kroer.extensive_form_game;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import extensive_form_game.Game;
+import extensive_form_game.GameState;
+
+public class TestGameState {
+
+	@Test
+	public void testReachProbabilitiesArePushedAndPopped() {
+		GameState gs = new GameState(2);
+		gs.addHistory(1, 0);
+		gs.addProbability(1, 0.5);
+		gs.addHistory(2, 1);
+		gs.addProbability(2, 0.25);
+		gs.addHistory(1, 1);
+		gs.addProbability(1, 0.5);
+		assertEquals(0.25, gs.getProbabilityWithPlayer(1), 0);
+		assertEquals(0.25, gs.getProbabilityWithPlayer(2), 0);
+		assertEquals(1, gs.getProbabilityWithPlayer(0), 0);
+		assertEquals(0.25, gs.getProbabilityWithoutPlayer(1), 0);
+		assertEquals(2, gs.history(1).size());
+
+		gs.popAction(1);
+		gs.popProbability(1);
+		assertEquals(0.5, gs.getProbabilityWithPlayer(1), 0);
+		assertEquals(0.125, gs.getProbabilityWithoutPlayer(0), 0);
+	}
+
+	@Test
+	public void testStacksGrowBeyondCapacity() {
+		GameState gs = new GameState(1);
+		for (int i = 0; i < 10; i++) {
+			gs.addHistory(1, i);
+			gs.addProbability(1, 0.5);
+		}
+		assertEquals(Math.pow(0.5, 10), gs.getProbabilityWithPlayer(1), 0);
+		assertEquals(10, gs.history(1).size());
+	}
+
+	@Test
+	public void testTraversalRestoresInitialState() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		GameState gs = game.getInitialGameState();
+		int root = gs.getCurrentNodeId();
+		assertEquals(0, gs.getDepth());
+
+		int player = gs.getCurrentPlayer();
+		game.updateGameStateWithAction(gs, 0, 0.5);
+		assertEquals(1, gs.getDepth());
+		assertEquals(0.5, gs.getProbabilityWithPlayer(player), 0);
+		game.removeActionFromGameState(gs, 0, player);
+		assertEquals(root, gs.getCurrentNodeId());
+		assertEquals(1, gs.getProbabilityWithPlayer(player), 0);
+	}
+}
@@ -0,0 +1,178 @@
+package edu.cmu.cs.kroer.extensive_form_game;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import extensive_form_game.CompactGame;
+import extensive_form_game.Game;
+import extensive_form_game.GameTreeTraversal;
+import extensive_form_game_solver.CounterFactualRegretSolver;
+import gnu.trove.map.TObjectDoubleMap;
+import gnu.trove.map.hash.TObjectDoubleHashMap;
+
+public class TestGameTreeTraversal {
+	private static final int CHAIN_LENGTH = 100000;
+
+	@Test
+	public void testCallbackOrderMatchesRecursion() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		final List<String> callbacks = new ArrayList<String>();
+		new GameTreeTraversal(game).traverse(game.getRoot(), new GameTreeTraversal.Visitor() {
+			@Override
+			public boolean enterNode(int nodeId, int depth) {
+				callbacks.add("enter " + nodeId + " " + depth);
+				return true;
+			}
+
+			@Override
+			public void beforeChild(int nodeId, int actionId, int childId, int depth) {
+				callbacks.add("before " + nodeId + " " + actionId + " " + childId + " " + depth);
+			}
+
+			@Override
+			public void afterChild(int nodeId, int actionId, int childId, int depth) {
+				callbacks.add("after " + nodeId + " " + actionId + " " + childId + " " + depth);
+			}
+
+			@Override
+			public void exitNode(int nodeId, int depth) {
+				callbacks.add("exit " + nodeId + " " + depth);
+			}
+		});
+
+		List<String> expected = new ArrayList<String>();
+		visitRecursive(game, game.getRoot(), 0, expected);
+		assertEquals(expected, callbacks);
+	}
+
+	private void visitRecursive(Game game, int nodeId, int depth, List<String> callbacks) {
+		callbacks.add("enter " + nodeId + " " + depth);
+		Game.Node node = game.getNodeById(nodeId);
+		if (!node.isLeaf()) {
+			for (int actionId = 0; actionId < node.getActions().length; actionId++) {
+				int childId = node.getActions()[actionId].getChildId();
+				callbacks.add("before " + nodeId + " " + actionId + " " + childId + " " + depth);
+				visitRecursive(game, childId, depth+1, callbacks);
+				callbacks.add("after " + nodeId + " " + actionId + " " + childId + " " + depth);
+			}
+		}
+		callbacks.add("exit " + nodeId + " " + depth);
+	}
+
+	@Test
+	public void testSkippedSubtreeIsNotVisited() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		final int[] numVisited = new int[1];
+		new GameTreeTraversal(game).traverse(game.getRoot(), new GameTreeTraversal.Visitor() {
+			@Override
+			public boolean enterNode(int nodeId, int depth) {
+				numVisited[0]++;
+				return depth == 0;
+			}
+		});
+		assertEquals(1 + game.getNodeById(game.getRoot()).getActions().length, numVisited[0]);
+	}
+
+	@Test
+	public void testDeepChainOnSmallStack() throws Throwable {
+		final Game game = createChainGame(CHAIN_LENGTH);
+		runOnSmallStack(new Runnable() {
+			@Override
+			public void run() {
+				double[][][] strategyProfile = new double[3][][];
+				strategyProfile[1] = new double[CHAIN_LENGTH][];
+				strategyProfile[2] = new double[0][];
+				@SuppressWarnings({"unchecked", "rawtypes"})
+				TObjectDoubleMap<String>[] strategyP1 = new TObjectDoubleMap[CHAIN_LENGTH];
+				@SuppressWarnings({"unchecked", "rawtypes"})
+				TObjectDoubleMap<String>[] strategyP2 = new TObjectDoubleMap[0];
+				for (int informationSetId = 0; informationSetId < CHAIN_LENGTH; informationSetId++) {
+					strategyProfile[1][informationSetId] = new double[] {1};
+					strategyP1[informationSetId] = new TObjectDoubleHashMap<String>();
+					strategyP1[informationSetId].put("c", 1);
+				}
+				assertEquals(CHAIN_LENGTH, game.getMaxDepth());
+				assertEquals(3, game.computeGameValueForStrategies(strategyProfile), 0);
+				assertEquals(3, new CompactGame(game).computeGameValueForStrategies(strategyProfile), 0);
+				double[] expectedValues = game.getExpectedValuesForNodes(strategyP1, strategyP2, false);
+				assertEquals(0, expectedValues[game.getRoot()], 0);
+			}
+		});
+	}
+
+	@Test
+	public void testCFRDeepChainOnSmallStack() throws Throwable {
+		final Game game = createChainGame(CHAIN_LENGTH);
+		runOnSmallStack(new Runnable() {
+			@Override
+			public void run() {
+				CounterFactualRegretSolver solver = new CounterFactualRegretSolver(game);
+				solver.runCFR(2);
+				assertEquals(2 * (CHAIN_LENGTH + 1), solver.getNumNodesTouched());
+				double[][][] strategyProfile = solver.getStrategyProfile();
+				assertArrayEquals(new double[] {1}, strategyProfile[1][CHAIN_LENGTH - 1], 0);
+				assertEquals(3, solver.getValueOfGame(), 0);
+			}
+		});
+		// The worker threads of the pool have the default stack size
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			CounterFactualRegretSolver solver = new CounterFactualRegretSolver(game);
+			solver.runCFRParallel(2, pool);
+			assertEquals(2 * (CHAIN_LENGTH + 1), solver.getNumNodesTouched());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Runs the test on a thread with a small stack, such that recursing once per level of a chain game would overflow
+	 */
+	private void runOnSmallStack(final Runnable test) throws Throwable {
+		final Throwable[] error = new Throwable[1];
+		Thread thread = new Thread(null, new Runnable() {
+			@Override
+			public void run() {
+				try {
+					test.run();
+				} catch (Throwable t) {
+					error[0] = t;
+				}
+			}
+		}, "small stack", 256 * 1024);
+		thread.start();
+		thread.join();
+		if (error[0] != null) {
+			throw error[0];
+		}
+	}
+
+	/**
+	 * Writes a game in the Zerosum package format where Player 1 has a single action at each of length nodes, followed by a leaf with payoff 3
+	 */
+	private Game createChainGame(int length) throws Exception {
+		File gameFile = File.createTempFile("chain", ".txt");
+		gameFile.deleteOnExit();
+		PrintWriter out = new PrintWriter(gameFile);
+		out.println("'chain' 0 " + length + " 1 0 " + length + " 0 " + length + " 0");
+		out.println("0 '/' 0 0 1 'c' 1");
+		for (int nodeId = 1; nodeId < length; nodeId++) {
+			out.println(nodeId + " 'n" + nodeId + "' 0 " + nodeId + " 1 'c' " + (nodeId+1));
+		}
+		out.println(length + " 'n" + length + "' 3");
+		out.close();
+
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(gameFile.getPath());
+		return game;
+	}
+}
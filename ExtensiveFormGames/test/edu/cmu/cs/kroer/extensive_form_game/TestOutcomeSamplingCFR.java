@@ -0,0 +1,57 @@
+package edu.cmu.cs.kroer.extensive_form_game;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import extensive_form_game.Game;
+import extensive_form_game_solver.CounterFactualRegretSolver;
+import extensive_form_game_solver.OutcomeSamplingCFR;
+
+public class TestOutcomeSamplingCFR {
+
+	@Test
+	public void testConvergence() {
+		// With seed 1, kuhn is 0.0056 exploitable after 300000 iterations, and leduc_Kj1Raise 0.054 after 300000 and 0.026 after 600000
+		testConvergence("kuhn.txt", TestConfiguration.kuhnValueOfGame, 300000, 0.02);
+		testConvergence("leduc_Kj1Raise.txt", TestConfiguration.leducKj1RaiseValueOfGame, 600000, 0.05);
+	}
+
+	public void testConvergence(String gameFile, double gameValue, int iterations, double exploitability) {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + gameFile);
+		OutcomeSamplingCFR solver = new OutcomeSamplingCFR(game);
+		solver.reseed(1);
+		solver.runCFR(iterations);
+		assertEquals(gameValue, solver.getValueOfGame(), 0.01);
+		assertTrue(solver.computeExploitability() < exploitability);
+
+		// Each iteration touches one path per player, a small fraction of a full traversal
+		CounterFactualRegretSolver cfrSolver = new CounterFactualRegretSolver(game);
+		cfrSolver.runCFR(1);
+		assertTrue(solver.getNumNodesTouched() / (double) iterations < 0.25 * cfrSolver.getNumNodesTouched());
+	}
+
+	@Test
+	public void testReseed() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "leduc.txt");
+		OutcomeSamplingCFR solver = new OutcomeSamplingCFR(game, 0.5);
+		solver.reseed(7);
+		solver.runCFR(1000);
+		OutcomeSamplingCFR otherSolver = new OutcomeSamplingCFR(game, 0.5);
+		otherSolver.reseed(7);
+		otherSolver.runCFR(1000);
+		assertTrue(Arrays.deepEquals(solver.getStrategyProfile(), otherSolver.getStrategyProfile()));
+		assertEquals(solver.getNumNodesTouched(), otherSolver.getNumNodesTouched());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsZeroExploration() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		new OutcomeSamplingCFR(game, 0);
+	}
+}
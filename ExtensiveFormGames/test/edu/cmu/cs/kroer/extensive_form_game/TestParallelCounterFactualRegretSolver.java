@@ -0,0 +1,81 @@
+package edu.cmu.cs.kroer.extensive_form_game;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import extensive_form_game.Game;
+import extensive_form_game_solver.CounterFactualRegretSolver;
+
+public class TestParallelCounterFactualRegretSolver {
+
+	@Test
+	public void testParallelCFRMatchesSequential() {
+		Game kuhnGame = new Game();
+		kuhnGame.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		testParallelCFRMatchesSequential(kuhnGame, 1000);
+
+		Game leducGame = new Game();
+		leducGame.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "leduc.txt");
+		testParallelCFRMatchesSequential(leducGame, 100);
+
+		Game leducUnabstractedGame = new Game();
+		leducUnabstractedGame.createGameFromFile(TestConfiguration.gamesFolder + "leduc.txt");
+		testParallelCFRMatchesSequential(leducUnabstractedGame, 100);
+	}
+
+	@Test
+	public void testRegretBasedPruning() {
+		Game leducGame = new Game();
+		leducGame.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "leduc.txt");
+		CounterFactualRegretSolver solver = new CounterFactualRegretSolver(leducGame);
+		solver.runCFR(1000);
+		CounterFactualRegretSolver pruningSolver = new CounterFactualRegretSolver(leducGame);
+		pruningSolver.setRegretBasedPruning(true);
+		pruningSolver.runCFR(1000);
+
+		assertTrue(pruningSolver.getNumActionsPruned() > 0);
+		assertTrue(pruningSolver.getNumActionsResumed() > 0);
+		assertTrue(pruningSolver.getNumActionsResumed() <= pruningSolver.getNumActionsPruned());
+		assertTrue(pruningSolver.getNumNodesTouched() < 0.9 * solver.getNumNodesTouched());
+		assertEquals(solver.getValueOfGame(), pruningSolver.getValueOfGame(), 0.01);
+
+		// The pruning decisions are made between traversals, so they are the same for parallel traversals
+		CounterFactualRegretSolver parallelSolver = new CounterFactualRegretSolver(leducGame);
+		parallelSolver.setRegretBasedPruning(true);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			parallelSolver.runCFRParallel(1000, pool);
+		} finally {
+			pool.shutdown();
+		}
+		assertTrue(Arrays.deepEquals(pruningSolver.getStrategyProfile(), parallelSolver.getStrategyProfile()));
+		assertEquals(pruningSolver.getNumNodesTouched(), parallelSolver.getNumNodesTouched());
+	}
+
+	public void testParallelCFRMatchesSequential(Game game, int iterations) {
+		CounterFactualRegretSolver solver = new CounterFactualRegretSolver(game);
+		solver.runCFR(iterations);
+		CounterFactualRegretSolver parallelSolver = new CounterFactualRegretSolver(game);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			// Run in two calls to check that the subtrees are reused correctly across calls
+			parallelSolver.runCFRParallel(iterations / 2, pool);
+			parallelSolver.runCFRParallel(iterations - iterations / 2, pool);
+		} finally {
+			pool.shutdown();
+		}
+
+		double[][][] strategyProfile = solver.getStrategyProfile();
+		double[][][] parallelStrategyProfile = parallelSolver.getStrategyProfile();
+		for (int player = 1; player < 3; player++) {
+			for (int informationSetId = 0; informationSetId < strategyProfile[player].length; informationSetId++) {
+				assertArrayEquals(strategyProfile[player][informationSetId], parallelStrategyProfile[player][informationSetId], 0);
+			}
+		}
+		assertEquals(solver.getNumNodesTouched(), parallelSolver.getNumNodesTouched());
+	}
+}
@@ -0,0 +1,96 @@
+package edu.cmu.cs.kroer.extensive_form_game;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import extensive_form_game.Game;
+import extensive_form_game_solver.ExternalSamplingCFR;
+import extensive_form_game_solver.ParallelExternalSamplingCFR;
+import extensive_form_game_solver.ParallelExternalSamplingCFR.Mode;
+import extensive_form_game_solver.SolverTelemetry;
+import extensive_form_game_solver.SolverTelemetry.IterationMetrics;
+
+public class TestParallelExternalSamplingCFR {
+
+	@Test
+	public void testSingleWorkerMatchesExternalSampling() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "leduc.txt");
+		ExternalSamplingCFR solver = new ExternalSamplingCFR(game);
+		solver.reseed(11);
+		solver.runCFR(2000);
+		// Delta buffers round differently, as the regrets of a worker are summed separately until merged
+		for (Mode mode : new Mode[] {Mode.HOGWILD, Mode.STRIPED_LOCKS}) {
+			ParallelExternalSamplingCFR parallelSolver = new ParallelExternalSamplingCFR(game, mode, 1);
+			parallelSolver.reseed(11);
+			parallelSolver.runCFR(2000);
+			assertTrue(Arrays.deepEquals(solver.getStrategyProfile(), parallelSolver.getStrategyProfile()));
+			assertEquals(solver.getNumNodesTouched(), parallelSolver.getNumNodesTouched());
+		}
+	}
+
+	@Test
+	public void testConvergence() {
+		testConvergence("kuhn.txt", TestConfiguration.kuhnValueOfGame, 0.03);
+		testConvergence("leduc_Kj1Raise.txt", TestConfiguration.leducKj1RaiseValueOfGame, 0.08);
+	}
+
+	public void testConvergence(String gameFile, double gameValue, double exploitability) {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + gameFile);
+		// The interleaving of the workers varies between runs for the modes other than DELTA_BUFFERS, so the bounds leave room for it
+		ForkJoinPool pool = new ForkJoinPool(4);
+		for (Mode mode : Mode.values()) {
+			ParallelExternalSamplingCFR solver = new ParallelExternalSamplingCFR(game, mode, 4);
+			solver.reseed(1);
+			solver.runCFR(50000, pool);
+			assertEquals(50000, solver.getTotalIterationsRun());
+			assertEquals(gameValue, solver.getValueOfGame(), 0.02);
+			assertTrue(solver.computeExploitability() < exploitability);
+		}
+		pool.shutdown();
+	}
+
+	@Test
+	public void testDeltaBuffersIndependentOfPool() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "leduc.txt");
+		ParallelExternalSamplingCFR solver = new ParallelExternalSamplingCFR(game, Mode.DELTA_BUFFERS, 4);
+		solver.reseed(2);
+		solver.runCFR(1000, new ForkJoinPool(1));
+		ParallelExternalSamplingCFR otherSolver = new ParallelExternalSamplingCFR(game, Mode.DELTA_BUFFERS, 4);
+		otherSolver.reseed(2);
+		otherSolver.runCFR(1000, new ForkJoinPool(4));
+		assertTrue(Arrays.deepEquals(solver.getStrategyProfile(), otherSolver.getStrategyProfile()));
+	}
+
+	@Test
+	public void testTelemetryPerRound() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		for (Mode mode : Mode.values()) {
+			ParallelExternalSamplingCFR solver = new ParallelExternalSamplingCFR(game, mode, 2);
+			solver.setMergeInterval(5);
+			SolverTelemetry telemetry = new SolverTelemetry(8, 20);
+			solver.setTelemetry(telemetry);
+			solver.runCFR(45, new ForkJoinPool(2));
+
+			// Rounds of 10 iterations, the last one cut short
+			List<IterationMetrics> recent = telemetry.getRecentIterations();
+			assertEquals(5, recent.size());
+			long nodesTouched = 0;
+			for (int index = 0; index < recent.size(); index++) {
+				IterationMetrics metrics = recent.get(index);
+				assertEquals(Math.min(10 * (index + 1), 45), metrics.getIteration());
+				assertEquals(metrics.getIteration() % 20 == 0, !Double.isNaN(metrics.getExploitability()));
+				nodesTouched += metrics.getNodesTouched();
+			}
+			assertEquals(solver.getNumNodesTouched(), nodesTouched);
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package edu.cmu.cs.kroer.extensive_form_game;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import extensive_form_game.Game;
+import extensive_form_game_solver.CounterFactualRegretSolver;
+import extensive_form_game_solver.OpponentSamplingCFR;
+import extensive_form_game_solver.SolverCheckpoint;
+
+public class TestSolverCheckpoint {
+
+	@Test
+	public void testResumeCFR() throws IOException {
+		testResumeCFR(false);
+		testResumeCFR(true);
+	}
+
+	public void testResumeCFR(boolean regretBasedPruning) throws IOException {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "leduc.txt");
+		File file = File.createTempFile("cfr", ".checkpoint");
+		file.delete();
+
+		CounterFactualRegretSolver solver = new CounterFactualRegretSolver(game);
+		solver.setRegretBasedPruning(regretBasedPruning);
+		SolverCheckpoint checkpoint = new SolverCheckpoint(file.getPath(), solver);
+		assertFalse(checkpoint.hasCheckpoint());
+		solver.runCFR(100, checkpoint, 30);
+		checkpoint.close();
+		solver.runCFR(50);
+
+		CounterFactualRegretSolver resumedSolver = new CounterFactualRegretSolver(game);
+		checkpoint = new SolverCheckpoint(file.getPath(), resumedSolver);
+		assertEquals(100, checkpoint.getIterations());
+		assertTrue(checkpoint.restore(resumedSolver));
+		checkpoint.close();
+		assertEquals(regretBasedPruning, resumedSolver.isRegretBasedPruning());
+		resumedSolver.runCFR(50);
+
+		assertTrue(Arrays.deepEquals(solver.getStrategyProfile(), resumedSolver.getStrategyProfile()));
+		assertEquals(solver.getNumNodesTouched(), resumedSolver.getNumNodesTouched());
+		assertEquals(solver.getNumActionsPruned(), resumedSolver.getNumActionsPruned());
+		file.delete();
+	}
+
+	@Test
+	public void testResumeOpponentSamplingCFR() throws IOException {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		File file = File.createTempFile("cfr", ".checkpoint");
+		file.delete();
+
+		OpponentSamplingCFR solver = new OpponentSamplingCFR(game);
+		SolverCheckpoint checkpoint = new SolverCheckpoint(file.getPath(), solver);
+		solver.runCFR(200);
+		checkpoint.save(solver);
+		// The second save goes to the other slot, and is the one restored
+		solver.runCFR(200);
+		checkpoint.save(solver);
+		solver.runCFR(200);
+
+		// The random generator is restored along with the tables, so the sampled iterations are the same
+		OpponentSamplingCFR resumedSolver = new OpponentSamplingCFR(game);
+		assertTrue(checkpoint.restore(resumedSolver));
+		checkpoint.close();
+		resumedSolver.runCFR(200);
+		assertTrue(Arrays.deepEquals(solver.getStrategyProfile(), resumedSolver.getStrategyProfile()));
+		file.delete();
+	}
+
+	@Test
+	public void testRejectsOtherGame() throws IOException {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "leduc.txt");
+		File file = File.createTempFile("cfr", ".checkpoint");
+		file.delete();
+		CounterFactualRegretSolver solver = new CounterFactualRegretSolver(game);
+		solver.setRegretBasedPruning(true);
+		SolverCheckpoint checkpoint = new SolverCheckpoint(file.getPath(), solver);
+		solver.runCFR(10);
+		checkpoint.save(solver);
+		checkpoint.close();
+
+		Game kuhnGame = new Game();
+		kuhnGame.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		CounterFactualRegretSolver kuhnSolver = new CounterFactualRegretSolver(kuhnGame);
+		checkpoint = new SolverCheckpoint(file.getPath(), kuhnSolver);
+		try {
+			checkpoint.restore(kuhnSolver);
+			fail("Restored a checkpoint of leduc into a solver for kuhn");
+		} catch (IllegalArgumentException e) {
+			// The solver is left as it was, without pruning
+			assertFalse(kuhnSolver.isRegretBasedPruning());
+		} finally {
+			checkpoint.close();
+			file.delete();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsZeroInterval() throws IOException {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		File file = File.createTempFile("cfr", ".checkpoint");
+		file.delete();
+		file.deleteOnExit();
+		CounterFactualRegretSolver solver = new CounterFactualRegretSolver(game);
+		SolverCheckpoint checkpoint = new SolverCheckpoint(file.getPath(), solver);
+		try {
+			solver.runCFR(10, checkpoint, 0);
+		} finally {
+			checkpoint.close();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testRejectsOtherFiles() throws IOException {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		File file = File.createTempFile("cfr", ".checkpoint");
+		file.deleteOnExit();
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(new byte[64]);
+		out.close();
+		new SolverCheckpoint(file.getPath(), new CounterFactualRegretSolver(game));
+	}
+}
@@ -0,0 +1,80 @@
+package edu.cmu.cs.kroer.extensive_form_game;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import org.junit.Test;
+
+import extensive_form_game.Game;
+import extensive_form_game_solver.CFRPlusSolver;
+import extensive_form_game_solver.CounterFactualRegretSolver;
+import extensive_form_game_solver.SolverTelemetry;
+import extensive_form_game_solver.SolverTelemetry.IterationMetrics;
+
+public class TestSolverTelemetry {
+
+	@Test
+	public void testRingBufferAndSinks() throws IOException {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		CounterFactualRegretSolver solver = new CounterFactualRegretSolver(game);
+		solver.runCFR(5);
+		int nodesPerIteration = solver.getNumNodesTouched() / 5;
+
+		SolverTelemetry telemetry = new SolverTelemetry(8, 5);
+		StringWriter csv = new StringWriter();
+		StringWriter jsonLines = new StringWriter();
+		telemetry.addSink(new SolverTelemetry.CsvSink(csv));
+		telemetry.addSink(new SolverTelemetry.JsonLinesSink(jsonLines));
+		solver.setTelemetry(telemetry);
+		solver.runCFR(20);
+		telemetry.close();
+
+		assertEquals(20, telemetry.getNumIterationsRecorded());
+		List<IterationMetrics> recent = telemetry.getRecentIterations();
+		assertEquals(8, recent.size());
+		for (int index = 0; index < recent.size(); index++) {
+			IterationMetrics metrics = recent.get(index);
+			assertEquals(18 + index, metrics.getIteration());
+			assertEquals(nodesPerIteration, metrics.getNodesTouched());
+			assertTrue(metrics.getWallTimeNanos() >= metrics.getRegretMatchingNanos());
+			assertEquals(metrics.getIteration() % 5 == 0, !Double.isNaN(metrics.getExploitability()));
+		}
+		assertEquals(solver.computeExploitability(), recent.get(recent.size() - 1).getExploitability(), 0);
+		assertTrue(telemetry.getRecentNodesPerSecond() > 0);
+
+		String[] csvLines = csv.toString().split("\n");
+		assertEquals(21, csvLines.length);
+		assertTrue(csvLines[1].startsWith("6,"));
+		String[] jsonLinesLines = jsonLines.toString().split("\n");
+		assertEquals(20, jsonLinesLines.length);
+		assertTrue(jsonLinesLines[4].startsWith("{\"iteration\":10,"));
+		assertTrue(jsonLinesLines[4].contains("\"exploitability\":"));
+		assertFalse(jsonLinesLines[5].contains("\"exploitability\":"));
+	}
+
+	@Test
+	public void testAlternatingUpdates() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		CFRPlusSolver solver = new CFRPlusSolver(game);
+		SolverTelemetry telemetry = new SolverTelemetry(4);
+		solver.setTelemetry(telemetry);
+		solver.runCFR(10);
+		solver.setTelemetry(null);
+		solver.runCFR(10);
+
+		assertEquals(10, telemetry.getNumIterationsRecorded());
+		long nodesTouched = 0;
+		for (IterationMetrics metrics : telemetry.getRecentIterations()) {
+			assertTrue(metrics.getRegretMatchingNanos() > 0);
+			assertTrue(Double.isNaN(metrics.getExploitability()));
+			nodesTouched += metrics.getNodesTouched();
+		}
+		// Both players are updated in separate traversals
+		assertEquals(4 * solver.getNumNodesTouched() / 20, nodesTouched);
+	}
+}
@@ -0,0 +1,75 @@
+package edu.cmu.cs.kroer.extensive_form_game;
+
+import static org.junit.Assert.*;
+
+import java.nio.DoubleBuffer;
+
+import org.junit.Test;
+
+import extensive_form_game.CompactGame;
+import extensive_form_game.Game;
+import extensive_form_game.StrategyProfile;
+import extensive_form_game_solver.CounterFactualRegretSolver;
+import gnu.trove.map.TIntDoubleMap;
+
+public class TestStrategyProfile {
+
+	@Test
+	public void testCFRProfileMatchesArrayProfile() {
+		Game game = new Game();
+		game.createGameFromFile(TestConfiguration.gamesFolder + "leduc.txt");
+		CounterFactualRegretSolver solver = new CounterFactualRegretSolver(game);
+		solver.runCFR(100);
+
+		double[][][] strategyProfile = solver.getStrategyProfile();
+		StrategyProfile profile = solver.getFlatStrategyProfile();
+		for (int player = 1; player < 3; player++) {
+			assertEquals(game.getNumInformationSets(player), profile.getNumInformationSets(player));
+			for (int informationSetId = 0; informationSetId < strategyProfile[player].length; informationSetId++) {
+				for (int actionId = 0; actionId < strategyProfile[player][informationSetId].length; actionId++) {
+					assertEquals(strategyProfile[player][informationSetId][actionId], profile.getProbability(player, informationSetId, actionId), 0);
+				}
+			}
+		}
+		assertEquals(new StrategyProfile(game, strategyProfile).getProbabilities(1).length, profile.getProbabilities(1).length);
+		assertArrayEquals(profile.getProbabilities(2), new StrategyProfile(game, strategyProfile).getProbabilities(2), 0);
+
+		TIntDoubleMap[] strategyP1 = solver.getInformationSetActionProbabilitiesByActionId(1);
+		TIntDoubleMap[] strategyP2 = solver.getInformationSetActionProbabilitiesByActionId(2);
+		assertArrayEquals(profile.getProbabilities(1), new StrategyProfile(game, strategyP1, strategyP2).getProbabilities(1), 0);
+
+		double value = game.computeGameValueForStrategies(strategyProfile);
+		assertEquals(value, game.computeGameValueForStrategies(profile), 0);
+		assertEquals(value, new CompactGame(game).computeGameValueForStrategies(profile), 0);
+	}
+
+	@Test
+	public void testViewsAndBulkOperations() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		StrategyProfile profile = new StrategyProfile(game);
+		profile.normalize();
+		assertEquals(1.0 / game.getNumActionsAtInformationSet(1, 0), profile.getProbability(1, 0, 0), 0);
+
+		// The view is backed by the profile
+		DoubleBuffer view = profile.getInformationSetView(2, 1);
+		assertEquals(game.getNumActionsAtInformationSet(2, 1), view.capacity());
+		view.put(0, 0.75);
+		assertEquals(0.75, profile.getProbability(2, 1, 0), 0);
+		assertEquals(0.75, profile.getProbabilities(2)[profile.getOffset(2, 1)], 0);
+
+		StrategyProfile pure = new StrategyProfile(game);
+		pure.setProbability(1, 0, 0, 1);
+		StrategyProfile mixed = new StrategyProfile(profile);
+		mixed.mix(pure, 0.5);
+		assertEquals(0.5 * profile.getProbability(1, 0, 0) + 0.5, mixed.getProbability(1, 0, 0), 0);
+		assertEquals(0.5 * profile.getProbability(1, 0, 1), mixed.getProbability(1, 0, 1), 0);
+		assertEquals(0.75, profile.getProbability(2, 1, 0), 0);
+
+		StrategyProfile average = StrategyProfile.average(profile, mixed);
+		assertEquals((profile.getProbability(1, 0, 0) + mixed.getProbability(1, 0, 0)) / 2, average.getProbability(1, 0, 0), 0);
+
+		double[][][] array = average.toArray();
+		assertArrayEquals(array[1][0], new double[] {average.getProbability(1, 0, 0), average.getProbability(1, 0, 1)}, 0);
+	}
+}
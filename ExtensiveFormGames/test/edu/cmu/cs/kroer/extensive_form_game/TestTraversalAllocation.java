@@ -0,0 +1,49 @@
+package edu.cmu.cs.kroer.extensive_form_game;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import extensive_form_game.Game;
+import extensive_form_game_solver.CounterFactualRegretSolver;
+import extensive_form_game_solver.OpponentSamplingCFR;
+import extensive_form_game_solver.SolverTelemetry;
+import extensive_form_game_solver.SolverTelemetry.IterationMetrics;
+
+public class TestTraversalAllocation {
+
+	@Test
+	public void testCFRIterationsDoNotAllocate() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "leduc.txt");
+		CounterFactualRegretSolver solver = new CounterFactualRegretSolver(game);
+		// Warm up, so the traversal is compiled and the one-time allocations are done
+		solver.runCFR(200);
+		SolverTelemetry telemetry = new SolverTelemetry(50);
+		solver.setTelemetry(telemetry);
+		solver.runCFR(50);
+		assertIterationsDoNotAllocate(telemetry);
+	}
+
+	@Test
+	public void testOpponentSamplingIterationsDoNotAllocate() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "leduc.txt");
+		OpponentSamplingCFR solver = new OpponentSamplingCFR(game);
+		// The sample maps grow to the largest number of information sets sampled in an iteration during the warm up
+		solver.runCFR(20000);
+		SolverTelemetry telemetry = new SolverTelemetry(500);
+		solver.setTelemetry(telemetry);
+		solver.runCFR(500);
+		assertIterationsDoNotAllocate(telemetry);
+	}
+
+	/**
+	 * The telemetry reports -1 bytes if the JVM cannot count allocations, which fails the test as well
+	 */
+	private void assertIterationsDoNotAllocate(SolverTelemetry telemetry) {
+		for (IterationMetrics metrics : telemetry.getRecentIterations()) {
+			assertEquals("Bytes allocated by iteration " + metrics.getIteration(), 0, metrics.getAllocatedBytes());
+		}
+	}
+}
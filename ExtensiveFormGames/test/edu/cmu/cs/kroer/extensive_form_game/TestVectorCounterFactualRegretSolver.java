@@ -0,0 +1,78 @@
+package edu.cmu.cs.kroer.extensive_form_game;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import extensive_form_game.Game;
+import extensive_form_game_solver.CounterFactualRegretSolver;
+import extensive_form_game_solver.VectorCounterFactualRegretSolver;
+
+public class TestVectorCounterFactualRegretSolver {
+
+	@Test
+	public void testPublicTreeLeduc() {
+		Game game = new Game();
+		game.createGameFromFile(TestConfiguration.gamesFolder + "leduc.txt");
+		VectorCounterFactualRegretSolver solver = new VectorCounterFactualRegretSolver(game);
+		// Each player is dealt one of 6 cards, and Player 2 one of the 5 cards that remain
+		assertEquals(6, solver.getNumTypes(1));
+		assertEquals(6, solver.getNumTypes(2));
+		assertEquals(30, solver.getNumDeals());
+		assertTrue(10 * solver.getNumPublicNodes() < game.getNumNodes());
+	}
+
+	@Test
+	public void testMatchesCFRLeduc() {
+		Game game = new Game();
+		game.createGameFromFile(TestConfiguration.gamesFolder + "leduc.txt");
+		CounterFactualRegretSolver solver = new CounterFactualRegretSolver(game);
+		solver.runCFR(100);
+		VectorCounterFactualRegretSolver vectorSolver = new VectorCounterFactualRegretSolver(game);
+		vectorSolver.runCFR(100);
+
+		double[][][] strategyProfile = solver.getStrategyProfile();
+		double[][][] vectorStrategyProfile = vectorSolver.getStrategyProfile();
+		for (int player = 1; player < 3; player++) {
+			for (int informationSetId = 0; informationSetId < strategyProfile[player].length; informationSetId++) {
+				assertArrayEquals(strategyProfile[player][informationSetId], vectorStrategyProfile[player][informationSetId], 1e-10);
+			}
+		}
+		assertEquals(solver.getValueOfGame(), vectorSolver.getValueOfGame(), 1e-10);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testRejectsGameWithoutSignals() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "leduc.txt");
+		new VectorCounterFactualRegretSolver(game);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testRejectsAbstractedGame() {
+		Game game = new Game();
+		game.createGameFromFile(TestConfiguration.gamesFolder + "leduc.txt");
+		// Merge the first two information sets of Player 1 with the same number of actions
+		int[][] informationSetMapping = new int[3][];
+		int[][][] actionMapping = new int[3][][];
+		for (int player = 1; player < 3; player++) {
+			informationSetMapping[player] = new int[game.getNumInformationSets(player)];
+			actionMapping[player] = new int[game.getNumInformationSets(player)][];
+			for (int informationSetId = 0; informationSetId < game.getNumInformationSets(player); informationSetId++) {
+				informationSetMapping[player][informationSetId] = informationSetId;
+				actionMapping[player][informationSetId] = new int[game.getNumActionsAtInformationSet(player, informationSetId)];
+				for (int actionId = 0; actionId < actionMapping[player][informationSetId].length; actionId++) {
+					actionMapping[player][informationSetId][actionId] = actionId;
+				}
+			}
+		}
+		for (int informationSetId = 1; informationSetId < game.getNumInformationSets(1); informationSetId++) {
+			if (game.getNumActionsAtInformationSet(1, informationSetId) == game.getNumActionsAtInformationSet(1, 0)) {
+				informationSetMapping[1][informationSetId] = 0;
+				break;
+			}
+		}
+		game.addInformationSetAbstraction(informationSetMapping, actionMapping);
+		new VectorCounterFactualRegretSolver(game);
+	}
+}
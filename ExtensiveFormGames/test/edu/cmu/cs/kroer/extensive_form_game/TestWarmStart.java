@@ -0,0 +1,176 @@
+package edu.cmu.cs.kroer.extensive_form_game;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import extensive_form_game.Game;
+import extensive_form_game.Game.Node;
+import extensive_form_game_solver.BestResponseTreeTraversalSolver;
+import extensive_form_game_solver.CFRPlusSolver;
+import extensive_form_game_solver.CounterFactualRegretSolver;
+
+public class TestWarmStart {
+
+	private Game loadLeduc() {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "leduc.txt");
+		return game;
+	}
+
+	@Test
+	public void testCFRWarmStartFromSameGame() {
+		Game game = loadLeduc();
+		CounterFactualRegretSolver priorSolver = new CounterFactualRegretSolver(game);
+		priorSolver.runCFR(1000);
+		double[][][] prior = priorSolver.getStrategyProfile();
+
+		// The averaged strategy of CFR converges slowly, so counting the prior for fewer iterations than it was computed with lets the new iterations improve on it sooner
+		CounterFactualRegretSolver solver = new CounterFactualRegretSolver(game);
+		solver.warmStart(prior, 100);
+		assertEquals(BestResponseTreeTraversalSolver.computeExploitability(game, prior), solver.computeExploitability(), 1e-9);
+		solver.runCFR(300);
+
+		CounterFactualRegretSolver coldSolver = new CounterFactualRegretSolver(game);
+		coldSolver.runCFR(2000);
+		assertTrue(solver.computeExploitability() < coldSolver.computeExploitability());
+	}
+
+	@Test
+	public void testCFRPlusWarmStartFromSameGame() {
+		Game game = loadLeduc();
+		CFRPlusSolver priorSolver = new CFRPlusSolver(game);
+		priorSolver.runCFR(1000);
+		double[][][] prior = priorSolver.getStrategyProfile();
+		double priorExploitability = BestResponseTreeTraversalSolver.computeExploitability(game, prior);
+
+		CFRPlusSolver solver = new CFRPlusSolver(game);
+		solver.warmStart(prior, 1000);
+		assertEquals(priorExploitability, solver.computeExploitability(), 1e-9);
+		solver.runCFR(100);
+		// A cold start needs several hundred iterations to get within a few times the exploitability of the prior
+		assertTrue(solver.computeExploitability() < 3 * priorExploitability);
+	}
+
+	@Test
+	public void testWarmStartWithShiftedPayoffs() throws IOException {
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		// All payoffs to Player 1 are negative, and all payoffs to Player 2 positive
+		Game shiftedGame = loadShiftedGame(TestConfiguration.zerosumGamesFolder + "kuhn.txt", -3);
+		assertTrue(shiftedGame.getLargestPayoff() < 0);
+
+		CFRPlusSolver priorSolver = new CFRPlusSolver(shiftedGame);
+		priorSolver.runCFR(1000);
+		double[][][] prior = priorSolver.getStrategyProfile();
+		double priorExploitability = BestResponseTreeTraversalSolver.computeExploitability(shiftedGame, prior);
+
+		CFRPlusSolver solver = new CFRPlusSolver(shiftedGame);
+		solver.warmStart(prior, 1000);
+		solver.runCFR(100);
+		assertTrue(solver.computeExploitability() < 3 * priorExploitability);
+
+		// Shifting the payoffs changes neither the seeded regrets nor the iterations after the warm start
+		CFRPlusSolver unshiftedSolver = new CFRPlusSolver(game);
+		unshiftedSolver.warmStart(prior, 1000);
+		unshiftedSolver.runCFR(100);
+		assertEquals(unshiftedSolver.computeExploitability(), solver.computeExploitability(), 1e-9);
+	}
+
+	@Test
+	public void testWarmStartFromCoarserAbstraction() {
+		Game coarseGame = loadLeduc();
+		addJackQueenAbstraction(coarseGame);
+		CounterFactualRegretSolver coarseSolver = new CounterFactualRegretSolver(coarseGame);
+		coarseSolver.runCFR(1000);
+		double[][][] prior = coarseSolver.getStrategyProfile();
+
+		Game game = loadLeduc();
+		CounterFactualRegretSolver solver = new CounterFactualRegretSolver(game);
+		solver.warmStart(prior, 100);
+		assertEquals(BestResponseTreeTraversalSolver.computeExploitability(game, prior), solver.computeExploitability(), 1e-9);
+		solver.runCFR(100);
+
+		CounterFactualRegretSolver coldSolver = new CounterFactualRegretSolver(game);
+		coldSolver.runCFR(100);
+		assertTrue(solver.computeExploitability() < coldSolver.computeExploitability());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWarmStartFromOtherGame() {
+		Game kuhnGame = new Game();
+		kuhnGame.createGameFromFileZerosumPackageFormat(TestConfiguration.zerosumGamesFolder + "kuhn.txt");
+		CounterFactualRegretSolver kuhnSolver = new CounterFactualRegretSolver(kuhnGame);
+		kuhnSolver.runCFR(10);
+		new CounterFactualRegretSolver(loadLeduc()).warmStart(kuhnSolver.getStrategyProfile(), 10);
+	}
+
+	/**
+	 * Loads a game in the zerosum package format with the value of every leaf shifted by shift
+	 */
+	private Game loadShiftedGame(String filename, double shift) throws IOException {
+		File shiftedFile = File.createTempFile("shifted", ".txt");
+		shiftedFile.deleteOnExit();
+		BufferedReader in = new BufferedReader(new FileReader(filename));
+		PrintWriter out = new PrintWriter(shiftedFile);
+		String line;
+		while ((line = in.readLine()) != null) {
+			String[] tokens = line.split(" ");
+			// Leaf lines are: id 'name' value
+			if (!line.startsWith("#") && tokens.length == 3 && tokens[1].startsWith("'")) {
+				line = tokens[0] + " " + tokens[1] + " " + (Double.parseDouble(tokens[2]) + shift);
+			}
+			out.println(line);
+		}
+		in.close();
+		out.close();
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(shiftedFile.getPath());
+		return game;
+	}
+
+	/**
+	 * Merges the information sets where a player holds a queen into the ones where it holds a jack, once the public card is a king.
+	 * Node names are of the form /cards/actions/publicCard/actions
+	 */
+	private void addJackQueenAbstraction(Game game) {
+		int[][] informationSetMapping = new int[3][];
+		int[][][] actionMapping = new int[3][][];
+		for (int player = 1; player < 3; player++) {
+			informationSetMapping[player] = new int[game.getNumInformationSets(player)];
+			actionMapping[player] = new int[game.getNumInformationSets(player)][];
+		}
+		Map<String, Integer> representatives = new HashMap<String, Integer>();
+		for (int nodeId = 0; nodeId < game.getNumNodes(); nodeId++) {
+			Node node = game.getNodeById(nodeId);
+			if (node == null || node.isLeaf() || node.getPlayer() == 0) {
+				continue;
+			}
+			int player = node.getPlayer();
+			String[] parts = node.getName().split("/");
+			char card = parts[1].charAt(player - 1);
+			if (card == 'Q' && parts.length > 3 && parts[3].equals("K")) {
+				card = 'J';
+			}
+			String key = player + " " + card + node.getName().substring(parts[1].length() + 1);
+			int informationSetId = node.getInformationSet();
+			if (!representatives.containsKey(key)) {
+				representatives.put(key, informationSetId);
+			}
+			informationSetMapping[player][informationSetId] = representatives.get(key);
+			actionMapping[player][informationSetId] = new int[node.getActions().length];
+			for (int action = 0; action < actionMapping[player][informationSetId].length; action++) {
+				actionMapping[player][informationSetId][action] = action;
+			}
+		}
+		game.addInformationSetAbstraction(informationSetMapping, actionMapping);
+	}
+}